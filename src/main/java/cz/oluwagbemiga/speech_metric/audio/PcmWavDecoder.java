@@ -0,0 +1,176 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * In-process conversion of uncompressed WAV to the canonical recognition format (PCM s16le mono 16 kHz).
+ * <p>
+ * Handles integer PCM with 8 (unsigned), 16, 24 or 32 bits and IEEE float with 32 or 64 bits, in plain or
+ * {@code WAVE_FORMAT_EXTENSIBLE} headers, at any channel count and sample rate. Channels are downmixed by
+ * averaging and the rate is converted by {@link PolyphaseResampler}. The input is processed in fixed-size
+ * blocks, so memory use does not depend on the file size.
+ * </p>
+ * The output length is derived from the declared data size, which lets the WAV header be written upfront;
+ * streams without a declared size are therefore not {@link #supports(WavHeader) supported}. The declared size is
+ * checked against the RIFF size and the caller's input limit before anything is written, and a stream ending
+ * before its declared size is rejected, so the output never grows beyond what the input actually contains.
+ */
+public final class PcmWavDecoder {
+
+    public static final int TARGET_SAMPLE_RATE = 16000;
+
+    private static final int FRAMES_PER_BLOCK = 4096;
+    private static final int WAV_HEADER_BYTES = 44;
+    // The RIFF size field (output length minus 8) is 32 bits wide
+    private static final long MAX_RIFF_SIZE = 0xFFFFFFFFL;
+
+    private PcmWavDecoder() {
+    }
+
+    /**
+     * @param header parsed input header
+     * @return true if {@link #decodeToPcmMono16k} can convert the stream
+     */
+    public static boolean supports(WavHeader header) {
+        if (header.channels() < 1 || header.frames() < 0
+                || header.blockAlign() != header.channels() * (header.bitsPerSample() / 8)
+                || !PolyphaseResampler.supports(header.sampleRate(), TARGET_SAMPLE_RATE)) {
+            return false;
+        }
+        return switch (header.formatCode()) {
+            case WavHeader.FORMAT_PCM -> header.bitsPerSample() == 8 || header.bitsPerSample() == 16
+                    || header.bitsPerSample() == 24 || header.bitsPerSample() == 32;
+            case WavHeader.FORMAT_IEEE_FLOAT -> header.bitsPerSample() == 32 || header.bitsPerSample() == 64;
+            default -> false;
+        };
+    }
+
+    /**
+     * Decodes, downmixes and resamples a WAV stream.
+     *
+     * @param header        parsed header of the stream; must be {@link #supports(WavHeader) supported}
+     * @param input         stream positioned at its first byte (the RIFF header); not closed
+     * @param output        receives a complete canonical WAV; not closed
+     * @param maxInputBytes largest accepted input stream, e.g. the upload limit
+     * @return number of bytes written
+     * @throws IOException if reading or writing fails, the declared size is inconsistent or too large, or the
+     *                     stream ends before its declared size
+     */
+    public static long decodeToPcmMono16k(WavHeader header, InputStream input, OutputStream output, long maxInputBytes) throws IOException {
+        if (!supports(header)) {
+            throw new IllegalArgumentException("Unsupported WAV format: " + header);
+        }
+        long inputBytes = header.dataOffset() + header.dataSize();
+        if (header.riffSize() >= 0 && inputBytes > header.riffSize() + 8) {
+            throw new IOException("WAV data chunk of " + header.dataSize() + " bytes exceeds the RIFF size " + header.riffSize());
+        }
+        if (inputBytes > maxInputBytes) {
+            throw new IOException("WAV declares " + inputBytes + " bytes, more than the limit of " + maxInputBytes);
+        }
+        PolyphaseResampler resampler = new PolyphaseResampler(header.sampleRate(), TARGET_SAMPLE_RATE);
+        long totalSamples = resampler.outputLength(header.frames());
+        long dataBytes = totalSamples * 2;
+        if (WAV_HEADER_BYTES - 8 + dataBytes > MAX_RIFF_SIZE) {
+            throw new IOException("Converted WAV of " + dataBytes + " data bytes does not fit a RIFF header");
+        }
+        input.skipNBytes(header.dataOffset());
+        output.write(canonicalHeader(dataBytes));
+
+        int frameBytes = header.blockAlign();
+        byte[] raw = new byte[FRAMES_PER_BLOCK * frameBytes];
+        float[] mono = new float[FRAMES_PER_BLOCK];
+        float[] resampled = new float[resampler.maxOutput(FRAMES_PER_BLOCK)];
+        byte[] pcm = new byte[resampled.length * 2];
+        long framesLeft = header.frames();
+        long written = 0;
+        while (framesLeft > 0) {
+            int want = (int) Math.min(FRAMES_PER_BLOCK, framesLeft);
+            int read = input.readNBytes(raw, 0, want * frameBytes);
+            if (read < want * frameBytes) {
+                throw new IOException("WAV stream ended " + (framesLeft * frameBytes - read) + " bytes before its declared data size");
+            }
+            downmix(header, raw, want, mono);
+            written += writePcm(resampled, resampler.process(mono, want, resampled), pcm, output, totalSamples - written);
+            framesLeft -= want;
+        }
+        written += writePcm(resampled, resampler.flush(resampled), pcm, output, totalSamples - written);
+        // The resampler may fall a few samples short of the computed length; keep the header truthful
+        for (; written < totalSamples; written++) {
+            output.write(0);
+            output.write(0);
+        }
+        return WAV_HEADER_BYTES + dataBytes;
+    }
+
+    private static void downmix(WavHeader header, byte[] raw, int frames, float[] mono) {
+        int channels = header.channels();
+        int bytesPerSample = header.bitsPerSample() / 8;
+        boolean isFloat = header.formatCode() == WavHeader.FORMAT_IEEE_FLOAT;
+        float scale = 1f / channels;
+        int pos = 0;
+        for (int f = 0; f < frames; f++) {
+            float sum = 0f;
+            for (int c = 0; c < channels; c++) {
+                sum += sample(raw, pos, bytesPerSample, isFloat);
+                pos += bytesPerSample;
+            }
+            mono[f] = sum * scale;
+        }
+    }
+
+    // Little-endian sample at pos, scaled to [-1, 1)
+    private static float sample(byte[] raw, int pos, int bytesPerSample, boolean isFloat) {
+        switch (bytesPerSample) {
+            case 1:
+                return ((raw[pos] & 0xFF) - 128) / 128f;
+            case 2:
+                return (short) ((raw[pos] & 0xFF) | (raw[pos + 1] << 8)) / 32768f;
+            case 3:
+                return ((raw[pos] & 0xFF) | ((raw[pos + 1] & 0xFF) << 8) | (raw[pos + 2] << 16)) / 8388608f;
+            case 4: {
+                int bits = (raw[pos] & 0xFF) | ((raw[pos + 1] & 0xFF) << 8) | ((raw[pos + 2] & 0xFF) << 16) | (raw[pos + 3] << 24);
+                return isFloat ? Float.intBitsToFloat(bits) : bits / 2147483648f;
+            }
+            default: {
+                long bits = 0;
+                for (int i = 7; i >= 0; i--) {
+                    bits = (bits << 8) | (raw[pos + i] & 0xFF);
+                }
+                return (float) Double.longBitsToDouble(bits);
+            }
+        }
+    }
+
+    private static int writePcm(float[] samples, int count, byte[] pcm, OutputStream output, long remaining) throws IOException {
+        int n = (int) Math.min(count, remaining);
+        for (int i = 0; i < n; i++) {
+            int v = Math.round(samples[i] * 32768f);
+            v = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v));
+            pcm[2 * i] = (byte) v;
+            pcm[2 * i + 1] = (byte) (v >> 8);
+        }
+        output.write(pcm, 0, 2 * n);
+        return n;
+    }
+
+    private static byte[] canonicalHeader(long dataBytes) {
+        ByteBuffer bb = ByteBuffer.allocate(WAV_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put(new byte[]{'R', 'I', 'F', 'F'});
+        bb.putInt((int) (36 + dataBytes));
+        bb.put(new byte[]{'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+        bb.putInt(16);
+        bb.putShort((short) WavHeader.FORMAT_PCM);
+        bb.putShort((short) 1);
+        bb.putInt(TARGET_SAMPLE_RATE);
+        bb.putInt(TARGET_SAMPLE_RATE * 2);
+        bb.putShort((short) 2);
+        bb.putShort((short) 16);
+        bb.put(new byte[]{'d', 'a', 't', 'a'});
+        bb.putInt((int) dataBytes);
+        return bb.array();
+    }
+}
@@ -0,0 +1,220 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+/**
+ * Streaming rational sample-rate converter using a polyphase Kaiser-windowed sinc filter.
+ * <p>
+ * The rate ratio is reduced to {@code L/M} (output/input). Output sample {@code n} lies at input time
+ * {@code n·M/L}; its value is the dot product of the {@code K} surrounding input samples with the filter
+ * phase {@code (n·M) mod L}, so each output costs {@code K} multiply-adds regardless of the ratio.
+ * The low-pass cutoff sits just below the lower of the two Nyquist frequencies, with
+ * {@value #ZERO_CROSSINGS} sinc zero crossings per side and a Kaiser window (beta {@value #KAISER_BETA},
+ * roughly 80 dB stopband). Every phase is normalized to unity DC gain.
+ * </p>
+ * After all input has been passed to {@link #process}, {@link #flush} emits the tail so that exactly
+ * {@link #outputLength(long) ceil(inputLength·L/M)} samples are produced in total.
+ * Instances are stateful and not thread-safe.
+ */
+public final class PolyphaseResampler {
+
+    private static final int ZERO_CROSSINGS = 16;
+    private static final double KAISER_BETA = 8.0;
+    private static final double ROLLOFF = 0.94;
+
+    /**
+     * Upper bound on the number of filter phases (reduced output rate); ratios that need more are rejected.
+     */
+    public static final int MAX_PHASES = 4096;
+
+    private final int up;
+    private final int down;
+    private final int taps;
+    private final int halfTaps;
+    private final float[][] phases;
+
+    private float[] history;
+    // Absolute input index of history[0]; negative indices are the implicit zeros before the signal
+    private long historyStart;
+    private int historyLength;
+    private long nextOutput;
+    private long inputLength;
+
+    /**
+     * @param inputRate  input sample rate (Hz)
+     * @param outputRate output sample rate (Hz)
+     * @throws IllegalArgumentException if a rate is not positive or the ratio needs more than {@link #MAX_PHASES} phases
+     */
+    public PolyphaseResampler(int inputRate, int outputRate) {
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("Sample rates must be positive: " + inputRate + " -> " + outputRate);
+        }
+        int gcd = gcd(inputRate, outputRate);
+        this.up = outputRate / gcd;
+        this.down = inputRate / gcd;
+        if (up > MAX_PHASES) {
+            throw new IllegalArgumentException("Unsupported resampling ratio " + inputRate + " -> " + outputRate);
+        }
+        if (up == 1 && down == 1) {
+            taps = 1;
+            halfTaps = 1;
+            phases = new float[][]{{1f}};
+        } else {
+            // Cutoff in cycles per input sample, below the lower Nyquist frequency
+            double cutoff = 0.5 * Math.min(1.0, (double) up / down) * ROLLOFF;
+            double halfWidth = ZERO_CROSSINGS / (2.0 * cutoff);
+            halfTaps = (int) Math.ceil(halfWidth);
+            taps = 2 * halfTaps;
+            phases = design(up, taps, halfTaps, cutoff, halfWidth);
+        }
+        history = new float[Math.max(4096, taps * 2)];
+        // Implicit zeros so that the first outputs see a full filter window
+        historyStart = -(halfTaps - 1);
+        historyLength = halfTaps - 1;
+    }
+
+    /**
+     * @return true if the rates can be converted by this class
+     */
+    public static boolean supports(int inputRate, int outputRate) {
+        return inputRate > 0 && outputRate > 0 && outputRate / gcd(inputRate, outputRate) <= MAX_PHASES;
+    }
+
+    /**
+     * @param inputLength number of input samples
+     * @return number of output samples produced for that input
+     */
+    public long outputLength(long inputLength) {
+        return ceilDiv(inputLength * up, down);
+    }
+
+    /**
+     * @param inputLength number of samples passed to one {@link #process} or {@link #flush} call
+     * @return size of an output buffer that is large enough for that call
+     */
+    public int maxOutput(int inputLength) {
+        return (int) ((long) (inputLength + taps) * up / down) + 2;
+    }
+
+    /**
+     * Consumes input samples and writes every output sample whose filter window is complete.
+     *
+     * @param input  samples
+     * @param length number of samples to read from {@code input}
+     * @param output receives samples; at least {@link #maxOutput(int) maxOutput(length)} long
+     * @return number of samples written
+     */
+    public int process(float[] input, int length, float[] output) {
+        append(input, length);
+        inputLength += length;
+        return produce(output, Long.MAX_VALUE);
+    }
+
+    /**
+     * Writes the remaining output samples once all input has been processed.
+     *
+     * @param output receives samples; at least {@link #maxOutput(int) maxOutput(0)} long
+     * @return number of samples written
+     */
+    public int flush(float[] output) {
+        append(new float[halfTaps + 1], halfTaps + 1);
+        return produce(output, outputLength(inputLength));
+    }
+
+    private int produce(float[] output, long outputLimit) {
+        int written = 0;
+        long historyEnd = historyStart + historyLength;
+        while (nextOutput < outputLimit) {
+            long t = nextOutput * down;
+            long base = Math.floorDiv(t, up);
+            if (base + halfTaps >= historyEnd) {
+                break;
+            }
+            float[] coefficients = phases[(int) (t - base * up)];
+            int offset = (int) (base - halfTaps + 1 - historyStart);
+            float sum = 0f;
+            for (int k = 0; k < taps; k++) {
+                sum += coefficients[k] * history[offset + k];
+            }
+            output[written++] = sum;
+            nextOutput++;
+        }
+        // Drop samples no future output needs
+        long firstNeeded = Math.floorDiv(nextOutput * down, up) - halfTaps + 1;
+        int drop = (int) Math.max(0, Math.min(historyLength, firstNeeded - historyStart));
+        if (drop > 0) {
+            System.arraycopy(history, drop, history, 0, historyLength - drop);
+            historyLength -= drop;
+            historyStart += drop;
+        }
+        return written;
+    }
+
+    private void append(float[] input, int length) {
+        if (historyLength + length > history.length) {
+            float[] grown = new float[Math.max(history.length * 2, historyLength + length)];
+            System.arraycopy(history, 0, grown, 0, historyLength);
+            history = grown;
+        }
+        System.arraycopy(input, 0, history, historyLength, length);
+        historyLength += length;
+    }
+
+    /**
+     * Coefficient {@code k} of phase {@code p} weighs input sample {@code base - halfTaps + 1 + k} for an output at
+     * input time {@code base + p/up}, i.e. it is the prototype filter evaluated at {@code p/up + halfTaps - 1 - k}.
+     */
+    private static float[][] design(int up, int taps, int halfTaps, double cutoff, double halfWidth) {
+        double i0Beta = besselI0(KAISER_BETA);
+        float[][] phases = new float[up][taps];
+        for (int p = 0; p < up; p++) {
+            double[] h = new double[taps];
+            double sum = 0;
+            for (int k = 0; k < taps; k++) {
+                double t = (double) p / up + halfTaps - 1 - k;
+                double x = t / halfWidth;
+                double window = Math.abs(x) >= 1 ? 0 : besselI0(KAISER_BETA * Math.sqrt(1 - x * x)) / i0Beta;
+                h[k] = 2 * cutoff * sinc(2 * cutoff * t) * window;
+                sum += h[k];
+            }
+            for (int k = 0; k < taps; k++) {
+                phases[p][k] = (float) (h[k] / sum);
+            }
+        }
+        return phases;
+    }
+
+    private static double sinc(double x) {
+        if (x == 0) {
+            return 1;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    // Zeroth-order modified Bessel function of the first kind (power series)
+    private static double besselI0(double x) {
+        double sum = 1;
+        double term = 1;
+        double q = x * x / 4;
+        for (int k = 1; k < 64; k++) {
+            term *= q / ((double) k * k);
+            sum += term;
+            if (term < sum * 1e-16) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
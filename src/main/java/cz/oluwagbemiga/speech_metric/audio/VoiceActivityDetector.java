@@ -0,0 +1,324 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Energy and zero-crossing voice activity detector for PCM s16le mono 16 kHz audio.
+ * <p>
+ * The signal is cut into {@value #FRAME_MS} ms frames. A frame is speech when its RMS level exceeds a threshold
+ * derived from the clip's own noise floor (the {@value #NOISE_FLOOR_PERCENTILE}th percentile of frame levels plus
+ * {@code marginDb}, kept within {@code [minThresholdDb, maxThresholdDb]}), or when it is at most 6 dB quieter but
+ * crosses zero often enough to be an unvoiced consonant. Speech runs are widened by {@code paddingMs} on both
+ * sides, and silences of at most {@code minSilenceMs} are kept, so only long pauses and leading/trailing silence
+ * are removed. The kept regions are concatenated in order.
+ * </p>
+ * Instances are immutable and thread-safe.
+ */
+public final class VoiceActivityDetector {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_MS = 30;
+    private static final int FRAME_SAMPLES = SAMPLE_RATE * FRAME_MS / 1000;
+    private static final int NOISE_FLOOR_PERCENTILE = 10;
+    private static final double UNVOICED_MIN_ZCR = 0.25;
+    private static final double UNVOICED_ALLOWANCE_DB = 6.0;
+    private static final double SILENCE_DB = -120.0;
+
+    private final double marginDb;
+    private final double minThresholdDb;
+    private final double maxThresholdDb;
+    private final int paddingMs;
+    private final int minSilenceMs;
+
+    /**
+     * Speech regions of a clip.
+     *
+     * @param pcm       kept PCM bytes (the input array itself when nothing was removed)
+     * @param inputMs   duration of the input
+     * @param skippedMs duration removed as silence
+     * @param regions   kept sample ranges of the input, in order; {@code pcm} is their concatenation
+     */
+    public record Speech(byte[] pcm, long inputMs, long skippedMs, List<Window> regions) {
+
+        /**
+         * @param pcm PCM s16le mono 16 kHz bytes
+         * @return the whole input, unfiltered
+         */
+        public static Speech unfiltered(byte[] pcm) {
+            return new Speech(pcm, durationMs(pcm.length), 0L, List.of(new Window(0, pcm.length / 2, false)));
+        }
+
+        /**
+         * @return true if no speech was found
+         */
+        public boolean silent() {
+            return pcm.length == 0;
+        }
+
+        /**
+         * Maps a time in the kept audio back to the input, e.g. for timestamps of segments decoded from {@link #pcm()}.
+         *
+         * @param speechMs offset within the kept audio
+         * @return offset within the input
+         */
+        public long sourceMs(long speechMs) {
+            long sample = speechMs * SAMPLE_RATE / 1000;
+            long consumed = 0;
+            for (Window region : regions) {
+                int length = region.toSample() - region.fromSample();
+                if (sample < consumed + length) {
+                    return (region.fromSample() + sample - consumed) * 1000L / SAMPLE_RATE;
+                }
+                consumed += length;
+            }
+            return regions.isEmpty() ? speechMs : regions.get(regions.size() - 1).toSample() * 1000L / SAMPLE_RATE;
+        }
+    }
+
+    /**
+     * Range of samples: a window transcribed on its own, or a kept region of a trimmed clip.
+     *
+     * @param fromSample        first sample, inclusive
+     * @param toSample          end sample, exclusive
+     * @param overlapsPrevious  true if the window starts before the end of the previous one
+     */
+    public record Window(int fromSample, int toSample, boolean overlapsPrevious) {
+
+        /**
+         * @return start offset in milliseconds
+         */
+        public long startMs() {
+            return fromSample * 1000L / SAMPLE_RATE;
+        }
+    }
+
+    /**
+     * @param marginDb       level above the noise floor at which a frame counts as speech
+     * @param minThresholdDb lowest speech threshold in dBFS, so near-digital silence never counts as speech
+     * @param maxThresholdDb highest speech threshold in dBFS, so clips without pauses keep their quieter speech
+     * @param paddingMs      audio kept before and after every speech run
+     * @param minSilenceMs   shortest pause that is removed
+     */
+    public VoiceActivityDetector(double marginDb, double minThresholdDb, double maxThresholdDb, int paddingMs, int minSilenceMs) {
+        if (minThresholdDb > maxThresholdDb) {
+            throw new IllegalArgumentException("minThresholdDb must not exceed maxThresholdDb");
+        }
+        this.marginDb = marginDb;
+        this.minThresholdDb = minThresholdDb;
+        this.maxThresholdDb = maxThresholdDb;
+        this.paddingMs = Math.max(0, paddingMs);
+        this.minSilenceMs = Math.max(0, minSilenceMs);
+    }
+
+    /**
+     * Removes silent regions.
+     *
+     * @param pcm PCM s16le mono 16 kHz bytes
+     * @return kept audio and the amount skipped; empty PCM if the clip holds no speech
+     */
+    public Speech trim(byte[] pcm) {
+        int samples = pcm.length / 2;
+        int frames = frameCount(samples);
+        if (frames == 0) {
+            return new Speech(new byte[0], 0L, 0L, List.of());
+        }
+        double[] levels = new double[frames];
+        double[] zcr = new double[frames];
+        analyze(pcm, levels, zcr);
+        double threshold = threshold(levels);
+
+        boolean[] keep = new boolean[frames];
+        boolean any = false;
+        for (int f = 0; f < frames; f++) {
+            keep[f] = levels[f] >= threshold
+                    || (levels[f] >= threshold - UNVOICED_ALLOWANCE_DB && levels[f] >= minThresholdDb && zcr[f] >= UNVOICED_MIN_ZCR);
+            any |= keep[f];
+        }
+        if (!any) {
+            return new Speech(new byte[0], durationMs(pcm.length), durationMs(pcm.length), List.of());
+        }
+        pad(keep, (paddingMs + FRAME_MS - 1) / FRAME_MS);
+        bridge(keep, minSilenceMs / FRAME_MS);
+
+        int keptFrames = 0;
+        for (boolean k : keep) if (k) keptFrames++;
+        if (keptFrames == frames) {
+            return Speech.unfiltered(pcm);
+        }
+        byte[] out = new byte[pcm.length];
+        List<Window> regions = new ArrayList<>();
+        int length = 0;
+        int f = 0;
+        while (f < frames) {
+            if (!keep[f]) {
+                f++;
+                continue;
+            }
+            int start = f;
+            while (f < frames && keep[f]) f++;
+            int fromByte = start * FRAME_SAMPLES * 2;
+            int toByte = Math.min(samples, f * FRAME_SAMPLES) * 2;
+            System.arraycopy(pcm, fromByte, out, length, toByte - fromByte);
+            regions.add(new Window(fromByte / 2, toByte / 2, false));
+            length += toByte - fromByte;
+        }
+        return new Speech(Arrays.copyOf(out, length), durationMs(pcm.length), durationMs(pcm.length) - durationMs(length), List.copyOf(regions));
+    }
+
+    /**
+     * Cuts audio into windows of at most {@code windowMs} for separate transcription. Each cut is placed at the
+     * quietest frame of the second half of the window; when that frame is a pause the windows meet there, otherwise
+     * (continuous speech) the next window starts {@code overlapMs} before the end of the previous one so that the
+     * word cut at the boundary is complete in one of them.
+     *
+     * @param pcm       PCM s16le mono 16 kHz bytes
+     * @param windowMs  maximum window length
+     * @param overlapMs overlap of windows cut inside speech, less than half of {@code windowMs}
+     * @return windows in order, covering the whole input; a single window if the input fits
+     */
+    public List<Window> split(byte[] pcm, int windowMs, int overlapMs) {
+        int samples = pcm.length / 2;
+        int frames = frameCount(samples);
+        double[] levels = new double[frames];
+        analyze(pcm, levels, new double[frames]);
+        return split(samples, windowMs, overlapMs, levels, threshold(levels));
+    }
+
+    /**
+     * Cuts audio into windows of at most {@code windowMs} at fixed positions, each overlapping the previous one
+     * by {@code overlapMs}; used when no detector is configured.
+     *
+     * @param samples   number of 16 kHz samples
+     * @param windowMs  maximum window length
+     * @param overlapMs overlap between consecutive windows, less than half of {@code windowMs}
+     * @return windows in order, covering the whole input
+     */
+    public static List<Window> splitEvenly(int samples, int windowMs, int overlapMs) {
+        return split(samples, windowMs, overlapMs, null, 0);
+    }
+
+    private static List<Window> split(int samples, int windowMs, int overlapMs, double[] levels, double threshold) {
+        int windowFrames = Math.max(2, windowMs / FRAME_MS);
+        int overlapFrames = Math.max(0, Math.min(windowFrames / 2 - 1, overlapMs / FRAME_MS));
+        List<Window> windows = new ArrayList<>();
+        int start = 0;
+        boolean overlapping = false;
+        while (samples - start > windowFrames * FRAME_SAMPLES) {
+            int startFrame = start / FRAME_SAMPLES;
+            int cut = startFrame + windowFrames - overlapFrames;
+            if (levels != null) {
+                // Latest quietest frame, so windows stay long
+                int quietest = startFrame + windowFrames / 2;
+                for (int f = quietest + 1; f < cut; f++) {
+                    if (levels[f] <= levels[quietest]) {
+                        quietest = f;
+                    }
+                }
+                if (levels[quietest] < threshold) {
+                    int end = quietest * FRAME_SAMPLES + FRAME_SAMPLES / 2;
+                    windows.add(new Window(start, end, overlapping));
+                    start = end;
+                    overlapping = false;
+                    continue;
+                }
+            }
+            windows.add(new Window(start, (cut + overlapFrames) * FRAME_SAMPLES, overlapping));
+            start = cut * FRAME_SAMPLES;
+            overlapping = overlapFrames > 0;
+        }
+        windows.add(new Window(start, samples, overlapping));
+        return windows;
+    }
+
+    /**
+     * Description of the settings, part of the recognition cache key since trimming changes what engines hear.
+     *
+     * @return settings signature
+     */
+    public String signature() {
+        return "energy_zcr;margin_db=" + marginDb + ";min_db=" + minThresholdDb + ";max_db=" + maxThresholdDb
+                + ";padding_ms=" + paddingMs + ";min_silence_ms=" + minSilenceMs;
+    }
+
+    private static int frameCount(int samples) {
+        return (samples + FRAME_SAMPLES - 1) / FRAME_SAMPLES;
+    }
+
+    /**
+     * Fills per-frame RMS level in dBFS and zero-crossing rate.
+     */
+    private static void analyze(byte[] pcm, double[] levels, double[] zcr) {
+        int samples = pcm.length / 2;
+        for (int f = 0; f < levels.length; f++) {
+            int from = f * FRAME_SAMPLES;
+            int to = Math.min(samples, from + FRAME_SAMPLES);
+            double energy = 0;
+            int crossings = 0;
+            int previous = sample(pcm, from);
+            for (int i = from; i < to; i++) {
+                int value = sample(pcm, i);
+                energy += (double) value * value;
+                if ((value >= 0) != (previous >= 0)) {
+                    crossings++;
+                }
+                previous = value;
+            }
+            double rms = Math.sqrt(energy / (to - from)) / 32768.0;
+            levels[f] = rms > 0 ? 20 * Math.log10(rms) : SILENCE_DB;
+            zcr[f] = (double) crossings / (to - from);
+        }
+    }
+
+    private double threshold(double[] levels) {
+        if (levels.length == 0) {
+            return maxThresholdDb;
+        }
+        return Math.max(minThresholdDb, Math.min(maxThresholdDb, percentile(levels, NOISE_FLOOR_PERCENTILE) + marginDb));
+    }
+
+    private static void pad(boolean[] keep, int frames) {
+        if (frames == 0) {
+            return;
+        }
+        boolean[] speech = keep.clone();
+        for (int f = 0; f < speech.length; f++) {
+            if (speech[f]) {
+                for (int i = Math.max(0, f - frames); i <= Math.min(speech.length - 1, f + frames); i++) {
+                    keep[i] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps interior gaps of at most {@code frames} frames; leading and trailing silence is always removed.
+     */
+    private static void bridge(boolean[] keep, int frames) {
+        int lastKept = -1;
+        for (int f = 0; f < keep.length; f++) {
+            if (!keep[f]) {
+                continue;
+            }
+            if (lastKept >= 0 && f - lastKept - 1 <= frames) {
+                Arrays.fill(keep, lastKept + 1, f, true);
+            }
+            lastKept = f;
+        }
+    }
+
+    private static double percentile(double[] values, int percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static int sample(byte[] pcm, int index) {
+        return (short) ((pcm[2 * index] & 0xFF) | (pcm[2 * index + 1] << 8));
+    }
+
+    private static long durationMs(int pcmBytes) {
+        return pcmBytes / 2 * 1000L / SAMPLE_RATE;
+    }
+}
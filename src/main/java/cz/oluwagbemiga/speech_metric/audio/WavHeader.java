@@ -0,0 +1,134 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Format of a RIFF/WAVE stream as declared by its {@code fmt } chunk, plus the location of the
+ * {@code data} chunk.
+ * <p>
+ * {@code WAVE_FORMAT_EXTENSIBLE} headers are resolved to the format code of their sub-format GUID, so
+ * {@link #formatCode()} is {@link #FORMAT_PCM} or {@link #FORMAT_IEEE_FLOAT} for the common cases.
+ * {@link #declaredFormatTag()} keeps the raw tag.
+ * </p>
+ *
+ * @param declaredFormatTag format tag as written in the header
+ * @param formatCode        effective format (sub-format for extensible headers)
+ * @param channels          interleaved channels
+ * @param sampleRate        frames per second
+ * @param bitsPerSample     container bits per sample
+ * @param blockAlign        bytes per frame
+ * @param dataOffset        offset of the first sample byte from the start of the stream
+ * @param dataSize          size of the data chunk in bytes, or -1 if the writer did not know it
+ * @param riffSize          size declared by the RIFF header (stream length minus 8), or -1 if the writer did not know it
+ */
+public record WavHeader(int declaredFormatTag, int formatCode, int channels, int sampleRate, int bitsPerSample,
+                        int blockAlign, int dataOffset, long dataSize, long riffSize) {
+
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IEEE_FLOAT = 3;
+    public static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    /**
+     * Parses a WAV header from the beginning of a stream.
+     *
+     * @param head first bytes of the stream; the data chunk header must lie within them
+     * @return header, or empty if the bytes are not a well-formed RIFF/WAVE prefix
+     */
+    public static Optional<WavHeader> parse(byte[] head) {
+        if (head.length < 12 || !equalsAscii(head, 0, "RIFF") || !equalsAscii(head, 8, "WAVE")) {
+            return Optional.empty();
+        }
+        ByteBuffer bb = ByteBuffer.wrap(head).order(ByteOrder.LITTLE_ENDIAN);
+        int formatTag = -1, formatCode = -1, channels = 0, sampleRate = 0, bitsPerSample = 0, blockAlign = 0;
+        int i = 12;
+        while (i + 8 <= head.length) {
+            long size = bb.getInt(i + 4) & 0xFFFFFFFFL;
+            if (equalsAscii(head, i, "fmt ")) {
+                if (size < 16 || i + 8 + 16 > head.length) {
+                    return Optional.empty();
+                }
+                int body = i + 8;
+                formatTag = bb.getShort(body) & 0xFFFF;
+                channels = bb.getShort(body + 2) & 0xFFFF;
+                sampleRate = bb.getInt(body + 4);
+                blockAlign = bb.getShort(body + 12) & 0xFFFF;
+                bitsPerSample = bb.getShort(body + 14) & 0xFFFF;
+                formatCode = formatTag;
+                if (formatTag == FORMAT_EXTENSIBLE) {
+                    // cbSize(2) validBits(2) channelMask(4), then the sub-format GUID whose first two bytes are the format code
+                    if (size < 40 || body + 26 > head.length) {
+                        return Optional.empty();
+                    }
+                    formatCode = bb.getShort(body + 24) & 0xFFFF;
+                }
+            } else if (equalsAscii(head, i, "data")) {
+                if (formatTag < 0) {
+                    return Optional.empty();
+                }
+                // Streaming writers leave the size as 0 or 0xFFFFFFFF
+                long dataSize = size == 0 || size == 0xFFFFFFFFL ? -1 : size;
+                long riffSize = bb.getInt(4) & 0xFFFFFFFFL;
+                return Optional.of(new WavHeader(formatTag, formatCode, channels, sampleRate, bitsPerSample, blockAlign, i + 8, dataSize,
+                        riffSize == 0 || riffSize == 0xFFFFFFFFL ? -1 : riffSize));
+            }
+            // Chunks are word aligned
+            i += 8 + (int) Math.min(size + (size & 1), Integer.MAX_VALUE - i - 8);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Builds the canonical 44-byte header of a PCM s16le mono 16 kHz stream.
+     *
+     * @param dataSize size of the sample data that follows the header, in bytes
+     * @return header bytes
+     */
+    public static byte[] pcmMono16k(int dataSize) {
+        ByteBuffer bb = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataSize).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        bb.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) FORMAT_PCM).putShort((short) 1).putInt(16000).putInt(16000 * 2)
+                .putShort((short) 2).putShort((short) 16);
+        bb.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+        return bb.array();
+    }
+
+    /**
+     * @return true if the stream already is the canonical recognition format (PCM s16le mono 16 kHz)
+     */
+    public boolean isPcmMono16k() {
+        return declaredFormatTag == FORMAT_PCM && channels == 1 && sampleRate == 16000 && bitsPerSample == 16;
+    }
+
+    /**
+     * @return number of complete frames in the data chunk, or -1 if unknown
+     */
+    public long frames() {
+        return dataSize < 0 || blockAlign == 0 ? -1 : dataSize / blockAlign;
+    }
+
+    /**
+     * Playback length of the stream. When the data size is unknown, everything after the data
+     * chunk header is assumed to be samples.
+     *
+     * @param streamSize total size of the stream in bytes
+     * @return length in milliseconds, or null if the header does not allow computing it
+     */
+    public Long durationMs(long streamSize) {
+        if (blockAlign == 0 || sampleRate <= 0) {
+            return null;
+        }
+        long frames = dataSize >= 0 ? frames() : Math.max(0, streamSize - dataOffset) / blockAlign;
+        return frames * 1000 / sampleRate;
+    }
+
+    private static boolean equalsAscii(byte[] data, int offset, String ascii) {
+        byte[] ref = ascii.getBytes(StandardCharsets.US_ASCII);
+        if (offset + ref.length > data.length) return false;
+        for (int i = 0; i < ref.length; i++) if (data[offset + i] != ref[i]) return false;
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+package cz.oluwagbemiga.speech_metric.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Thread pools used to run speech engines, long-recording windows, suite jobs, model warm-up and storage maintenance off the request thread,
+ * plus the schedulers guarding ffmpeg run time and resuming abandoned suite jobs.
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    // Concurrent engine invocations across all requests; 0 = number of available processors
+    @Value("${speech.recognition.parallelism:0}")
+    private int recognitionParallelism;
+
+    @Value("${speech.recognition.queue-capacity:64}")
+    private int recognitionQueueCapacity;
+
+    // Suite jobs processed at the same time; each job fans out on the recognition executor
+    @Value("${speech.suite.workers:1}")
+    private int suiteWorkers;
+
+    // Models loaded and warmed up at the same time during startup; 0 = number of available processors
+    @Value("${speech.models.warmup.parallelism:0}")
+    private int warmupParallelism;
+
+    /**
+     * Bounded pool executing individual engine runs during multi-engine fan-out.
+     * When both the pool and its queue are full the submitting thread runs the task itself,
+     * which degrades to sequential execution instead of rejecting work.
+     *
+     * @return recognition executor
+     */
+    @Bean(name = "recognitionExecutor")
+    public ThreadPoolTaskExecutor recognitionExecutor() {
+        int threads = recognitionParallelism > 0 ? recognitionParallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(recognitionQueueCapacity);
+        executor.setThreadNamePrefix("recognition-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        log.info("Recognition executor initialized threads={} queueCapacity={}", threads, recognitionQueueCapacity);
+        return executor;
+    }
+
+    /**
+     * Helper threads transcribing windows of long recordings beside the thread running the engine.
+     * It has no queue: when every thread is busy the helper is rejected and the engine thread covers its windows.
+     * Idle threads time out.
+     *
+     * @return window transcription executor
+     */
+    @Bean(name = "transcriptionWindowExecutor")
+    public ThreadPoolTaskExecutor transcriptionWindowExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(30);
+        executor.setThreadNamePrefix("transcription-window-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor running asynchronous suite jobs. Jobs are durable, so the queue is unbounded and
+     * running jobs are not awaited on shutdown; interrupted jobs are resumed on the next start.
+     *
+     * @return suite job executor
+     */
+    @Bean(name = "suiteJobExecutor")
+    public ThreadPoolTaskExecutor suiteJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, suiteWorkers));
+        executor.setMaxPoolSize(Math.max(1, suiteWorkers));
+        executor.setThreadNamePrefix("suite-job-");
+        executor.initialize();
+        log.info("Suite job executor initialized workers={}", Math.max(1, suiteWorkers));
+        return executor;
+    }
+
+    /**
+     * Single background thread for one-off storage maintenance such as data migrations.
+     *
+     * @return maintenance executor
+     */
+    @Bean(name = "maintenanceExecutor")
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool loading and warming up models in parallel after startup. Its threads time out once
+     * warm-up is done, so it holds no threads afterwards.
+     *
+     * @return model warm-up executor
+     */
+    @Bean(name = "modelWarmupExecutor")
+    public ThreadPoolTaskExecutor modelWarmupExecutor() {
+        int threads = warmupParallelism > 0 ? warmupParallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(10);
+        executor.setThreadNamePrefix("model-warmup-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Scheduler killing ffmpeg processes that exceed their wall-clock limit.
+     *
+     * @return ffmpeg watchdog scheduler
+     */
+    @Bean(name = "ffmpegWatchdog")
+    public ThreadPoolTaskScheduler ffmpegWatchdog() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ffmpeg-watchdog-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Scheduler periodically resuming suite jobs whose run was abandoned.
+     *
+     * @return suite job scheduler
+     */
+    @Bean(name = "suiteJobScheduler")
+    public ThreadPoolTaskScheduler suiteJobScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("suite-resume-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -3,6 +3,7 @@ package cz.oluwagbemiga.speech_metric.config;
 
 import cz.oluwagbemiga.speech_metric.security.JwtAuthenticationFilter;
 import cz.oluwagbemiga.speech_metric.security.JwtUtil;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -51,6 +52,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Completion of streamed responses; the originating request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         // Explicitly allow access to these endpoints
@@ -58,6 +61,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/users").permitAll()
                         .requestMatchers("/swagger-ui.html").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // Liveness/readiness probes; details stay hidden from anonymous callers
+                        .requestMatchers("/actuator/health/**").permitAll()
                         .requestMatchers("/auth/password/**").permitAll()
                         .requestMatchers("/api/gifts/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
@@ -1,13 +1,20 @@
 package cz.oluwagbemiga.speech_metric.config;
 
+import cz.oluwagbemiga.speech_metric.audio.VoiceActivityDetector;
+import cz.oluwagbemiga.speech_metric.engine.ModelManager;
 import cz.oluwagbemiga.speech_metric.engine.VoskEngine;
 import cz.oluwagbemiga.speech_metric.engine.WhisperEngine;
+import cz.oluwagbemiga.speech_metric.engine.WindowedTranscription;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 
 @Configuration
 public class SpeechConfig {
@@ -18,13 +25,14 @@ public class SpeechConfig {
     @Value("${speech.vosk.small-model-path:/app/models/vosk-model-small-en-us-0.15}")
     private String smallModelPathCfg;
 
+    // Idle Vosk recognizers retained per model for reuse between requests
+    @Value("${speech.vosk.pool.max-idle:4}")
+    private int voskMaxIdleRecognizers;
+
     // Whisper base model path (default container path, fallback to source tree)
     @Value("${speech.whisper.base-model-path:/app/models/ggml-base.en.bin}")
     private String whisperBaseModelPathCfg;
 
-    @Value("${speech.whisper.large-v3-turbo-q5-model-path:/app/models/ggml-large-v3-turbo-q5_0.bin}")
-    private String whisperLargeV3TurboQ5ModelPathCfg;
-
     @Value("${speech.whisper.medium-en-q5-model-path:/app/models/ggml-medium.en-q5_0.bin}")
     private String whisperMediumEnQ5ModelPathCfg;
 
@@ -34,6 +42,65 @@ public class SpeechConfig {
     @Value("${speech.whisper.small-en-q8_0-model-path:/app/models/ggml-small.en-q8_0.bin}")
     private String whisperSmallQ8ModelPathCfg;
 
+    // Whisper context pools: contexts per model (= max concurrent transcriptions) and borrow timeout
+    @Value("${speech.whisper.pool.max-wait:30s}")
+    private Duration whisperPoolMaxWait;
+
+    @Value("${speech.whisper.base-pool-size:${speech.whisper.pool.size:1}}")
+    private int whisperBasePoolSize;
+
+    @Value("${speech.whisper.medium-en-q5-pool-size:${speech.whisper.pool.size:1}}")
+    private int whisperMediumEnQ5PoolSize;
+
+    @Value("${speech.whisper.small-en-q5_1-pool-size:${speech.whisper.pool.size:1}}")
+    private int whisperSmallQ51PoolSize;
+
+    @Value("${speech.whisper.small-en-q8_0-pool-size:${speech.whisper.pool.size:1}}")
+    private int whisperSmallQ8PoolSize;
+
+    // Long recordings are split into windows of at most this length, transcribed in parallel; 0 disables splitting
+    @Value("${speech.whisper.windows.length:30s}")
+    private Duration whisperWindowLength;
+
+    @Value("${speech.whisper.windows.overlap:1s}")
+    private Duration whisperWindowOverlap;
+
+    // Windows transcribed at once per model (bounded by the pool size); 0 = pool size
+    @Value("${speech.whisper.base-parallelism:${speech.whisper.windows.parallelism:0}}")
+    private int whisperBaseParallelism;
+
+    @Value("${speech.whisper.medium-en-q5-parallelism:${speech.whisper.windows.parallelism:0}}")
+    private int whisperMediumEnQ5Parallelism;
+
+    @Value("${speech.whisper.small-en-q5_1-parallelism:${speech.whisper.windows.parallelism:0}}")
+    private int whisperSmallQ51Parallelism;
+
+    @Value("${speech.whisper.small-en-q8_0-parallelism:${speech.whisper.windows.parallelism:0}}")
+    private int whisperSmallQ8Parallelism;
+
+    // Estimated native memory that loaded models may hold before idle ones are evicted; 0 = unlimited
+    @Value("${speech.models.memory-budget:2GB}")
+    private DataSize modelMemoryBudget;
+
+    // Silence trimming before inference, see VoiceActivityDetector
+    @Value("${speech.vad.enabled:true}")
+    private boolean vadEnabled;
+
+    @Value("${speech.vad.margin-db:10}")
+    private double vadMarginDb;
+
+    @Value("${speech.vad.min-db:-55}")
+    private double vadMinDb;
+
+    @Value("${speech.vad.max-db:-35}")
+    private double vadMaxDb;
+
+    @Value("${speech.vad.padding:200ms}")
+    private Duration vadPadding;
+
+    @Value("${speech.vad.min-silence:500ms}")
+    private Duration vadMinSilence;
+
     private String resolvePath(String configured, String fallbackRelative) {
         Path cfg = Path.of(configured);
         if (Files.isDirectory(cfg)) {
@@ -62,47 +129,78 @@ public class SpeechConfig {
         return configured;
     }
 
+    /**
+     * Shared manager loading engine models on first use and evicting idle ones beyond the memory budget.
+     * Closing it on shutdown frees the models that are still resident.
+     *
+     * @param meterRegistry registry receiving model load and eviction metrics
+     * @return model manager
+     */
+    @Bean(destroyMethod = "close")
+    public ModelManager modelManager(MeterRegistry meterRegistry) {
+        return new ModelManager(modelMemoryBudget.toBytes(), meterRegistry);
+    }
+
+    /**
+     * Voice activity detector shared by all engines; engines skip it when {@code speech.vad.enabled} is false.
+     *
+     * @return detector configured from {@code speech.vad.*}
+     */
+    @Bean
+    public VoiceActivityDetector voiceActivityDetector() {
+        return new VoiceActivityDetector(vadMarginDb, vadMinDb, vadMaxDb, (int) vadPadding.toMillis(), (int) vadMinSilence.toMillis());
+    }
+
+    private VoiceActivityDetector vadIfEnabled(VoiceActivityDetector voiceActivityDetector) {
+        return vadEnabled ? voiceActivityDetector : null;
+    }
+
+    private WindowedTranscription windowing(int parallelism, Executor transcriptionWindowExecutor) {
+        return new WindowedTranscription(whisperWindowLength, whisperWindowOverlap, parallelism, transcriptionWindowExecutor);
+    }
 
     @Bean(name = "voskLargeEngine")
-    public VoskEngine voskLargeEngine() {
+    public VoskEngine voskLargeEngine(VoiceActivityDetector voiceActivityDetector, ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolvePath(largeModelPathCfg, "src/main/resources/model/vosk-model-en-us-0.22-lgraph");
-        return new VoskEngine(resolved);
+        return new VoskEngine(resolved, voskMaxIdleRecognizers, vadIfEnabled(voiceActivityDetector), modelManager, meterRegistry);
     }
 
     @Bean(name = "voskSmallEngine")
-    public VoskEngine voskSmallEngine() {
+    public VoskEngine voskSmallEngine(VoiceActivityDetector voiceActivityDetector, ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolvePath(smallModelPathCfg, "src/main/resources/model/vosk-model-small-en-us-0.15");
-        return new VoskEngine(resolved);
+        return new VoskEngine(resolved, voskMaxIdleRecognizers, vadIfEnabled(voiceActivityDetector), modelManager, meterRegistry);
     }
 
     @Bean(name = "whisperBaseEngine")
-    public WhisperEngine whisperBaseEngine() {
+    public WhisperEngine whisperBaseEngine(VoiceActivityDetector voiceActivityDetector, Executor transcriptionWindowExecutor,
+                                           ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolveFile(whisperBaseModelPathCfg, "src/main/resources/model/ggml-base.en.bin");
-        return new WhisperEngine(resolved);
-    }
-
-    @Bean(name = "whisperLargeV3TurboQ5Engine")
-    public WhisperEngine whisperLargeV3TurboQ5Engine() {
-        String resolved = resolveFile(whisperLargeV3TurboQ5ModelPathCfg, "src/main/resources/model/ggml-large-v3-turbo-q5_0.bin");
-        return new WhisperEngine(resolved);
+        return new WhisperEngine(resolved, whisperBasePoolSize, whisperPoolMaxWait, vadIfEnabled(voiceActivityDetector),
+                windowing(whisperBaseParallelism, transcriptionWindowExecutor), modelManager, meterRegistry);
     }
 
     @Bean(name = "whisperMediumEnQ5Engine")
-    public WhisperEngine whisperMediumEnQ5Engine() {
+    public WhisperEngine whisperMediumEnQ5Engine(VoiceActivityDetector voiceActivityDetector, Executor transcriptionWindowExecutor,
+                                                 ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolveFile(whisperMediumEnQ5ModelPathCfg, "src/main/resources/model/ggml-medium.en-q5_0.bin");
-        return new WhisperEngine(resolved);
+        return new WhisperEngine(resolved, whisperMediumEnQ5PoolSize, whisperPoolMaxWait, vadIfEnabled(voiceActivityDetector),
+                windowing(whisperMediumEnQ5Parallelism, transcriptionWindowExecutor), modelManager, meterRegistry);
     }
 
     @Bean(name = "whisperSmallQ51Engine")
-    public WhisperEngine whisperSmallQ51Engine() {
+    public WhisperEngine whisperSmallQ51Engine(VoiceActivityDetector voiceActivityDetector, Executor transcriptionWindowExecutor,
+                                               ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolveFile(whisperSmallQ51ModelPathCfg, "src/main/resources/model/ggml-small.en-q5_1.bin");
-        return new WhisperEngine(resolved);
+        return new WhisperEngine(resolved, whisperSmallQ51PoolSize, whisperPoolMaxWait, vadIfEnabled(voiceActivityDetector),
+                windowing(whisperSmallQ51Parallelism, transcriptionWindowExecutor), modelManager, meterRegistry);
     }
 
     @Bean(name = "whisperSmallQ8Engine")
-    public WhisperEngine whisperSmallQ8Engine() {
+    public WhisperEngine whisperSmallQ8Engine(VoiceActivityDetector voiceActivityDetector, Executor transcriptionWindowExecutor,
+                                              ModelManager modelManager, MeterRegistry meterRegistry) {
         String resolved = resolveFile(whisperSmallQ8ModelPathCfg, "src/main/resources/model/ggml-small.en-q8_0.bin");
-        return new WhisperEngine(resolved);
+        return new WhisperEngine(resolved, whisperSmallQ8PoolSize, whisperPoolMaxWait, vadIfEnabled(voiceActivityDetector),
+                windowing(whisperSmallQ8Parallelism, transcriptionWindowExecutor), modelManager, meterRegistry);
     }
 
 }
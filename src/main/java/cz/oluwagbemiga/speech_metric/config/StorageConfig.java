@@ -0,0 +1,87 @@
+package cz.oluwagbemiga.speech_metric.config;
+
+import cz.oluwagbemiga.speech_metric.storage.AudioBlobStore;
+import cz.oluwagbemiga.speech_metric.storage.FileSystemAudioBlobStore;
+import cz.oluwagbemiga.speech_metric.storage.S3AudioBlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Selects the {@link AudioBlobStore} holding normalized audio bytes ({@code speech.storage.type}).
+ */
+@Slf4j
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Content-addressed files under {@code speech.storage.filesystem.root} (default store).
+     *
+     * @param root storage root directory
+     * @return filesystem store
+     */
+    @Bean
+    @ConditionalOnProperty(name = "speech.storage.type", havingValue = FileSystemAudioBlobStore.TYPE, matchIfMissing = true)
+    public AudioBlobStore fileSystemAudioBlobStore(@Value("${speech.storage.filesystem.root:./data/audio}") String root) {
+        return new FileSystemAudioBlobStore(Path.of(root));
+    }
+
+    /**
+     * S3 client for the configured region; an endpoint override and path-style access allow
+     * S3-compatible services such as MinIO. Without explicit keys the default AWS credential chain is used.
+     *
+     * @return S3 client
+     */
+    @Bean
+    @ConditionalOnProperty(name = "speech.storage.type", havingValue = S3AudioBlobStore.TYPE)
+    public S3Client audioS3Client(@Value("${speech.storage.s3.region:us-east-1}") String region,
+                                  @Value("${speech.storage.s3.endpoint:}") String endpoint,
+                                  @Value("${speech.storage.s3.path-style-access:false}") boolean pathStyleAccess,
+                                  @Value("${speech.storage.s3.access-key:}") String accessKey,
+                                  @Value("${speech.storage.s3.secret-key:}") String secretKey) {
+        AwsCredentialsProvider credentials = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .forcePathStyle(pathStyleAccess);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        log.info("S3 audio client initialized region={} endpoint={} pathStyle={}", region, endpoint.isBlank() ? "default" : endpoint, pathStyleAccess);
+        return builder.build();
+    }
+
+    /**
+     * Objects in {@code speech.storage.s3.bucket}, keyed by {@code prefix + contentHash}.
+     *
+     * @param audioS3Client client from {@link #audioS3Client}
+     * @return S3 store
+     */
+    @Bean
+    @ConditionalOnProperty(name = "speech.storage.type", havingValue = S3AudioBlobStore.TYPE)
+    public AudioBlobStore s3AudioBlobStore(S3Client audioS3Client,
+                                           @Value("${speech.storage.s3.bucket}") String bucket,
+                                           @Value("${speech.storage.s3.prefix:audio/}") String prefix,
+                                           @Value("${speech.storage.s3.create-bucket:false}") boolean createBucket) {
+        S3AudioBlobStore store = new S3AudioBlobStore(audioS3Client, bucket, prefix);
+        if (createBucket) {
+            store.createBucketIfMissing();
+        }
+        log.info("S3 audio store initialized bucket={} prefix={}", bucket, prefix);
+        return store;
+    }
+}
@@ -0,0 +1,43 @@
+package cz.oluwagbemiga.speech_metric.config;
+
+import cz.oluwagbemiga.speech_metric.controller.LiveRecognitionHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Registers the live recognition WebSocket endpoint.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LiveRecognitionHandler liveRecognitionHandler;
+
+    // Largest single audio frame accepted from a client
+    @Value("${speech.stream.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveRecognitionHandler, "/ws/recognition/live")
+                .setAllowedOriginPatterns(
+                        "http://localhost:5173",
+                        "https://*.ngrok-free.app"
+                );
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(maxFrameBytes);
+        container.setMaxTextMessageBufferSize(8192);
+        return container;
+    }
+}
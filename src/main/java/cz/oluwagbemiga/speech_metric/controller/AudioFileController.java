@@ -1,6 +1,9 @@
 package cz.oluwagbemiga.speech_metric.controller;
 
 import cz.oluwagbemiga.speech_metric.dto.AudioFileDTO;
+import cz.oluwagbemiga.speech_metric.dto.AudioFileDownload;
+import cz.oluwagbemiga.speech_metric.dto.AudioFileSummaryDTO;
+import cz.oluwagbemiga.speech_metric.dto.KeysetPage;
 import cz.oluwagbemiga.speech_metric.dto.UploadResponse;
 import cz.oluwagbemiga.speech_metric.service.AudioFileService;
 import cz.oluwagbemiga.speech_metric.service.UserService;
@@ -10,6 +13,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -26,6 +32,8 @@ import java.util.UUID;
 @Tag(name = "Audio File API", description = "CRUD operations for audio files")
 public class AudioFileController {
 
+    private static final MediaType AUDIO_WAV = MediaType.parseMediaType("audio/wav");
+
     private final AudioFileService audioFileService;
     private final UserService userService;
 
@@ -40,16 +48,24 @@ public class AudioFileController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    // Read: download raw file bytes by ID
+    // Read: stream raw file bytes by ID, honouring Range and If-None-Match
     @GetMapping("/audio-files/{id}")
-    @Operation(summary = "Download audio file by ID")
+    @Operation(summary = "Download audio file by ID",
+            description = "Streams the normalized WAV. Supports byte Range requests for seeking and If-None-Match revalidation")
     @ApiResponse(responseCode = "200", description = "File bytes returned")
-    public ResponseEntity<byte[]> download(@PathVariable UUID id) {
-        AudioFileDTO file = audioFileService.getDtoById(id);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", file.fileName());
-        return new ResponseEntity<>(file.data(), headers, HttpStatus.OK);
+    @ApiResponse(responseCode = "206", description = "Requested byte ranges returned")
+    @ApiResponse(responseCode = "304", description = "Client copy is current")
+    public ResponseEntity<Resource> download(@PathVariable UUID id) {
+        AudioFileDownload file = audioFileService.getDownloadById(id);
+        // Range slicing, 206/416 and If-None-Match → 304 are handled by Spring MVC for Resource bodies
+        var response = ResponseEntity.ok()
+                .contentType(AUDIO_WAV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(file.fileName()).build().toString());
+        if (file.eTag() != null) {
+            // The content hash identifies the bytes, so it serves as a strong validator
+            response = response.eTag(file.eTag()).cacheControl(CacheControl.noCache().cachePrivate());
+        }
+        return response.body(file.content());
     }
 
     // Get audio file DTO by ID
@@ -70,12 +86,29 @@ public class AudioFileController {
         return ResponseEntity.ok(audioFileService.getIdsByUserId(userId));
     }
 
+    // List: one keyset-paginated page of audio file metadata for a user, without content
+    @GetMapping("/users/{userId}/audio-files/summary")
+    @Operation(summary = "List a user's audio file metadata",
+            description = "Returns a page of id, file name, creation time, size and duration of the user's audio files without their content, "
+                    + "oldest first. Pass nextCursor as cursor to fetch the following page")
+    @ApiResponse(responseCode = "200", description = "Page of AudioFileSummaryDTO returned",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = KeysetPage.class)))
+    @ApiResponse(responseCode = "400", description = "Cursor was not issued by this API")
+    public ResponseEntity<KeysetPage<AudioFileSummaryDTO>> listSummariesByUser(@PathVariable UUID userId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(audioFileService.getSummariesByUserId(userId, cursor, limit));
+    }
+
     // List: all audio files for a user as DTOs
     @GetMapping("/users/{userId}/audio-files/dto")
     @Operation(summary = "List a user's audio files as DTOs",
-            description = "Returns all audio files for the user, including metadata and base64-encoded content")
+            description = "Returns all audio files for the user, including metadata and base64-encoded content. "
+                    + "Loads every file into memory; use the paginated summary listing and the download endpoint instead",
+            deprecated = true)
     @ApiResponse(responseCode = "200", description = "List of AudioFileDto returned",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = AudioFileDTO.class)))
+    @Deprecated
     public ResponseEntity<List<AudioFileDTO>> listDtosByUser(@PathVariable UUID userId) {
         return ResponseEntity.ok(audioFileService.getDtosByUserId(userId));
     }
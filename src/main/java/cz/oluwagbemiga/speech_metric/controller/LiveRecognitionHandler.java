@@ -0,0 +1,254 @@
+package cz.oluwagbemiga.speech_metric.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.oluwagbemiga.speech_metric.engine.SpeechEngine;
+import cz.oluwagbemiga.speech_metric.engine.VoskEngine;
+import cz.oluwagbemiga.speech_metric.engine.VoskStreamSession;
+import cz.oluwagbemiga.speech_metric.exception.EngineNotFound;
+import cz.oluwagbemiga.speech_metric.service.EngineService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket endpoint for live recognition with Vosk engines ({@code /ws/recognition/live?model=...}).
+ * <p>
+ * Protocol:
+ * <ul>
+ *   <li>Client sends binary frames with raw PCM s16le mono 16 kHz audio.</li>
+ *   <li>Server answers with JSON text messages {@code {"type":"partial","text":...}} whenever the
+ *       hypothesis changes and {@code {"type":"final","text":...}} when an utterance ends.</li>
+ *   <li>Client may send {@code {"type":"flush"}} to force a final result, or {@code {"type":"eof"}}
+ *       to receive the final result and close the connection.</li>
+ * </ul>
+ * Each connection holds one pooled recognizer for its lifetime. Frames of a session are processed
+ * sequentially on the receiving thread, so a client that sends faster than recognition runs is slowed
+ * down by TCP flow control; outbound messages go through a bounded send buffer and slow consumers are
+ * disconnected. The number of concurrent sessions is capped.
+ */
+@Slf4j
+@Component
+public class LiveRecognitionHandler extends AbstractWebSocketHandler {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final EngineService engineService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    // Slots taken by open sessions and by handshakes in progress; bounded by maxSessions
+    private final AtomicInteger reservedSessions = new AtomicInteger();
+
+    @Value("${speech.stream.default-model:vosk-model-small-en-us-0-15}")
+    private String defaultModel;
+
+    @Value("${speech.stream.max-sessions:16}")
+    private int maxSessions;
+
+    @Value("${speech.stream.send-time-limit:5s}")
+    private Duration sendTimeLimit;
+
+    @Value("${speech.stream.send-buffer-limit:262144}")
+    private int sendBufferLimit;
+
+    public LiveRecognitionHandler(EngineService engineService, MeterRegistry meterRegistry) {
+        this.engineService = engineService;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("speech.stream.sessions", sessions, Map::size)
+                .description("Open live recognition sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * State of one live connection.
+     */
+    private static final class LiveSession {
+        private final WebSocketSession socket;
+        private final VoskStreamSession stream;
+        private final Timer firstPartialTimer;
+        private String lastPartial = "";
+        private long utteranceStartNanos;
+        private boolean firstHypothesisSeen;
+
+        private LiveSession(WebSocketSession socket, VoskStreamSession stream, Timer firstPartialTimer) {
+            this.socket = socket;
+            this.stream = stream;
+            this.firstPartialTimer = firstPartialTimer;
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (!reserveSlot()) {
+            reject(session, "capacity", CloseStatus.SERVICE_OVERLOAD.withReason("Too many live sessions"));
+            return;
+        }
+        String model = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("model");
+        if (model == null || model.isBlank()) {
+            model = defaultModel;
+        }
+        SpeechEngine engine;
+        try {
+            engine = engineService.getEngineByName(model);
+        } catch (EngineNotFound e) {
+            reservedSessions.decrementAndGet();
+            reject(session, "unknown-model", CloseStatus.POLICY_VIOLATION.withReason("Unknown model"));
+            return;
+        }
+        if (!(engine instanceof VoskEngine voskEngine)) {
+            reservedSessions.decrementAndGet();
+            reject(session, "unsupported-model", CloseStatus.NOT_ACCEPTABLE.withReason("Streaming is supported for Vosk models only"));
+            return;
+        }
+        VoskStreamSession stream;
+        try {
+            stream = voskEngine.openStream();
+        } catch (IOException | RuntimeException e) {
+            reservedSessions.decrementAndGet();
+            log.error("Live recognition session could not open a recognizer id={} model={}", session.getId(), engine.getName(), e);
+            reject(session, "engine-error", CloseStatus.SERVER_ERROR.withReason("Recognizer unavailable"));
+            return;
+        }
+
+        WebSocketSession socket = new ConcurrentWebSocketSessionDecorator(session, (int) sendTimeLimit.toMillis(), sendBufferLimit);
+        Timer firstPartialTimer = Timer.builder("speech.stream.first-partial")
+                .description("Time from the first audio frame of an utterance to its first non-empty hypothesis")
+                .tag("model", engine.getName())
+                .register(meterRegistry);
+        LiveSession live = new LiveSession(socket, stream, firstPartialTimer);
+        // From here on the slot is released when the connection closes
+        sessions.put(session.getId(), live);
+        log.info("Live recognition session opened id={} model={} open={}", session.getId(), engine.getName(), sessions.size());
+        send(live, "ready", engine.getName());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        LiveSession live = sessions.get(session.getId());
+        if (live == null) {
+            return;
+        }
+        ByteBuffer payload = message.getPayload();
+        byte[] pcm;
+        if (payload.hasArray() && payload.arrayOffset() == 0 && payload.position() == 0) {
+            pcm = payload.array();
+        } else {
+            pcm = new byte[payload.remaining()];
+            payload.get(pcm);
+        }
+        int length = message.getPayloadLength();
+        if (length == 0) {
+            return;
+        }
+        if (live.utteranceStartNanos == 0L) {
+            live.utteranceStartNanos = System.nanoTime();
+        }
+        VoskStreamSession.Hypothesis hypothesis = live.stream.accept(pcm, length);
+        if (!live.firstHypothesisSeen && !hypothesis.text().isEmpty()) {
+            live.firstHypothesisSeen = true;
+            live.firstPartialTimer.record(System.nanoTime() - live.utteranceStartNanos, TimeUnit.NANOSECONDS);
+        }
+        if (hypothesis.isFinal()) {
+            sendFinal(live, hypothesis);
+        } else if (!hypothesis.text().equals(live.lastPartial)) {
+            live.lastPartial = hypothesis.text();
+            send(live, "partial", hypothesis.text());
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        LiveSession live = sessions.get(session.getId());
+        if (live == null) {
+            return;
+        }
+        String type;
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(message.getPayload());
+            type = node.path("type").asText("");
+        } catch (IOException e) {
+            type = "";
+        }
+        switch (type) {
+            case "flush" -> sendFinal(live, live.stream.finish());
+            case "eof" -> {
+                sendFinal(live, live.stream.finish());
+                session.close(CloseStatus.NORMAL);
+            }
+            default -> session.close(CloseStatus.BAD_DATA.withReason("Unknown control message"));
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Live recognition transport error id={}", session.getId(), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        LiveSession live = sessions.remove(session.getId());
+        if (live != null) {
+            reservedSessions.decrementAndGet();
+            live.stream.close();
+            log.info("Live recognition session closed id={} model={} status={} open={}", session.getId(), live.stream.getModelName(), status.getCode(), sessions.size());
+        }
+    }
+
+    /**
+     * Takes a session slot unless all {@code speech.stream.max-sessions} are taken; atomic across concurrent handshakes.
+     */
+    private boolean reserveSlot() {
+        int reserved;
+        do {
+            reserved = reservedSessions.get();
+            if (reserved >= maxSessions) {
+                return false;
+            }
+        } while (!reservedSessions.compareAndSet(reserved, reserved + 1));
+        return true;
+    }
+
+    private void sendFinal(LiveSession live, VoskStreamSession.Hypothesis hypothesis) throws IOException {
+        live.lastPartial = "";
+        live.utteranceStartNanos = 0L;
+        live.firstHypothesisSeen = false;
+        send(live, "final", hypothesis.text());
+    }
+
+    private void send(LiveSession live, String type, String text) throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("type", type);
+        body.put("ready".equals(type) ? "model" : "text", text);
+        live.socket.sendMessage(new TextMessage(OBJECT_MAPPER.writeValueAsString(body)));
+    }
+
+    private void reject(WebSocketSession session, String reason, CloseStatus status) throws IOException {
+        Counter.builder("speech.stream.rejected")
+                .description("Live recognition connections refused at handshake")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Live recognition session rejected id={} reason={}", session.getId(), reason);
+        session.close(status);
+    }
+}
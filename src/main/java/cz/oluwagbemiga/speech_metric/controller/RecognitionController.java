@@ -1,96 +1,166 @@
 package cz.oluwagbemiga.speech_metric.controller;
 
+import cz.oluwagbemiga.speech_metric.dto.ModelLeaderboardEntryDTO;
 import cz.oluwagbemiga.speech_metric.dto.RecognitionResponse;
 import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteDTO;
-import cz.oluwagbemiga.speech_metric.engine.RecognitionRequest;
-import cz.oluwagbemiga.speech_metric.engine.SpeechEngine;
-import cz.oluwagbemiga.speech_metric.entity.AudioFile;
-import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
-import cz.oluwagbemiga.speech_metric.service.AudioFileService;
+import cz.oluwagbemiga.speech_metric.dto.SuiteJobDTO;
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
+import cz.oluwagbemiga.speech_metric.entity.ModelStatsScope;
 import cz.oluwagbemiga.speech_metric.service.EngineService;
+import cz.oluwagbemiga.speech_metric.service.ModelStatsService;
 import cz.oluwagbemiga.speech_metric.service.RecognitionService;
+import cz.oluwagbemiga.speech_metric.service.RecognitionSuiteService;
+import cz.oluwagbemiga.speech_metric.service.SuiteJobRunner;
+import cz.oluwagbemiga.speech_metric.service.SuiteJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/recognition")
 @Tag(name = "Recognition API", description = "Run speech recognition on stored audio files")
 public class RecognitionController {
 
-    private final AudioFileService audioFileService;
     private final RecognitionService recognitionService;
     private final EngineService engineService;
+    private final SuiteJobRunner suiteJobRunner;
+    private final SuiteJobService suiteJobService;
+    private final RecognitionSuiteService recognitionSuiteService;
+    private final ModelStatsService modelStatsService;
+    private final Executor recognitionExecutor;
+
+    // Upper bound for one streamed recognition, including waiting for a free engine
+    @Value("${speech.recognition.stream-timeout:30m}")
+    private Duration streamTimeout;
 
     public RecognitionController(
-            AudioFileService audioFileService,
             RecognitionService recognitionService,
-            EngineService engineService) {
-        this.audioFileService = audioFileService;
+            EngineService engineService,
+            SuiteJobRunner suiteJobRunner,
+            SuiteJobService suiteJobService,
+            RecognitionSuiteService recognitionSuiteService,
+            ModelStatsService modelStatsService,
+            Executor recognitionExecutor) {
         this.recognitionService = recognitionService;
         this.engineService = engineService;
+        this.suiteJobRunner = suiteJobRunner;
+        this.suiteJobService = suiteJobService;
+        this.recognitionSuiteService = recognitionSuiteService;
+        this.modelStatsService = modelStatsService;
+        this.recognitionExecutor = recognitionExecutor;
     }
 
 
     @PostMapping("/{audioFileId}")
     @Operation(summary = "Recognize speech in an audio file",
-            description = "Provide audioFile UUID and expected text. Optional query param model=small|large|whisper selects engine.")
-    @Transactional
+            description = "Provide audioFile UUID and expected text. Optional query param model=small|large|whisper selects engine, "
+                    + "profile=default|fast|accurate selects the Whisper decoding profile.")
     public ResponseEntity<RecognitionResponse> recognize(
             @PathVariable UUID audioFileId,
             @RequestParam String expected,
-            @RequestParam(name = "model", defaultValue = "whisper-small-q8") String modelSelect) {
-
-        AudioFile audioFile = audioFileService.getById(audioFileId);
-
-        // choose engine by model parameter
-        SpeechEngine engine = engineService.getEngineByName(modelSelect);
+            @RequestParam(name = "model", defaultValue = "whisper-small-q8") String modelSelect,
+            @RequestParam(required = false) String profile) {
 
-        // run recognition and attach result to the audio file (engine adds to collection)
-        engine.processAudio(new RecognitionRequest(audioFile, expected));
+        RecognitionResponse response = recognitionService.recognize(audioFileId, expected, modelSelect, DecodingProfile.forName(profile));
+        return ResponseEntity.ok(response);
+    }
 
-        // persist audio file with cascaded recognition result
-        AudioFile saved = audioFileService.save(audioFile);
-        RecognitionResult persisted = saved.getRecognitionResults().get(saved.getRecognitionResults().size() - 1);
+    @PostMapping(value = "/{audioFileId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Recognize speech and stream segments",
+            description = "Same parameters as the single-engine recognition. Responds with server-sent events: a 'segment' event "
+                    + "(start and end in ms, sentence) for every transcript segment as soon as it is decoded, then one 'result' event "
+                    + "with the persisted recognition response, or an 'error' event. Engines without segment output only send the result.")
+    public SseEmitter recognizeStreaming(
+            @PathVariable UUID audioFileId,
+            @RequestParam String expected,
+            @RequestParam(name = "model", defaultValue = "whisper-small-q8") String modelSelect,
+            @RequestParam(required = false) String profile) {
+
+        DecodingProfile decodingProfile = DecodingProfile.forName(profile);
+        // Unknown engines fail with a regular error response before the stream opens
+        engineService.getEngineByName(modelSelect);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        recognitionExecutor.execute(() -> {
+            try {
+                RecognitionResponse response = recognitionService.recognize(audioFileId, expected, modelSelect, decodingProfile,
+                        segment -> send(emitter, SseEmitter.event().name("segment").data(segment)));
+                emitter.send(SseEmitter.event().name("result").data(response));
+                emitter.complete();
+            } catch (IOException e) {
+                log.debug("Recognition stream closed by client audioFileId={}", audioFileId);
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                log.warn("Streamed recognition failed audioFileId={} model={}", audioFileId, modelSelect, e);
+                send(emitter, SseEmitter.event().name("error").data(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()));
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
 
-        RecognitionResponse response = new RecognitionResponse(
-                persisted.getId(),
-                persisted.getModelName(),
-                persisted.getRecognizedText(),
-                persisted.getExpectedText(),
-                persisted.getAccuracy(),
-                persisted.getModelProcessingTimeMs()
-        );
-        return ResponseEntity.ok(response);
+    /**
+     * Sends an event, ignoring clients that went away: the recognition still completes and is persisted.
+     */
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping recognition stream event: {}", e.getMessage());
+        }
     }
 
     @PostMapping("/all-engines/{audioFileId}")
     @Operation(summary = "Recognize speech in an audio file",
-            description = "Provide audioFile UUID and expected text. Optional query param model=small|large|whisper selects engine.")
-    @Transactional
+            description = "Provide audioFile UUID and expected text. Optional query param profile=default|fast|accurate selects the Whisper decoding profile. Returns one entry per engine; engines that failed carry only modelName and error.")
     public ResponseEntity<List<RecognitionResponse>> recognizeByAllEngines(
             @PathVariable UUID audioFileId,
-            @RequestParam String expected) {
+            @RequestParam String expected,
+            @RequestParam(required = false) String profile) {
 
-        List<RecognitionResponse> responses = recognitionService.recognizeAllEngines(audioFileId, expected);
+        List<RecognitionResponse> responses = recognitionService.recognizeAllEngines(audioFileId, expected, DecodingProfile.forName(profile));
 
         return ResponseEntity.ok(responses);
     }
 
     @PostMapping("/suite")
     @Operation(summary = "Run recognition suite",
-            description = "Provide a JSON object mapping audio file UUIDs to expected transcripts. Runs all engines per audio file and returns aggregated results.")
-    @Transactional
-    public ResponseEntity<RecognitionSuiteDTO> runSuite(@RequestBody Map<UUID, String> expectedMap, @RequestParam UUID ownerId) {
-        RecognitionSuiteDTO response = recognitionService.runSuite(expectedMap, ownerId);
-        return ResponseEntity.ok(response);
+            description = "Provide a JSON object mapping audio file UUIDs to expected transcripts. Queues a background job that runs all engines per audio file and returns the job immediately (202). "
+                    + "Optional query param profile selects the Whisper decoding profile for the whole suite.")
+    public ResponseEntity<SuiteJobDTO> runSuite(@RequestBody Map<UUID, String> expectedMap, @RequestParam UUID ownerId,
+                                                @RequestParam(required = false) String profile) {
+        if (expectedMap == null || expectedMap.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        SuiteJobDTO job = suiteJobRunner.submit(expectedMap, ownerId, DecodingProfile.forName(profile));
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/suite/jobs/{jobId}")
+    @Operation(summary = "Get suite job status",
+            description = "Returns status and progress (done/total, ETA) of a queued or running suite job.")
+    public ResponseEntity<SuiteJobDTO> getSuiteJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(suiteJobService.getStatus(jobId));
+    }
+
+    @GetMapping("/suite/jobs/{jobId}/results")
+    @Operation(summary = "Get suite job results",
+            description = "Returns the results committed so far by a suite job; the list grows while the job runs.")
+    public ResponseEntity<RecognitionSuiteDTO> getSuiteJobResults(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(recognitionSuiteService.getSuiteDTOById(suiteJobService.getSuiteId(jobId)));
     }
 
     @GetMapping("/engines")
@@ -101,6 +171,33 @@ public class RecognitionController {
         return ResponseEntity.ok(names);
     }
 
+    @GetMapping("/profiles")
+    @Operation(summary = "List decoding profiles",
+            description = "Returns the names of the Whisper decoding profiles accepted by the profile query parameter. Vosk engines ignore the profile.")
+    public ResponseEntity<List<String>> getDecodingProfiles() {
+        return ResponseEntity.ok(DecodingProfile.names());
+    }
+
+    @GetMapping("/leaderboard")
+    @Operation(summary = "Rank models by accuracy",
+            description = "Returns per-model result count, accuracy mean and deviation, mean WER and latency percentiles, best accuracy first. "
+                    + "Aggregates are maintained as results are stored, so the cost does not grow with history. "
+                    + "Optionally restrict to one owner or one suite.")
+    public ResponseEntity<List<ModelLeaderboardEntryDTO>> getLeaderboard(
+            @RequestParam(required = false) UUID ownerId,
+            @RequestParam(required = false) UUID suiteId) {
+        if (ownerId != null && suiteId != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (suiteId != null) {
+            return ResponseEntity.ok(modelStatsService.getLeaderboard(ModelStatsScope.SUITE, suiteId));
+        }
+        if (ownerId != null) {
+            return ResponseEntity.ok(modelStatsService.getLeaderboard(ModelStatsScope.OWNER, ownerId));
+        }
+        return ResponseEntity.ok(modelStatsService.getLeaderboard(ModelStatsScope.GLOBAL, null));
+    }
+
     @GetMapping("/results")
     @Operation(summary = "List recognition results by model",
             description = "Fetches every persisted recognition response generated by the specified speech model. Matching is case-insensitive.")
@@ -1,13 +1,14 @@
 package cz.oluwagbemiga.speech_metric.controller;
 
+import cz.oluwagbemiga.speech_metric.dto.KeysetPage;
 import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteDTO;
+import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteSummaryDTO;
 import cz.oluwagbemiga.speech_metric.service.RecognitionSuiteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -22,9 +23,19 @@ public class RecognitionSuiteController {
     }
 
     @GetMapping
-    @Operation(summary = "List all recognition suites", description = "Returns all suites across all users.")
-    public ResponseEntity<List<RecognitionSuiteDTO>> getAllSuites() {
-        return ResponseEntity.ok(recognitionSuiteService.getAllSuites());
+    @Operation(summary = "List recognition suites",
+            description = "Returns a page of suites across all users with their results, newest first. Pass nextCursor as cursor to fetch the following page.")
+    public ResponseEntity<KeysetPage<RecognitionSuiteDTO>> getAllSuites(@RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(recognitionSuiteService.getAllSuites(cursor, limit));
+    }
+
+    @GetMapping("/summary")
+    @Operation(summary = "List recognition suite summaries",
+            description = "Returns a page of per-suite aggregates across all users without individual results, newest first.")
+    public ResponseEntity<KeysetPage<RecognitionSuiteSummaryDTO>> getAllSuiteSummaries(@RequestParam(required = false) String cursor,
+                                                                                      @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(recognitionSuiteService.getAllSuiteSummaries(cursor, limit));
     }
 
     @GetMapping("/{suiteId}")
@@ -34,9 +45,20 @@ public class RecognitionSuiteController {
     }
 
     @GetMapping("/owner/{ownerId}")
-    @Operation(summary = "List suites by owner", description = "Returns all suites belonging to the specified user UUID.")
-    public ResponseEntity<List<RecognitionSuiteDTO>> getSuitesByOwner(@PathVariable UUID ownerId) {
-        return ResponseEntity.ok(recognitionSuiteService.getSuitesByOwner(ownerId));
+    @Operation(summary = "List suites by owner",
+            description = "Returns a page of suites belonging to the specified user UUID with their results, newest first.")
+    public ResponseEntity<KeysetPage<RecognitionSuiteDTO>> getSuitesByOwner(@PathVariable UUID ownerId,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(recognitionSuiteService.getSuitesByOwner(ownerId, cursor, limit));
     }
-}
 
+    @GetMapping("/owner/{ownerId}/summary")
+    @Operation(summary = "List suite summaries by owner",
+            description = "Returns a page of per-suite aggregates of the specified user without individual results, newest first.")
+    public ResponseEntity<KeysetPage<RecognitionSuiteSummaryDTO>> getSuiteSummariesByOwner(@PathVariable UUID ownerId,
+                                                                                          @RequestParam(required = false) String cursor,
+                                                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(recognitionSuiteService.getSuiteSummariesByOwner(ownerId, cursor, limit));
+    }
+}
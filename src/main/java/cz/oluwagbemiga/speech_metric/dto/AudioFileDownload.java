@@ -0,0 +1,17 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Content of an audio file prepared for streaming to a client.
+ *
+ * @param fileName stored file name, used for {@code Content-Disposition}
+ * @param eTag     content hash identifying the bytes, or null for files not migrated to shared storage yet
+ * @param content  resource reading the bytes on demand; Spring MVC serves {@code Range} requests from it
+ */
+public record AudioFileDownload(
+        String fileName,
+        String eTag,
+        Resource content
+) {
+}
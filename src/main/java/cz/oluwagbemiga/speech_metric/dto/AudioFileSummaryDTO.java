@@ -0,0 +1,25 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Metadata of an uploaded audio file without its content.
+ * <p>
+ * Produced by a projection query, so listing files never reads audio bytes.
+ * </p>
+ *
+ * @param id         unique identifier of the audio file
+ * @param fileName   stored file name
+ * @param createdAt  timestamp when the file was persisted
+ * @param sizeBytes  size of the normalized WAV, or null for files not migrated to shared storage yet
+ * @param durationMs playback length in milliseconds, or null if not known
+ */
+public record AudioFileSummaryDTO(
+        UUID id,
+        String fileName,
+        LocalDateTime createdAt,
+        Long sizeBytes,
+        Long durationMs
+) {
+}
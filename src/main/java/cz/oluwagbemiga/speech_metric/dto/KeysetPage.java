@@ -0,0 +1,62 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * <p>
+ * Pass {@code nextCursor} back as the {@code cursor} request parameter to fetch the following page.
+ * Unlike offset paging, a page costs the same regardless of how deep into the listing it is and
+ * rows inserted meanwhile do not shift later pages.
+ * </p>
+ *
+ * @param items      rows of this page, in listing order
+ * @param nextCursor opaque position after the last item, or null if this is the last page
+ * @param <T>        row type
+ */
+public record KeysetPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+
+    /**
+     * Upper bound of the page size accepted by paginated listings.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * @param limit page size requested by a client
+     * @return {@code limit} clamped to {@code [1, MAX_LIMIT]}
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Builds a page from rows queried with a limit of {@code pageSize + 1}; the extra row only
+     * signals that another page follows and is not returned.
+     *
+     * @param rows     rows in listing order, at most {@code pageSize + 1}
+     * @param pageSize number of rows to return
+     * @param cursorOf position of a row
+     * @param <T>      row type
+     * @return page whose cursor points after its last row, or has none when no row was left over
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = List.copyOf(rows.subList(0, pageSize));
+        return new KeysetPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * @param mapper conversion applied to every item
+     * @param <R>    converted row type
+     * @return page with converted items and the same cursor
+     */
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,29 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+/**
+ * Aggregated quality and speed of one speech model, as listed on the leaderboard.
+ *
+ * @param modelName                 logical model name as persisted in recognition results
+ * @param resultCount               number of recognition results aggregated
+ * @param meanAccuracy              mean character accuracy in [0,1]
+ * @param accuracyStdDev            sample standard deviation of accuracy, or null with fewer than two results
+ * @param meanWordErrorRate         mean WER over results with an expected text, or null if there are none
+ * @param cachedCount               results answered from the recognition cache (excluded from latency figures)
+ * @param meanModelProcessingTimeMs mean inference time of non-cached results, or null if there are none
+ * @param latencyP50Ms              median inference time, within 1 % relative error
+ * @param latencyP90Ms              90th percentile of inference time
+ * @param latencyP99Ms              99th percentile of inference time
+ */
+public record ModelLeaderboardEntryDTO(
+        String modelName,
+        long resultCount,
+        double meanAccuracy,
+        Double accuracyStdDev,
+        Double meanWordErrorRate,
+        long cachedCount,
+        Double meanModelProcessingTimeMs,
+        Double latencyP50Ms,
+        Double latencyP90Ms,
+        Double latencyP99Ms
+) {
+}
@@ -1,5 +1,9 @@
 package cz.oluwagbemiga.speech_metric.dto;
 
+import cz.oluwagbemiga.speech_metric.engine.WhisperSegment;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -8,7 +12,13 @@ import java.util.UUID;
  * Encapsulates the identifier of the persistence entity, the model used,
  * the recognized transcript, the expected transcript (if any) and
  * the computed accuracy metric (e.g. CER-based value in range [0,1]).
- * Includes modelProcessingTimeMs for underlying inference duration (excluding pre/post processing).
+ * Includes modelProcessingTimeMs for underlying inference duration (excluding pre/post processing),
+ * whether the transcript came from the recognition cache, the decoding profile (null for engines without one), the silence skipped before inference (null without voice activity detection), the word-level metrics (null when no expected transcript was given)
+ * and the timestamped segments (null for engines without segment output).
+ * </p>
+ * <p>
+ * In multi-engine responses an engine that failed is reported with its model name and {@code error}
+ * message only; {@code error} is null for every completed recognition.
  * </p>
  */
 public record RecognitionResponse(
@@ -17,6 +27,58 @@ public record RecognitionResponse(
         String recognizedText,
         String expectedText,
         double accuracy,
-        long modelProcessingTimeMs
+        long modelProcessingTimeMs,
+        Boolean fromCache,
+        String decodingProfile,
+        Long skippedSilenceMs,
+        Double wordErrorRate,
+        Double matchErrorRate,
+        Double wordInformationLost,
+        Integer wordSubstitutions,
+        Integer wordDeletions,
+        Integer wordInsertions,
+        Integer referenceWordCount,
+        List<WhisperSegment> segments,
+        String error
 ) {
+
+    /**
+     * Convenience constructor mapping a persisted {@link RecognitionResult}.
+     *
+     * @param result source result entity
+     */
+    public RecognitionResponse(RecognitionResult result) {
+        this(
+                result.getId(),
+                result.getModelName(),
+                result.getRecognizedText(),
+                result.getExpectedText(),
+                result.getAccuracy(),
+                result.getModelProcessingTimeMs(),
+                result.getFromCache(),
+                result.getDecodingProfile(),
+                result.getSkippedSilenceMs(),
+                result.getWordErrorRate(),
+                result.getMatchErrorRate(),
+                result.getWordInformationLost(),
+                result.getWordSubstitutions(),
+                result.getWordDeletions(),
+                result.getWordInsertions(),
+                result.getReferenceWordCount(),
+                result.getSegments(),
+                null
+        );
+    }
+
+    /**
+     * Response for an engine that failed to produce a result; nothing was persisted for it.
+     *
+     * @param modelName engine identifier
+     * @param error     failure message
+     * @return response carrying only the model name and error
+     */
+    public static RecognitionResponse failed(String modelName, String error) {
+        return new RecognitionResponse(null, modelName, null, null, 0, 0, null, null, null,
+                null, null, null, null, null, null, null, null, error);
+    }
 }
@@ -33,14 +33,7 @@ public record RecognitionSuiteDTO(
         this(
                 suite.getId(),
                 suite.getRecognitionResults().stream()
-                        .map(result -> new RecognitionResponse(
-                                result.getId(),
-                                result.getModelName(),
-                                result.getRecognizedText(),
-                                result.getExpectedText(),
-                                result.getAccuracy(),
-                                result.getModelProcessingTimeMs()
-                        ))
+                        .map(RecognitionResponse::new)
                         .toList(),
                 suite.getOwner().getId(),
                 suite.getCreatedAt()
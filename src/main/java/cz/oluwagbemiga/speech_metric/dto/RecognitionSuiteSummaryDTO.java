@@ -0,0 +1,33 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Per-suite aggregates of a {@link cz.oluwagbemiga.speech_metric.entity.RecognitionSuite} without its individual results.
+ * <p>
+ * Computed by a single grouped query, so listing suites in summary mode never loads result rows.
+ * </p>
+ *
+ * @param id                         unique identifier of the recognition suite
+ * @param ownerId                    owning user
+ * @param createdAt                  timestamp when the suite was created
+ * @param resultCount                number of recognition results in the suite
+ * @param audioFileCount             number of distinct audio files recognized
+ * @param modelCount                 number of distinct models used
+ * @param averageAccuracy            mean character accuracy, or null for an empty suite
+ * @param averageWordErrorRate       mean WER over results with an expected text, or null if there are none
+ * @param totalModelProcessingTimeMs summed inference time, or null for an empty suite
+ */
+public record RecognitionSuiteSummaryDTO(
+        UUID id,
+        UUID ownerId,
+        LocalDateTime createdAt,
+        Long resultCount,
+        Long audioFileCount,
+        Long modelCount,
+        Double averageAccuracy,
+        Double averageWordErrorRate,
+        Long totalModelProcessingTimeMs
+) {
+}
@@ -0,0 +1,81 @@
+package cz.oluwagbemiga.speech_metric.dto;
+
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJob;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJobStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress view of an asynchronous recognition suite run.
+ * <p>
+ * Partial results are available through the suite identified by {@code suiteId}
+ * while the job is still running.
+ * </p>
+ *
+ * @param jobId           unique identifier of the job
+ * @param suiteId         suite receiving the results
+ * @param ownerId         user who submitted the job
+ * @param status          current lifecycle state
+ * @param totalItems      number of audio files in the job
+ * @param completedItems  audio files whose results are committed
+ * @param failedItems     audio files that could not be processed
+ * @param decodingProfile decoding profile used by the job's engine runs
+ * @param createdAt       submission time
+ * @param startedAt       time processing started (null while queued)
+ * @param finishedAt      completion time (null while unfinished)
+ * @param etaSeconds      estimated seconds until completion (null when unknown or finished)
+ * @param errorMessage    failure reason for FAILED jobs
+ */
+public record SuiteJobDTO(
+        UUID jobId,
+        UUID suiteId,
+        UUID ownerId,
+        SuiteJobStatus status,
+        int totalItems,
+        int completedItems,
+        int failedItems,
+        String decodingProfile,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        Long etaSeconds,
+        String errorMessage
+) {
+
+    /**
+     * Convenience constructor mapping from a {@link SuiteJob} entity and deriving the ETA
+     * from the average time per processed item so far.
+     *
+     * @param job source entity
+     */
+    public SuiteJobDTO(SuiteJob job) {
+        this(
+                job.getId(),
+                job.getRecognitionSuite().getId(),
+                job.getOwner().getId(),
+                job.getStatus(),
+                job.getTotalItems(),
+                job.getCompletedItems(),
+                job.getFailedItems(),
+                DecodingProfile.forName(job.getDecodingProfile()).name(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                estimateSeconds(job),
+                job.getErrorMessage()
+        );
+    }
+
+    private static Long estimateSeconds(SuiteJob job) {
+        int done = job.getCompletedItems() + job.getFailedItems();
+        if (job.getStatus() != SuiteJobStatus.RUNNING || job.getStartedAt() == null || done == 0) {
+            return null;
+        }
+        long elapsedMs = Duration.between(job.getStartedAt(), LocalDateTime.now()).toMillis();
+        long remaining = Math.max(0, job.getTotalItems() - done);
+        return elapsedMs * remaining / done / 1000L;
+    }
+}
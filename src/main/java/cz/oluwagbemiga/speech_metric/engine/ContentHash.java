@@ -0,0 +1,164 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * SHA-256 helpers for audio content and model checksums.
+ * <p>
+ * Model checksums are computed once per model path, on a caller-supplied executor so request threads
+ * never wait for them, and cached for the lifetime of the JVM. A single model file
+ * (Whisper ggml) is hashed over its full content. A model directory (Vosk) is fingerprinted by
+ * hashing the relative path, size and modification time of every file, because re-reading
+ * several gigabytes of graph files on each start would be too slow; any replaced file changes
+ * its size or modification time.
+ */
+@Slf4j
+public final class ContentHash {
+
+    private static final Map<String, CompletableFuture<String>> MODEL_CHECKSUMS = new ConcurrentHashMap<>();
+
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param data bytes to hash
+     * @return lowercase hex SHA-256 of {@code data}
+     */
+    public static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    /**
+     * Hashes a stream to its end without buffering it.
+     *
+     * @param in stream to consume; not closed
+     * @return lowercase hex SHA-256 of the stream content
+     * @throws IOException if reading fails
+     */
+    public static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param parts strings joined with a separator that cannot occur in them
+     * @return lowercase hex SHA-256 of the joined parts
+     */
+    public static String sha256Hex(String... parts) {
+        MessageDigest digest = newDigest();
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the checksum of a model file or directory if it has been computed. The first call for a path
+     * starts the computation on {@code executor}; a failed computation is logged and started again by the
+     * next call.
+     *
+     * @param modelPath path to a model file or directory
+     * @param executor  runs the computation; a direct executor ({@code Runnable::run}) computes it in the caller
+     * @return lowercase hex checksum, or empty while it is being computed or after it failed
+     */
+    public static Optional<String> modelChecksum(String modelPath, Executor executor) {
+        CompletableFuture<String> started = new CompletableFuture<>();
+        CompletableFuture<String> checksum = MODEL_CHECKSUMS.putIfAbsent(modelPath, started);
+        if (checksum == null) {
+            // Started outside the map so concurrent callers see the pending future instead of blocking on it
+            checksum = started;
+            Runnable compute = () -> {
+                try {
+                    started.complete(computeModelChecksum(modelPath));
+                } catch (RuntimeException e) {
+                    log.warn("Model checksum failed path={}", modelPath, e);
+                    started.completeExceptionally(e);
+                }
+            };
+            try {
+                executor.execute(compute);
+            } catch (RejectedExecutionException e) {
+                started.completeExceptionally(e);
+            }
+        }
+        if (!checksum.isDone()) {
+            return Optional.empty();
+        }
+        if (checksum.isCompletedExceptionally()) {
+            MODEL_CHECKSUMS.remove(modelPath, checksum);
+            return Optional.empty();
+        }
+        return Optional.of(checksum.join());
+    }
+
+    private static String computeModelChecksum(String modelPath) {
+        long start = System.nanoTime();
+        Path path = Path.of(modelPath);
+        MessageDigest digest = newDigest();
+        try {
+            if (Files.isDirectory(path)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files = walk.filter(Files::isRegularFile).sorted().toList();
+                }
+                for (Path file : files) {
+                    String entry = path.relativize(file).toString().replace('\\', '/')
+                            + ':' + Files.size(file)
+                            + ':' + Files.getLastModifiedTime(file).toMillis();
+                    digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            } else {
+                byte[] buffer = new byte[1 << 20];
+                try (InputStream in = Files.newInputStream(path)) {
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to checksum model at path: " + modelPath, e);
+        }
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        log.info("Model checksum computed path={} checksum={} timeMs={}", modelPath, checksum, (System.nanoTime() - start) / 1_000_000L);
+        return checksum;
+    }
+
+    /**
+     * @return new SHA-256 digest, for callers hashing data while writing it
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
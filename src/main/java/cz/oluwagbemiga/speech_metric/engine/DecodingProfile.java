@@ -0,0 +1,113 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import cz.oluwagbemiga.speech_metric.exception.UnknownDecodingProfileException;
+import io.github.ggerganov.whispercpp.params.CBool;
+import io.github.ggerganov.whispercpp.params.WhisperFullParams;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Named set of Whisper decoding parameters selectable per recognition request or suite.
+ * <p>
+ * {@link #DEFAULT} reproduces the decoding used before profiles existed (library defaults, beam search with
+ * temperature fallback) and keeps its decoding signature, so cached transcripts stay valid. {@link #FAST} trades
+ * accuracy for latency with greedy single-segment decoding and no temperature fallback; {@link #ACCURATE} uses a
+ * five-beam search. Engines without tunable decoding (Vosk) ignore the profile.
+ * </p>
+ * Zero values of {@code threads}, {@code beamSize}, {@code bestOf}, {@code audioCtx} and {@code maxLen} and NaN
+ * thresholds keep the library default.
+ *
+ * @param name              profile key used in requests and stored on results
+ * @param beamSearch        beam search if true, greedy sampling otherwise
+ * @param beamSize          beams kept by beam search
+ * @param bestOf            candidates sampled per temperature by greedy decoding
+ * @param threads           CPU threads used by one transcription
+ * @param audioCtx          encoder audio context in frames (1500 = full 30 s window)
+ * @param maxLen            maximum segment length in characters
+ * @param singleSegment     force the whole window into one segment
+ * @param timestamps        compute token timestamps
+ * @param temperature       initial sampling temperature
+ * @param temperatureInc    temperature increase on fallback; 0 disables fallback
+ * @param noSpeechThreshold no-speech probability above which a window is treated as silent
+ * @param logprobThreshold  average log probability below which decoding falls back to a higher temperature
+ */
+public record DecodingProfile(String name, boolean beamSearch, int beamSize, int bestOf, int threads, int audioCtx,
+                              int maxLen, boolean singleSegment, boolean timestamps, float temperature,
+                              float temperatureInc, float noSpeechThreshold, float logprobThreshold) {
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    public static final DecodingProfile DEFAULT = new DecodingProfile("default", true, 0, 0, 0, 0,
+            0, false, false, 0.0f, 0.2f, Float.NaN, Float.NaN);
+
+    public static final DecodingProfile FAST = new DecodingProfile("fast", false, 0, 1, Math.min(8, CPUS), 0,
+            0, true, false, 0.0f, 0.0f, 0.6f, -1.0f);
+
+    public static final DecodingProfile ACCURATE = new DecodingProfile("accurate", true, 5, 5, Math.min(4, CPUS), 0,
+            0, false, true, 0.0f, 0.2f, 0.6f, -1.0f);
+
+    private static final List<DecodingProfile> PROFILES = List.of(DEFAULT, FAST, ACCURATE);
+
+    /**
+     * Resolves a profile by name (case-insensitive).
+     *
+     * @param name profile name; null or blank selects {@link #DEFAULT}
+     * @return matching profile
+     * @throws UnknownDecodingProfileException if no profile has that name
+     */
+    public static DecodingProfile forName(String name) {
+        if (name == null || name.isBlank()) {
+            return DEFAULT;
+        }
+        String key = name.trim().toLowerCase(Locale.ROOT);
+        return PROFILES.stream()
+                .filter(profile -> profile.name.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new UnknownDecodingProfileException(name));
+    }
+
+    /**
+     * @return names of all profiles
+     */
+    public static List<String> names() {
+        return PROFILES.stream().map(DecodingProfile::name).toList();
+    }
+
+    /**
+     * Writes the profile into the parameters of one run. Every field a profile controls is assigned, falling back to
+     * {@code defaults} where the profile keeps the library default: whisper.cpp hands out the same parameter struct
+     * for every run on a context, so a value left untouched would carry over from the previous run's profile.
+     *
+     * @param params   parameters of the run
+     * @param defaults library defaults of the profile's sampling strategy
+     */
+    void applyTo(WhisperFullParams params, WhisperFullParams defaults) {
+        params.n_threads = threads > 0 ? threads : defaults.n_threads;
+        params.beam_search.beam_size = beamSize > 0 ? beamSize : defaults.beam_search.beam_size;
+        params.greedy.best_of = bestOf > 0 ? bestOf : defaults.greedy.best_of;
+        params.audio_ctx = audioCtx > 0 ? audioCtx : defaults.audio_ctx;
+        params.max_len = maxLen > 0 ? maxLen : defaults.max_len;
+        params.single_segment = singleSegment ? CBool.TRUE : CBool.FALSE;
+        params.token_timestamps = timestamps ? CBool.TRUE : CBool.FALSE;
+        params.temperature = temperature;
+        params.temperature_inc = temperatureInc;
+        params.no_speech_thold = Float.isNaN(noSpeechThreshold) ? defaults.no_speech_thold : noSpeechThreshold;
+        params.logprob_thold = Float.isNaN(logprobThreshold) ? defaults.logprob_thold : logprobThreshold;
+    }
+
+    /**
+     * Description of the parameters that influence the transcript; thread count is left out since it only affects speed.
+     *
+     * @return decoding signature
+     */
+    public String signature() {
+        if (this.equals(DEFAULT)) {
+            return "beam_search;temperature=" + temperature + ";temperature_inc=" + temperatureInc;
+        }
+        return (beamSearch ? "beam_search;beam_size=" + beamSize : "greedy;best_of=" + bestOf)
+                + ";temperature=" + temperature + ";temperature_inc=" + temperatureInc
+                + ";audio_ctx=" + audioCtx + ";max_len=" + maxLen + ";single_segment=" + singleSegment
+                + ";no_speech_thold=" + noSpeechThreshold + ";logprob_thold=" + logprobThreshold;
+    }
+}
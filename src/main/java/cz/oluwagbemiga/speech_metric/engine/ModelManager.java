@@ -0,0 +1,240 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Loads {@link NativeModel}s on first use and keeps their combined footprint within a memory budget.
+ * <p>
+ * Callers bracket every use of a model with {@link #acquire(NativeModel)} and {@link #release(NativeModel)}.
+ * A model is loaded by the first acquire; when loading it would push the estimated resident bytes over the
+ * budget, the least recently used models that nobody currently holds are unloaded first. Models in use are
+ * never evicted, so the budget can be exceeded temporarily when every resident model is busy.
+ * Models registered under the same path are shared.
+ * <p>
+ * Load time, evictions and resident bytes are published as Micrometer meters.
+ */
+@Slf4j
+public class ModelManager implements AutoCloseable {
+
+    @Getter
+    private final long budgetBytes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private long residentBytes;
+
+    /**
+     * @param budgetBytes   estimated native bytes that may stay resident; 0 or less disables eviction
+     * @param meterRegistry registry receiving manager metrics
+     */
+    public ModelManager(long budgetBytes, MeterRegistry meterRegistry) {
+        this.budgetBytes = budgetBytes;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("speech.models.resident", this, ModelManager::getResidentBytes)
+                .description("Estimated native memory held by loaded models")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("speech.models.budget", this, ModelManager::getBudgetBytes)
+                .description("Native memory budget for loaded models (0 = unlimited)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Model manager initialized budgetBytes={}", budgetBytes);
+    }
+
+    /**
+     * Registers a model, or returns the model already registered under the same path.
+     * Nothing is loaded until the first {@link #acquire(NativeModel)}.
+     *
+     * @param modelPath path of the model file or directory
+     * @param factory   creates the unloaded model when the path is new
+     * @param <T>       model type; must match the type registered earlier under the path
+     * @return registered model
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends NativeModel> T register(String modelPath, Supplier<T> factory) {
+        return (T) entries.computeIfAbsent(modelPath, p -> new Entry(factory.get())).model;
+    }
+
+    /**
+     * Marks the model as in use, loading it first if it is not resident.
+     * Every successful call must be paired with {@link #release(NativeModel)}.
+     *
+     * @param model registered model
+     * @throws IllegalStateException if the model cannot be loaded
+     */
+    public void acquire(NativeModel model) {
+        Entry entry = entry(model);
+        synchronized (this) {
+            entry.leases++;
+            entry.lastUsedNanos = System.nanoTime();
+            if (entry.loaded) {
+                return;
+            }
+        }
+        try {
+            // Loads of one model are serialized; other models stay available meanwhile
+            synchronized (entry) {
+                load(entry);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entry.leases--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Ends a use started by {@link #acquire(NativeModel)}; the model becomes evictable once nobody holds it.
+     *
+     * @param model registered model
+     */
+    public synchronized void release(NativeModel model) {
+        Entry entry = entry(model);
+        if (entry.leases > 0) {
+            entry.leases--;
+        }
+        entry.lastUsedNanos = System.nanoTime();
+    }
+
+    /**
+     * @param model registered model
+     * @return true if the model is currently resident
+     */
+    public synchronized boolean isLoaded(NativeModel model) {
+        return entry(model).loaded;
+    }
+
+    /**
+     * @return estimated native bytes held by loaded models
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Unloads every model that is not in use, e.g. on shutdown.
+     */
+    @Override
+    public synchronized void close() {
+        for (Entry entry : entries.values()) {
+            if (entry.loaded && entry.leases == 0) {
+                unload(entry);
+            }
+        }
+    }
+
+    private void load(Entry entry) {
+        long footprint;
+        synchronized (this) {
+            if (entry.loaded) {
+                return;
+            }
+            footprint = entry.model.estimateFootprintBytes();
+            makeRoom(entry, footprint);
+            // Reserve before loading so concurrent loads of other models see the space as taken
+            residentBytes += footprint;
+            entry.footprintBytes = footprint;
+        }
+        long start = System.nanoTime();
+        try {
+            log.info("Loading model name={} estimatedBytes={} residentBytes={}", entry.model.getModelName(), footprint, getResidentBytes());
+            entry.model.load();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                residentBytes -= footprint;
+                entry.footprintBytes = 0;
+            }
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        entry.loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            entry.loaded = true;
+        }
+        log.info("Model loaded name={} timeMs={} residentBytes={}", entry.model.getModelName(), elapsed / 1_000_000L, getResidentBytes());
+    }
+
+    /**
+     * Unloads idle models, least recently used first, until {@code needed} more bytes fit in the budget.
+     */
+    private void makeRoom(Entry loading, long needed) {
+        if (budgetBytes <= 0) {
+            return;
+        }
+        while (residentBytes + needed > budgetBytes) {
+            Entry victim = null;
+            for (Entry candidate : entries.values()) {
+                if (candidate != loading && candidate.loaded && candidate.leases == 0
+                        && (victim == null || candidate.lastUsedNanos - victim.lastUsedNanos < 0)) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                log.warn("Model memory budget exceeded; no idle model to evict loading={} neededBytes={} residentBytes={} budgetBytes={}",
+                        loading.model.getModelName(), needed, residentBytes, budgetBytes);
+                return;
+            }
+            log.info("Evicting least recently used model name={} freedBytes={} for={}",
+                    victim.model.getModelName(), victim.footprintBytes, loading.model.getModelName());
+            victim.evictionCounter.increment();
+            unload(victim);
+        }
+    }
+
+    private void unload(Entry entry) {
+        try {
+            entry.model.unload();
+        } catch (Exception e) {
+            log.warn("Failed to unload model name={}", entry.model.getModelName(), e);
+        }
+        entry.loaded = false;
+        residentBytes -= entry.footprintBytes;
+        entry.footprintBytes = 0;
+    }
+
+    private Entry entry(NativeModel model) {
+        Entry entry = entries.get(model.getModelPath());
+        if (entry == null || entry.model != model) {
+            throw new IllegalArgumentException("Model not registered: " + model.getModelName());
+        }
+        return entry;
+    }
+
+    /**
+     * Bookkeeping of one registered model. Mutable fields are guarded by the manager's monitor;
+     * the entry's own monitor serializes loading.
+     */
+    private final class Entry {
+        private final NativeModel model;
+        private final Timer loadTimer;
+        private final Counter evictionCounter;
+        private boolean loaded;
+        private int leases;
+        private long lastUsedNanos = System.nanoTime();
+        private long footprintBytes;
+
+        private Entry(NativeModel model) {
+            this.model = model;
+            this.loadTimer = Timer.builder("speech.models.load")
+                    .description("Time spent loading a model into native memory")
+                    .tag("model", model.getModelName())
+                    .register(meterRegistry);
+            this.evictionCounter = Counter.builder("speech.models.evictions")
+                    .description("Times the model was unloaded to stay within the memory budget")
+                    .tag("model", model.getModelName())
+                    .register(meterRegistry);
+        }
+    }
+}
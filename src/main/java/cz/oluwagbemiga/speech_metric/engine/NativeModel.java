@@ -0,0 +1,40 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+/**
+ * Model resources held in native memory whose lifecycle is driven by {@link ModelManager}.
+ * <p>
+ * Implementations start unloaded. The manager calls {@link #load()} before the first use and may call
+ * {@link #unload()} once no caller holds the model, after which a later {@link #load()} must restore it.
+ * Neither method is called concurrently for the same model.
+ */
+public interface NativeModel {
+
+    /**
+     * @return path of the model file or directory, unique per model
+     */
+    String getModelPath();
+
+    /**
+     * @return engine name used for logging and metric tags
+     */
+    String getModelName();
+
+    /**
+     * Approximate native memory held while loaded, used to enforce the manager's budget.
+     *
+     * @return estimated resident bytes
+     */
+    long estimateFootprintBytes();
+
+    /**
+     * Loads the model into native memory.
+     *
+     * @throws IllegalStateException if the model cannot be loaded
+     */
+    void load();
+
+    /**
+     * Frees the native memory held by the model.
+     */
+    void unload();
+}
@@ -3,24 +3,56 @@ package cz.oluwagbemiga.speech_metric.engine;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.function.Consumer;
+
 /**
  * Immutable container for a single speech recognition operation.
  * <p>
  * It bundles the audio to be transcribed together with an optional
  * expected (ground-truth) transcript used to compute accuracy metrics
- * (e.g. Character Error Rate) in {@link SpeechEngine} implementations.
+ * (e.g. Character Error Rate) in {@link SpeechEngine} implementations,
+ * the {@link DecodingProfile} for engines with tunable decoding and an optional listener
+ * receiving timestamped segments while they are decoded.
  * </p>
  *
- * @param audioFile    audio file entity providing WAV bytes and metadata
- * @param expectedText optional expected transcript; may be null or blank
+ * @param audioFile       audio file entity providing WAV bytes and metadata
+ * @param expectedText    optional expected transcript; may be null or blank
+ * @param decodingProfile decoding parameters; null selects {@link DecodingProfile#DEFAULT}
+ * @param segmentListener receives segments in timeline order on the decoding thread, or null; engines without
+ *                        segment output never call it
  */
 @Slf4j
-public record RecognitionRequest(AudioFile audioFile, String expectedText) {
+public record RecognitionRequest(AudioFile audioFile, String expectedText, DecodingProfile decodingProfile,
+                                 Consumer<WhisperSegment> segmentListener) {
     public RecognitionRequest {
+        if (decodingProfile == null) {
+            decodingProfile = DecodingProfile.DEFAULT;
+        }
         if (audioFile != null) {
             log.debug("RecognitionRequest created for audioFile={} expectedLength={}", audioFile.getId(), expectedText == null ? 0 : expectedText.length());
         } else {
             log.debug("RecognitionRequest created with null audioFile expectedLength={}", expectedText == null ? 0 : expectedText.length());
         }
     }
+
+    /**
+     * Request without a segment listener.
+     *
+     * @param audioFile       audio file entity providing WAV bytes and metadata
+     * @param expectedText    optional expected transcript; may be null or blank
+     * @param decodingProfile decoding parameters; null selects {@link DecodingProfile#DEFAULT}
+     */
+    public RecognitionRequest(AudioFile audioFile, String expectedText, DecodingProfile decodingProfile) {
+        this(audioFile, expectedText, decodingProfile, null);
+    }
+
+    /**
+     * Request decoded with {@link DecodingProfile#DEFAULT}.
+     *
+     * @param audioFile    audio file entity providing WAV bytes and metadata
+     * @param expectedText optional expected transcript; may be null or blank
+     */
+    public RecognitionRequest(AudioFile audioFile, String expectedText) {
+        this(audioFile, expectedText, DecodingProfile.DEFAULT, null);
+    }
 }
@@ -0,0 +1,99 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Collects timestamped segments decoded from the windows of one recording and publishes them in timeline order.
+ * <p>
+ * Windows may be decoded in parallel. Segments of the earliest unfinished window are passed to the listener as soon
+ * as they are decoded; segments of later windows are held back until every earlier window has completed. A segment
+ * whose midpoint lies before the end of the last published segment repeats audio of an overlapping window and is
+ * dropped. Times are converted with {@code toSourceMs}, e.g. to undo silence trimming.
+ * </p>
+ */
+final class SegmentCollector {
+
+    private final Consumer<WhisperSegment> listener;
+    private final LongUnaryOperator toSourceMs;
+    private final List<List<WhisperSegment>> pending;
+    private final boolean[] completed;
+    private final List<WhisperSegment> published = new ArrayList<>();
+    private int head;
+    private int headPublished;
+
+    /**
+     * @param windows    number of windows
+     * @param listener   receives segments in order as they become final, may be null
+     * @param toSourceMs maps a time of the decoded audio to the recording's timeline
+     */
+    SegmentCollector(int windows, Consumer<WhisperSegment> listener, LongUnaryOperator toSourceMs) {
+        this.listener = listener;
+        this.toSourceMs = toSourceMs;
+        this.pending = new ArrayList<>(windows);
+        for (int i = 0; i < windows; i++) {
+            pending.add(new ArrayList<>());
+        }
+        this.completed = new boolean[windows];
+    }
+
+    /**
+     * Adds a segment decoded from a window.
+     *
+     * @param window  window index
+     * @param startMs start within the decoded audio
+     * @param endMs   end within the decoded audio
+     * @param text    segment text
+     */
+    synchronized void add(int window, long startMs, long endMs, String text) {
+        String sentence = text == null ? "" : text.trim();
+        if (sentence.isEmpty()) {
+            return;
+        }
+        pending.get(window).add(new WhisperSegment(toSourceMs.applyAsLong(startMs), toSourceMs.applyAsLong(endMs), sentence));
+        if (window == head) {
+            publishHead();
+        }
+    }
+
+    /**
+     * Marks a window as fully decoded, releasing the held back segments of the following windows.
+     *
+     * @param window window index
+     */
+    synchronized void complete(int window) {
+        completed[window] = true;
+        while (head < completed.length && completed[head]) {
+            publishHead();
+            head++;
+            headPublished = 0;
+        }
+        if (head < completed.length) {
+            publishHead();
+        }
+    }
+
+    /**
+     * @return published segments in timeline order
+     */
+    synchronized List<WhisperSegment> segments() {
+        return Collections.unmodifiableList(new ArrayList<>(published));
+    }
+
+    private void publishHead() {
+        List<WhisperSegment> segments = pending.get(head);
+        for (; headPublished < segments.size(); headPublished++) {
+            WhisperSegment segment = segments.get(headPublished);
+            if (!published.isEmpty() && (segment.getStart() + segment.getEnd()) / 2 < published.get(published.size() - 1).getEnd()) {
+                continue;
+            }
+            published.add(segment);
+            if (listener != null) {
+                listener.accept(segment);
+            }
+        }
+    }
+}
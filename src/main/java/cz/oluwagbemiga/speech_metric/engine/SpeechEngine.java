@@ -1,7 +1,14 @@
 package cz.oluwagbemiga.speech_metric.engine;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.oluwagbemiga.speech_metric.audio.VoiceActivityDetector;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.metrics.EditDistance;
+import cz.oluwagbemiga.speech_metric.metrics.WordAlignment;
+import cz.oluwagbemiga.speech_metric.metrics.WordErrorMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -9,6 +16,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /**
  * Base abstraction for speech recognition engines used in the application.
@@ -16,10 +25,13 @@ import java.nio.charset.StandardCharsets;
  * Implementations (e.g. {@link WhisperEngine}, {@link VoskEngine}) provide concrete
  * logic to transcribe audio and produce a {@link RecognitionResult}. This class
  * offers common utilities for WAV/PCM extraction, accuracy computation via
- * character error rate (CER) and helper normalization routines.
+ * character error rate (CER, see {@link EditDistance}) and helper normalization routines.
  * <p>
  * The expected input audio format for helper methods is a normalized WAV
  * container with PCM signed 16-bit little-endian, mono, 16 kHz samples.
+ * <p>
+ * When a {@link VoiceActivityDetector} is configured, {@link #extractSpeech(byte[])} removes long silences
+ * before the audio reaches the model; fully silent clips are answered with an empty transcript without inference.
  */
 @Slf4j
 @Getter
@@ -30,21 +42,46 @@ public abstract class SpeechEngine {
     protected final String pathToModel;
     protected final String rawModelName;
     protected final String name;
+    // Null when silence trimming is disabled
+    protected final VoiceActivityDetector voiceActivityDetector;
+    @Getter(AccessLevel.NONE)
+    private final Counter vadInputCounter;
+    @Getter(AccessLevel.NONE)
+    private final Counter vadSkippedCounter;
+    @Getter(AccessLevel.NONE)
+    private final Counter vadSilentCounter;
 
     /**
      * Constructs a speech engine with a path to the underlying model resources.
      * Derives a human friendly model name from the path.
      *
-     * @param pathToModel absolute or canonical path to model file/directory
+     * @param pathToModel           absolute or canonical path to model file/directory
+     * @param voiceActivityDetector detector trimming silence before inference, or null to pass audio unchanged
+     * @param meterRegistry         registry receiving silence trimming metrics
      */
-    protected SpeechEngine(String pathToModel) {
+    protected SpeechEngine(String pathToModel, VoiceActivityDetector voiceActivityDetector, MeterRegistry meterRegistry) {
         this.pathToModel = pathToModel;
         String normalizedPath = pathToModel.replace("\\", "/");
         this.rawModelName = normalizedPath
                 .substring(normalizedPath.lastIndexOf("/") + 1)
                 .replaceAll("\\.(bin|model)$", "");
         this.name = slugifyName(rawModelName);
-        log.info("Initialized SpeechEngine name={} rawModelName={} modelPath={}", name, rawModelName, this.pathToModel);
+        this.voiceActivityDetector = voiceActivityDetector;
+        this.vadInputCounter = Counter.builder("speech.vad.input")
+                .description("Audio inspected by voice activity detection before inference")
+                .baseUnit("seconds")
+                .tag("model", name)
+                .register(meterRegistry);
+        this.vadSkippedCounter = Counter.builder("speech.vad.skipped")
+                .description("Silent audio removed before inference")
+                .baseUnit("seconds")
+                .tag("model", name)
+                .register(meterRegistry);
+        this.vadSilentCounter = Counter.builder("speech.vad.silent.clips")
+                .description("Clips without speech answered without inference")
+                .tag("model", name)
+                .register(meterRegistry);
+        log.info("Initialized SpeechEngine name={} rawModelName={} modelPath={} vad={}", name, rawModelName, this.pathToModel, voiceActivityDetector != null);
     }
 
     /**
@@ -68,10 +105,71 @@ public abstract class SpeechEngine {
         return slug.isBlank() ? "model" : slug;
     }
 
+    /**
+     * Checksum of the model files backing this engine, used to invalidate cached transcripts
+     * when a model is replaced. Computed once, during model warm-up or on {@code executor} when first
+     * requested, see {@link ContentHash#modelChecksum(String, Executor)}.
+     *
+     * @param executor runs the computation if it has not been started yet
+     * @return lowercase hex checksum, or empty while it is being computed
+     */
+    public Optional<String> getModelChecksum(Executor executor) {
+        return ContentHash.modelChecksum(pathToModel, executor);
+    }
+
+    /**
+     * Stable description of the decoding parameters that influence the transcript.
+     * Two runs with equal audio, model checksum and signature are expected to produce the same text.
+     *
+     * @return decoding signature
+     */
+    public String getDecodingSignature() {
+        return "default";
+    }
+
+    /**
+     * Decoding signature of a run with the given profile. Engines that ignore profiles return
+     * {@link #getDecodingSignature()}.
+     *
+     * @param profile requested decoding profile
+     * @return decoding signature
+     */
+    public String getDecodingSignature(DecodingProfile profile) {
+        return getDecodingSignature();
+    }
+
+    /**
+     * Signature of everything besides audio and model that shapes the transcript of a run: the decoding
+     * signature plus the silence trimming settings when voice activity detection is enabled.
+     *
+     * @param profile requested decoding profile
+     * @return run signature
+     */
+    public final String getRunSignature(DecodingProfile profile) {
+        String decoding = getDecodingSignature(profile);
+        return voiceActivityDetector == null ? decoding : decoding + ";vad=" + voiceActivityDetector.signature();
+    }
+
+    /**
+     * @return true if the engine honours {@link RecognitionRequest#decodingProfile()}
+     */
+    public boolean supportsDecodingProfiles() {
+        return false;
+    }
+
+    /**
+     * Native model backing this engine, loaded and evicted by its {@link ModelManager}.
+     *
+     * @return registered model
+     */
+    public abstract NativeModel getNativeModel();
+
     /**
      * Performs recognition on the provided request and returns a populated result.
      * Implementations must handle transcription errors internally and still
-     * return a non-null {@link RecognitionResult} instance.
+     * return a non-null {@link RecognitionResult} instance. The result references the
+     * source audio file but is not added to its collection, so a single audio file may be
+     * processed by several engines concurrently; callers attach results in the order they need.
      *
      * @param recognitionRequest request containing audio and expected transcript
      * @return recognition result populated with recognized text and accuracy metrics
@@ -135,6 +233,29 @@ public abstract class SpeechEngine {
         return pcm;
     }
 
+    /**
+     * Extracts the PCM samples of a WAV container and, when voice activity detection is enabled,
+     * removes silent regions from them. Input and skipped durations are recorded as metrics.
+     *
+     * @param wav full WAV file bytes
+     * @return speech to transcribe; {@link VoiceActivityDetector.Speech#silent()} if the clip holds none
+     * @throws IOException if the WAV data is invalid, see {@link #extractPcmS16leMono16k(byte[])}
+     */
+    protected VoiceActivityDetector.Speech extractSpeech(byte[] wav) throws IOException {
+        byte[] pcm = extractPcmS16leMono16k(wav);
+        if (voiceActivityDetector == null) {
+            return VoiceActivityDetector.Speech.unfiltered(pcm);
+        }
+        VoiceActivityDetector.Speech speech = voiceActivityDetector.trim(pcm);
+        vadInputCounter.increment(speech.inputMs() / 1000.0);
+        vadSkippedCounter.increment(speech.skippedMs() / 1000.0);
+        if (speech.silent()) {
+            vadSilentCounter.increment();
+        }
+        log.debug("Voice activity detection model={} inputMs={} skippedMs={} silent={}", name, speech.inputMs(), speech.skippedMs(), speech.silent());
+        return speech;
+    }
+
     /**
      * Compare a sequence of bytes against an ASCII reference string.
      *
@@ -178,6 +299,41 @@ public abstract class SpeechEngine {
         return -1;
     }
 
+    /**
+     * Builds a result for the given request and transcript, computing the character-level accuracy
+     * and, when an expected transcript is present, the word-level error breakdown.
+     *
+     * @param request           source request
+     * @param recognizedText    transcript produced by the engine
+     * @param modelProcessingMs time spent in model inference
+     * @return populated, not yet persisted result
+     */
+    public RecognitionResult buildResult(RecognitionRequest request, String recognizedText, long modelProcessingMs) {
+        RecognitionResult result = new RecognitionResult();
+        result.setModelName(name);
+        result.setRecognizedText(recognizedText);
+        result.setExpectedText(request.expectedText());
+        result.setAccuracy(computeAccuracy(request.expectedText(), recognizedText));
+        result.setModelProcessingTimeMs(modelProcessingMs);
+        result.setAudioFile(request.audioFile());
+        result.setOwner(request.audioFile().getOwner());
+        if (supportsDecodingProfiles()) {
+            result.setDecodingProfile(request.decodingProfile().name());
+        }
+
+        WordErrorMetrics words = computeWordMetrics(request.expectedText(), recognizedText);
+        if (words != null) {
+            result.setWordErrorRate(words.wer());
+            result.setMatchErrorRate(words.mer());
+            result.setWordInformationLost(words.wil());
+            result.setWordSubstitutions(words.substitutions());
+            result.setWordDeletions(words.deletions());
+            result.setWordInsertions(words.insertions());
+            result.setReferenceWordCount(words.referenceWords());
+        }
+        return result;
+    }
+
     /**
      * Compute accuracy using Character Error Rate: 1 - (editDistance / expected length).
      * Returns 0 when expected is null/blank. Result is clamped to [0,1].
@@ -196,21 +352,50 @@ public abstract class SpeechEngine {
             log.debug("Accuracy short-circuit: expected blank after normalization original='{}'", expected);
             return 0.0d;
         }
-        // Remove any occurrences of the placeholder token (case-insensitive) inside the recognized text
-        if (recognized != null && recognized.toLowerCase().contains("[blank_audio]")) {
-            String original = recognized;
-            recognized = recognized.replaceAll("(?i)\\[blank_audio\\]", " "); // replace with space to preserve word boundaries
-            // collapse multiple spaces after removal
-            recognized = recognized.replaceAll("\\s+", " ").trim();
-            log.debug("Accuracy: stripped '[BLANK_AUDIO]' placeholders originalLen={} newLen={}", original.length(), recognized.length());
-        }
-        String rec = normalizeForCer(recognized == null ? "" : recognized);
-        int distance = levenshteinChars(exp, rec);
+        String rec = normalizeForCer(stripBlankAudio(recognized));
+        int distance = EditDistance.levenshtein(exp, rec);
         double acc = Math.max(0d, 1d - (double) distance / exp.length());
         log.debug("Computed accuracy distance={} expectedLen={} recognizedLen={} accuracy={}", distance, exp.length(), rec.length(), acc);
         return acc;
     }
 
+    /**
+     * Compute word-level metrics (WER, MER, WIL, S/D/I) with the same normalization as the CER.
+     *
+     * @param expected   ground-truth transcript
+     * @param recognized recognized transcript
+     * @return metrics, or null when expected is null/blank
+     */
+    protected WordErrorMetrics computeWordMetrics(String expected, String recognized) {
+        String exp = normalizeForCer(expected);
+        if (exp.isBlank()) {
+            return null;
+        }
+        WordErrorMetrics metrics = WordAlignment.align(exp, normalizeForCer(stripBlankAudio(recognized)));
+        log.debug("Computed word metrics wer={} mer={} wil={} S={} D={} I={} N={}", metrics.wer(), metrics.mer(), metrics.wil(), metrics.substitutions(), metrics.deletions(), metrics.insertions(), metrics.referenceWords());
+        return metrics;
+    }
+
+    /**
+     * Remove any occurrences of the Whisper placeholder token {@code [BLANK_AUDIO]} (case-insensitive).
+     *
+     * @param recognized recognized transcript (may be null)
+     * @return transcript without placeholders, never null
+     */
+    private String stripBlankAudio(String recognized) {
+        if (recognized == null) {
+            return "";
+        }
+        if (!recognized.toLowerCase().contains("[blank_audio]")) {
+            return recognized;
+        }
+        String stripped = recognized.replaceAll("(?i)\\[blank_audio\\]", " "); // replace with space to preserve word boundaries
+        // collapse multiple spaces after removal
+        stripped = stripped.replaceAll("\\s+", " ").trim();
+        log.debug("Accuracy: stripped '[BLANK_AUDIO]' placeholders originalLen={} newLen={}", recognized.length(), stripped.length());
+        return stripped;
+    }
+
     /**
      * Normalize a string for CER computation: lowercase, remove punctuation symbols
      * (question mark, period, comma, exclamation) and collapse whitespace.
@@ -226,35 +411,4 @@ public abstract class SpeechEngine {
                 .replaceAll("\\s+", " ");
     }
 
-    /**
-     * Compute the Levenshtein edit distance between two character sequences.
-     *
-     * @param a first string
-     * @param b second string
-     * @return edit distance
-     */
-    protected int levenshteinChars(String a, String b) {
-        int n = a.length();
-        int m = b.length();
-        if (n == 0) return m;
-        if (m == 0) return n;
-        int[][] dp = new int[n + 1][m + 1];
-        for (int i = 0; i <= n; i++) dp[i][0] = i;
-        for (int j = 0; j <= m; j++) dp[0][j] = j;
-        for (int i = 1; i <= n; i++) {
-            char ca = a.charAt(i - 1);
-            for (int j = 1; j <= m; j++) {
-                char cb = b.charAt(j - 1);
-                int cost = (ca == cb) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
-            }
-        }
-        int result = dp[n][m];
-        log.trace("Levenshtein computed n={} m={} distance={}", n, m, result);
-        return result;
-    }
-
 }
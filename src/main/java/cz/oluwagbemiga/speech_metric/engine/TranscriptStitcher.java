@@ -0,0 +1,72 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Joins the transcripts of consecutive audio windows into one transcript.
+ * <p>
+ * Windows cut inside continuous speech overlap, so the words spoken in the overlap usually appear at the end of one
+ * transcript and again at the start of the next. The longest run of words (up to {@value #MAX_OVERLAP_WORDS}) that
+ * ends the text so far and starts the next window is dropped from the next window; words are compared ignoring case
+ * and punctuation.
+ * </p>
+ */
+public final class TranscriptStitcher {
+
+    private static final int MAX_OVERLAP_WORDS = 12;
+
+    private TranscriptStitcher() {
+    }
+
+    /**
+     * Appends the transcript of the next window.
+     *
+     * @param text        transcript of the previous windows, may be empty
+     * @param next        transcript of the next window, may be null
+     * @param overlapping true if the next window overlaps the previous one
+     * @return joined transcript
+     */
+    public static String append(String text, String next, boolean overlapping) {
+        String addition = next == null ? "" : next.trim();
+        if (addition.isEmpty()) {
+            return text;
+        }
+        if (text.isEmpty()) {
+            return addition;
+        }
+        if (overlapping) {
+            String[] previousWords = text.split("\\s+");
+            String[] nextWords = addition.split("\\s+");
+            int repeated = repeatedWords(previousWords, nextWords);
+            if (repeated > 0) {
+                addition = String.join(" ", Arrays.copyOfRange(nextWords, repeated, nextWords.length));
+                if (addition.isEmpty()) {
+                    return text;
+                }
+            }
+        }
+        return text + " " + addition;
+    }
+
+    /**
+     * @return length of the longest suffix of {@code previous} that is also a prefix of {@code next}
+     */
+    private static int repeatedWords(String[] previous, String[] next) {
+        for (int length = Math.min(MAX_OVERLAP_WORDS, Math.min(previous.length, next.length)); length > 0; length--) {
+            boolean match = true;
+            for (int i = 0; i < length && match; i++) {
+                String a = normalize(previous[previous.length - length + i]);
+                match = !a.isEmpty() && a.equals(normalize(next[i]));
+            }
+            if (match) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}']", "");
+    }
+}
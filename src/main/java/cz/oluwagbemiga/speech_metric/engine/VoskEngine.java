@@ -1,21 +1,23 @@
 package cz.oluwagbemiga.speech_metric.engine;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import cz.oluwagbemiga.speech_metric.audio.VoiceActivityDetector;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.vosk.Model;
 import org.vosk.Recognizer;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SpeechEngine implementation using the Vosk offline speech recognition library.
  * <p>
- * A {@link Model} instance is cached per model path to prevent redundant loading
- * of large acoustic/language models. The engine exposes a uniform API identical
+ * The {@link Model} and its reusable {@link Recognizer} instances live in a {@link VoskRecognizerPool}
+ * shared per model path through a {@link ModelManager}, which loads the model on first use and may
+ * unload it while no recognition is running. The engine exposes a uniform API identical
  * to {@link WhisperEngine} for easy benchmarking.
  * <p>
  * Usage example:
@@ -27,36 +29,77 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class VoskEngine extends SpeechEngine {
 
-    private final Model model;
-    private static final Map<String, Model> MODEL_CACHE = new ConcurrentHashMap<>();
+    private static final int DEFAULT_MAX_IDLE_RECOGNIZERS = 4;
+
+    private final ModelManager modelManager;
+    private final VoskRecognizerPool recognizerPool;
 
     /**
-     * Constructs a VoskEngine, reusing a cached model when available.
+     * Constructs a VoskEngine with a default recognizer pool, no silence trimming and its own unbounded model manager.
      *
      * @param pathToModel absolute path to a Vosk model directory
-     * @throws IllegalStateException if the model fails to load
      */
     public VoskEngine(String pathToModel) {
-        super(pathToModel);
-        this.model = MODEL_CACHE.computeIfAbsent(pathToModel, p -> {
-            try {
-                log.info("Loading Vosk model path={}", p);
-                Model m = new Model(p);
-                log.info("Vosk model loaded path={}", p);
-                return m;
-            } catch (IOException e) {
-                throw new IllegalStateException("Failed to load Vosk model at path: " + p, e);
-            }
-        });
-        if (MODEL_CACHE.containsKey(pathToModel)) {
-            log.debug("Using cached Vosk model path={} name={}", pathToModel, name);
+        this(pathToModel, DEFAULT_MAX_IDLE_RECOGNIZERS, null, new ModelManager(0L, Metrics.globalRegistry), Metrics.globalRegistry);
+    }
+
+    /**
+     * Constructs a VoskEngine, registering (or reusing) the recognizer pool of its model.
+     * The model is loaded on the first recognition.
+     *
+     * @param pathToModel           absolute path to a Vosk model directory
+     * @param maxIdleRecognizers    maximum number of reset recognizers kept for reuse
+     * @param voiceActivityDetector detector trimming silence before inference, or null to disable
+     * @param modelManager          manager loading and evicting the model
+     * @param meterRegistry         registry receiving recognizer pool and silence trimming metrics
+     */
+    public VoskEngine(String pathToModel, int maxIdleRecognizers, VoiceActivityDetector voiceActivityDetector,
+                      ModelManager modelManager, MeterRegistry meterRegistry) {
+        super(pathToModel, voiceActivityDetector, meterRegistry);
+        this.modelManager = modelManager;
+        this.recognizerPool = modelManager.register(pathToModel,
+                () -> new VoskRecognizerPool(pathToModel, name, TARGET_SAMPLE_RATE, maxIdleRecognizers, meterRegistry));
+    }
+
+
+    @Override
+    public NativeModel getNativeModel() {
+        return recognizerPool;
+    }
+
+    /**
+     * Opens an incremental recognition session bound to a pooled recognizer of this model.
+     * The model stays loaded until the caller closes the session, which also returns the recognizer.
+     *
+     * @return new streaming session
+     * @throws IOException if a recognizer cannot be created
+     * @throws IllegalStateException if the model cannot be loaded
+     */
+    public VoskStreamSession openStream() throws IOException {
+        modelManager.acquire(recognizerPool);
+        try {
+            return new VoskStreamSession(name, recognizerPool, modelManager);
+        } catch (IOException | RuntimeException e) {
+            modelManager.release(recognizerPool);
+            throw e;
         }
     }
 
+    /**
+     * Vosk decodes with the graph and parameters baked into the model directory; only the
+     * input sample rate is set by this engine.
+     *
+     * @return decoding signature
+     */
+    @Override
+    public String getDecodingSignature() {
+        return "final_result;sample_rate=" + (int) TARGET_SAMPLE_RATE;
+    }
 
     /**
-     * Streams the audio to a Vosk Recognizer instance and produces a final transcription.
-     * Computes character-error-rate accuracy against the expected text.
+     * Feeds the audio to a pooled Vosk Recognizer instance and produces a final transcription.
+     * Computes character- and word-level error metrics against the expected text.
+     * Clips without speech get an empty transcript without running the model.
      *
      * @param request recognition request containing audio data and expected transcript
      * @return {@link RecognitionResult} containing recognized text and accuracy metrics
@@ -66,29 +109,23 @@ public class VoskEngine extends SpeechEngine {
         long startNanos = System.nanoTime();
         AudioFile audioFile = request.audioFile();
         log.debug("VoskEngine processAudio start audioFile={} dataBytes={}", audioFile.getId(), audioFile.getData() == null ? 0 : audioFile.getData().length);
-        String expected = request.expectedText();
         String recognizedText = "";
         long modelProcessingMs = 0L;
+        Long skippedSilenceMs = null;
         try {
-            long[] timeRef = new long[1];
+            long[] timeRef = new long[2];
             recognizedText = recognizeSpeechFromBytes(audioFile.getData(), timeRef);
             modelProcessingMs = timeRef[0];
+            if (voiceActivityDetector != null) {
+                skippedSilenceMs = timeRef[1];
+            }
         } catch (Exception e) {
             log.error("Vosk recognition failed for model '{}' and audioFile '{}'", name, audioFile.getId(), e);
         }
-        double accuracy = computeAccuracy(expected, recognizedText);
+        RecognitionResult result = buildResult(request, recognizedText, modelProcessingMs);
+        result.setSkippedSilenceMs(skippedSilenceMs);
         long totalElapsedMs = (System.nanoTime() - startNanos) / 1_000_000L;
-        log.info("VoskEngine finished audioFile={} model={} chars={} accuracy={} timeMs={} modelOnlyMs={}", audioFile.getId(), name, recognizedText.length(), accuracy, totalElapsedMs, modelProcessingMs);
-
-        RecognitionResult result = new RecognitionResult();
-        result.setModelName(name);
-        result.setRecognizedText(recognizedText);
-        result.setExpectedText(expected);
-        result.setAccuracy(accuracy);
-        result.setModelProcessingTimeMs(modelProcessingMs);
-        result.setAudioFile(audioFile);
-        result.setOwner(audioFile.getOwner());
-        audioFile.getRecognitionResults().add(result);
+        log.info("VoskEngine finished audioFile={} model={} chars={} accuracy={} wer={} timeMs={} modelOnlyMs={}", audioFile.getId(), name, recognizedText.length(), result.getAccuracy(), result.getWordErrorRate(), totalElapsedMs, modelProcessingMs);
         return result;
     }
 
@@ -98,51 +135,61 @@ public class VoskEngine extends SpeechEngine {
      * Falls back to raw JSON if parsing of the recognizer output fails.
      */
     private String recognizeSpeechFromBytes(byte[] data) throws IOException {
-        long[] timeRef = new long[1];
+        long[] timeRef = new long[2];
         return recognizeSpeechFromBytes(data, timeRef);
     }
 
+    /**
+     * @param timeRef receives the model time in ms at index 0 and, if long enough, the skipped silence in ms at index 1
+     */
     private String recognizeSpeechFromBytes(byte[] data, long[] timeRef) throws IOException {
         if (data == null || data.length == 0) {
             throw new IOException("Empty audio data");
         }
-        byte[] pcm = extractPcmS16leMono16k(data);
-        if (pcm.length == 0) {
-            throw new IOException("No PCM audio extracted");
+        VoiceActivityDetector.Speech speech = extractSpeech(data);
+        if (timeRef != null && timeRef.length > 1) {
+            timeRef[1] = speech.skippedMs();
         }
+        if (speech.silent()) {
+            log.info("No speech detected, skipping inference model={} inputMs={}", name, speech.inputMs());
+            return "";
+        }
+        byte[] pcm = speech.pcm();
         int total = pcm.length;
         log.debug("Starting Vosk streaming recognition pcmBytes={} model={}", total, name);
+        modelManager.acquire(recognizerPool);
+        // Started after acquire: loading the model is recorded by the model manager's load timer, not as model time
         long modelStart = System.nanoTime();
-        try (Recognizer recognizer = new Recognizer(model, TARGET_SAMPLE_RATE)) {
-            int chunkSize = 4096;
-            byte[] buffer = new byte[chunkSize];
-            int offset = 0;
-            int chunkCount = 0;
-            while (offset < total) {
-                int len = Math.min(chunkSize, total - offset);
-                System.arraycopy(pcm, offset, buffer, 0, len);
-                recognizer.acceptWaveForm(buffer, len);
-                offset += len;
-                chunkCount++;
-            }
-            long modelMs = (System.nanoTime() - modelStart) / 1_000_000L;
-            if (timeRef != null && timeRef.length > 0) {
-                timeRef[0] = modelMs;
-            }
-            int lastChunkSize = total % chunkSize == 0 ? chunkSize : total % chunkSize;
-            log.trace("Vosk streaming complete chunks={} lastChunkSize={} totalBytes={} model={} modelMs={}", chunkCount, lastChunkSize, total, name, modelMs);
-            String json = recognizer.getFinalResult();
+        String json;
+        try {
+            Recognizer recognizer = recognizerPool.borrow();
             try {
-                JsonNode node = OBJECT_MAPPER.readTree(json);
-                String text = node.path("text").asText("");
-                if (text.isEmpty()) {
-                    log.info("Recognizer returned empty text for model '{}'", name);
-                }
-                return text;
-            } catch (Exception e) {
-                log.warn("Failed to parse recognizer JSON, returning raw", e);
-                return json;
+                // Vosk buffers internally, so the whole PCM block is handed over in one call without staging copies
+                recognizer.acceptWaveForm(pcm, total);
+                json = recognizer.getFinalResult();
+            } catch (RuntimeException e) {
+                recognizerPool.discard(recognizer);
+                throw e;
             }
+            recognizerPool.release(recognizer);
+        } finally {
+            modelManager.release(recognizerPool);
+        }
+        long modelMs = (System.nanoTime() - modelStart) / 1_000_000L;
+        if (timeRef != null && timeRef.length > 0) {
+            timeRef[0] = modelMs;
+        }
+        log.trace("Vosk recognition complete totalBytes={} model={} modelMs={}", total, name, modelMs);
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(json);
+            String text = node.path("text").asText("");
+            if (text.isEmpty()) {
+                log.info("Recognizer returned empty text for model '{}'", name);
+            }
+            return text;
+        } catch (Exception e) {
+            log.warn("Failed to parse recognizer JSON, returning raw", e);
+            return json;
         }
     }
 }
@@ -0,0 +1,213 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Pool of reusable Vosk {@link Recognizer} instances bound to a single {@link Model}.
+ * <p>
+ * The pool owns the model as a {@link NativeModel}: {@link ModelManager} loads it on first use and
+ * may {@link #unload()} it, together with the idle recognizers, while no recognizer is borrowed.
+ * <p>
+ * Creating a recognizer allocates decoder graphs and feature pipelines in native memory,
+ * which is a noticeable share of wall time for short clips. Recognizers are therefore
+ * reset and kept idle between requests. The pool never blocks: when no idle recognizer
+ * is available a new one is created, and at most {@code maxIdle} are retained on return.
+ * <p>
+ * Hits, misses, reset time and idle count are published as Micrometer meters tagged with
+ * the model name.
+ */
+@Slf4j
+public class VoskRecognizerPool implements NativeModel, AutoCloseable {
+
+    @Getter
+    private final String modelPath;
+    @Getter
+    private final String modelName;
+    @Getter
+    private final float sampleRate;
+
+    private volatile Model model;
+    private final int maxIdle;
+    private final BlockingDeque<Recognizer> idle = new LinkedBlockingDeque<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer resetTimer;
+
+    /**
+     * Creates an empty pool; the model is not read until {@link #load()}.
+     *
+     * @param modelPath     path to the Vosk model directory shared by all recognizers
+     * @param modelName     engine name used for logging and metric tags
+     * @param sampleRate    input sample rate of the recognizers
+     * @param maxIdle       maximum number of idle recognizers retained
+     * @param meterRegistry registry receiving pool metrics
+     */
+    public VoskRecognizerPool(String modelPath, String modelName, float sampleRate, int maxIdle, MeterRegistry meterRegistry) {
+        this.modelPath = modelPath;
+        this.modelName = modelName;
+        this.sampleRate = sampleRate;
+        this.maxIdle = Math.max(0, maxIdle);
+
+        this.hitCounter = Counter.builder("speech.vosk.pool.hits")
+                .description("Recognizer borrows served by an idle pooled instance")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("speech.vosk.pool.misses")
+                .description("Recognizer borrows that had to create a new instance")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        this.resetTimer = Timer.builder("speech.vosk.pool.reset")
+                .description("Time spent resetting a recognizer before returning it to the pool")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        Gauge.builder("speech.vosk.pool.idle", idle, BlockingDeque::size)
+                .description("Idle recognizers retained in the pool")
+                .tag("model", modelName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A loaded Vosk model maps roughly the whole model directory into memory; recognizers add
+     * decoder state on top, which is not counted.
+     *
+     * @return total size of the files in the model directory
+     */
+    @Override
+    public long estimateFootprintBytes() {
+        try (Stream<Path> files = Files.walk(Path.of(modelPath))) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Loads the Vosk model from its directory.
+     *
+     * @throws IllegalStateException if the model fails to load
+     */
+    @Override
+    public void load() {
+        if (model != null) {
+            return;
+        }
+        try {
+            log.info("Loading Vosk model path={}", modelPath);
+            model = new Model(modelPath);
+            log.info("Vosk model loaded path={}", modelPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load Vosk model at path: " + modelPath, e);
+        }
+    }
+
+    /**
+     * Closes the idle recognizers and the model. Must not be called while recognizers are borrowed.
+     */
+    @Override
+    public void unload() {
+        close();
+        Model loaded = model;
+        model = null;
+        if (loaded != null) {
+            loaded.close();
+            log.info("Vosk model unloaded model={}", modelName);
+        }
+    }
+
+    /**
+     * Borrows a recognizer, reusing an idle one when available.
+     * The caller must hand it back via {@link #release(Recognizer)} or {@link #discard(Recognizer)}.
+     *
+     * @return recognizer ready to accept audio
+     * @throws IOException if a new recognizer cannot be created
+     * @throws IllegalStateException if the model has not been loaded
+     */
+    public Recognizer borrow() throws IOException {
+        Recognizer recognizer = idle.pollFirst();
+        if (recognizer != null) {
+            hitCounter.increment();
+            return recognizer;
+        }
+        missCounter.increment();
+        Model loaded = model;
+        if (loaded == null) {
+            throw new IllegalStateException("Vosk model not loaded model=" + modelName);
+        }
+        log.debug("Creating new Vosk recognizer model={}", modelName);
+        return new Recognizer(loaded, sampleRate);
+    }
+
+    /**
+     * Resets a recognizer and returns it to the pool, or closes it if the pool is full.
+     *
+     * @param recognizer recognizer obtained from {@link #borrow()}
+     */
+    public void release(Recognizer recognizer) {
+        if (recognizer == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            recognizer.reset();
+        } catch (Exception e) {
+            log.warn("Failed to reset Vosk recognizer model={}; discarding it", modelName, e);
+            discard(recognizer);
+            return;
+        } finally {
+            resetTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (idle.size() >= maxIdle || !idle.offerFirst(recognizer)) {
+            recognizer.close();
+        }
+    }
+
+    /**
+     * Closes a recognizer that must not be reused (e.g. after a native failure).
+     *
+     * @param recognizer recognizer obtained from {@link #borrow()}
+     */
+    public void discard(Recognizer recognizer) {
+        if (recognizer == null) {
+            return;
+        }
+        try {
+            recognizer.close();
+        } catch (Exception e) {
+            log.debug("Ignoring Vosk recognizer close failure model={}", modelName, e);
+        }
+    }
+
+    /**
+     * Closes every idle recognizer. The underlying model is not closed.
+     */
+    @Override
+    public void close() {
+        Recognizer recognizer;
+        while ((recognizer = idle.pollFirst()) != null) {
+            discard(recognizer);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+
+/**
+ * Incremental recognition session holding one pooled Vosk {@link Recognizer} for its whole lifetime.
+ * <p>
+ * Audio is pushed as raw PCM s16le mono 16 kHz frames via {@link #accept(byte[], int)}; each call
+ * returns either the current partial hypothesis or, when Vosk detects an utterance endpoint, the
+ * final text of that utterance. A session is not thread-safe and must be fed by one thread at a time.
+ * The session holds its model through the {@link ModelManager} so it cannot be evicted mid-stream;
+ * closing the session returns the recognizer to the pool and releases the model.
+ */
+@Slf4j
+public class VoskStreamSession implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Hypothesis produced after a chunk of audio.
+     *
+     * @param text    recognized text (partial or final)
+     * @param isFinal true when the text is the final result of a completed utterance
+     */
+    public record Hypothesis(String text, boolean isFinal) {
+    }
+
+    @Getter
+    private final String modelName;
+    private final VoskRecognizerPool pool;
+    private final ModelManager modelManager;
+    private final Recognizer recognizer;
+    private boolean failed;
+    private boolean closed;
+
+    VoskStreamSession(String modelName, VoskRecognizerPool pool, ModelManager modelManager) throws IOException {
+        this.modelName = modelName;
+        this.pool = pool;
+        this.modelManager = modelManager;
+        this.recognizer = pool.borrow();
+    }
+
+    /**
+     * Feeds a chunk of PCM audio to the recognizer.
+     *
+     * @param pcm    PCM s16le mono 16 kHz bytes
+     * @param length number of valid bytes in {@code pcm}
+     * @return final hypothesis if an utterance ended inside this chunk, partial hypothesis otherwise
+     */
+    public Hypothesis accept(byte[] pcm, int length) {
+        ensureOpen();
+        try {
+            if (recognizer.acceptWaveForm(pcm, length)) {
+                return new Hypothesis(parse(recognizer.getResult(), "text"), true);
+            }
+            return new Hypothesis(parse(recognizer.getPartialResult(), "partial"), false);
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes buffered audio and returns the final text of the pending utterance.
+     * The session stays usable for further audio afterwards.
+     *
+     * @return final hypothesis
+     */
+    public Hypothesis finish() {
+        ensureOpen();
+        try {
+            return new Hypothesis(parse(recognizer.getFinalResult(), "text"), true);
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the recognizer to the pool, or discards it after a native failure, and releases the model. Idempotent.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failed) {
+                pool.discard(recognizer);
+            } else {
+                pool.release(recognizer);
+            }
+        } finally {
+            modelManager.release(pool);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Vosk stream session already closed model=" + modelName);
+        }
+    }
+
+    private String parse(String json, String field) {
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(json);
+            return node.path(field).asText("");
+        } catch (Exception e) {
+            log.warn("Failed to parse streaming recognizer JSON model={}", modelName, e);
+            return "";
+        }
+    }
+}
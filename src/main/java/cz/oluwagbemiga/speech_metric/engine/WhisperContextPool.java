@@ -0,0 +1,236 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import cz.oluwagbemiga.speech_metric.exception.EngineBusyException;
+import io.github.ggerganov.whispercpp.WhisperCpp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of native {@link WhisperCpp} contexts loaded from the same model file.
+ * <p>
+ * A whisper.cpp context is not safe for concurrent use, so each in-flight transcription
+ * borrows an exclusive context and returns it when done. The pool size is therefore also
+ * the per-model concurrency limit. Contexts are created lazily up to {@code size}; every
+ * context holds its own copy of the model weights in native memory.
+ * <p>
+ * The pool is a {@link NativeModel}: {@link ModelManager} loads the first context on first use and
+ * may {@link #unload()} the whole pool while no context is borrowed.
+ * <p>
+ * Callers that cannot obtain a context within {@code maxWait} receive an
+ * {@link EngineBusyException}. Wait time, timeouts and utilisation are published as
+ * Micrometer meters tagged with the model name.
+ */
+@Slf4j
+public class WhisperContextPool implements NativeModel, AutoCloseable {
+
+    @Getter
+    private final String modelPath;
+    @Getter
+    private final String modelName;
+    @Getter
+    private final int size;
+    @Getter
+    private final Duration maxWait;
+
+    private final BlockingQueue<WhisperCpp> idle;
+    private final List<WhisperCpp> contexts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    /**
+     * Creates an empty pool; no context is loaded until {@link #load()} or {@link #borrow()}.
+     *
+     * @param modelPath     absolute path to the ggml model file
+     * @param modelName     engine name used for logging and metric tags
+     * @param size          maximum number of contexts (and concurrent transcriptions), at least 1
+     * @param maxWait       maximum time a caller waits for a free context
+     * @param meterRegistry registry receiving pool metrics
+     */
+    public WhisperContextPool(String modelPath, String modelName, int size, Duration maxWait, MeterRegistry meterRegistry) {
+        this.modelPath = modelPath;
+        this.modelName = modelName;
+        this.size = Math.max(1, size);
+        this.maxWait = maxWait;
+        this.idle = new ArrayBlockingQueue<>(this.size, true);
+
+        this.waitTimer = Timer.builder("speech.whisper.pool.wait")
+                .description("Time spent waiting to borrow a Whisper context")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("speech.whisper.pool.timeouts")
+                .description("Borrow attempts that gave up after the configured wait timeout")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        Gauge.builder("speech.whisper.pool.active", active, AtomicInteger::get)
+                .description("Whisper contexts currently borrowed")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        Gauge.builder("speech.whisper.pool.waiting", waiting, AtomicInteger::get)
+                .description("Callers currently queued for a Whisper context")
+                .tag("model", modelName)
+                .register(meterRegistry);
+        Gauge.builder("speech.whisper.pool.size", created, AtomicInteger::get)
+                .description("Whisper contexts loaded in the pool")
+                .tag("model", modelName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Every context loads the whole model file, so a full pool holds about {@code size} copies of it.
+     *
+     * @return model file size times pool size
+     */
+    @Override
+    public long estimateFootprintBytes() {
+        try {
+            return Files.size(Path.of(modelPath)) * size;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Loads the first context so that an invalid model path fails before any caller waits on the pool.
+     *
+     * @throws IllegalStateException if the model cannot be loaded
+     */
+    @Override
+    public void load() {
+        if (created.get() == 0) {
+            WhisperCpp first = tryCreate();
+            if (first != null) {
+                idle.offer(first);
+            }
+        }
+        log.info("Whisper context pool ready model={} size={} maxWaitMs={}", modelName, size, maxWait.toMillis());
+    }
+
+    /**
+     * Frees every context; the pool reloads them on demand afterwards.
+     */
+    @Override
+    public void unload() {
+        close();
+    }
+
+    /**
+     * Borrows an exclusive context, loading a new one if the pool has not reached its size yet.
+     * The caller must hand it back via {@link #release(WhisperCpp)}.
+     *
+     * @return borrowed context
+     * @throws EngineBusyException if no context becomes free within {@link #getMaxWait()}
+     * @throws IOException         if the waiting thread is interrupted
+     */
+    public WhisperCpp borrow() throws IOException {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            WhisperCpp ctx = idle.poll();
+            if (ctx == null) {
+                ctx = tryCreate();
+            }
+            if (ctx == null) {
+                log.debug("All Whisper contexts busy model={} size={}; waiting up to {} ms", modelName, size, maxWait.toMillis());
+                ctx = idle.poll(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (ctx == null) {
+                timeoutCounter.increment();
+                log.warn("Timed out waiting for Whisper context model={} waitMs={}", modelName, maxWait.toMillis());
+                throw new EngineBusyException(modelName, maxWait);
+            }
+            active.incrementAndGet();
+            return ctx;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for Whisper context", e);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns a previously borrowed context to the pool.
+     *
+     * @param ctx context obtained from {@link #borrow()}
+     */
+    public void release(WhisperCpp ctx) {
+        if (ctx == null) {
+            return;
+        }
+        active.decrementAndGet();
+        if (!idle.offer(ctx)) {
+            log.warn("Whisper context returned to a full pool model={}; closing it", modelName);
+            contexts.remove(ctx);
+            created.decrementAndGet();
+            ctx.close();
+        }
+    }
+
+    /**
+     * Loads a new context if the pool is below its size limit.
+     *
+     * @return new context, or null when the pool is already full
+     */
+    private WhisperCpp tryCreate() {
+        if (created.incrementAndGet() > size) {
+            created.decrementAndGet();
+            return null;
+        }
+        WhisperCpp w = new WhisperCpp();
+        try {
+            long start = System.nanoTime();
+            log.info("Loading Whisper model context path={} slot={}/{}", modelPath, created.get(), size);
+            w.initContext(modelPath);
+            log.info("Whisper model loaded path={} timeMs={}", modelPath, (System.nanoTime() - start) / 1_000_000L);
+            contexts.add(w);
+            return w;
+        } catch (IOException e) {
+            created.decrementAndGet();
+            // Ensure native context is cleaned up on failure
+            try {
+                w.close();
+            } catch (Exception closeEx) {
+                log.debug("Ignoring Whisper context close failure after init error", closeEx);
+            }
+            throw new IllegalStateException("Failed to load Whisper model at path: " + modelPath, e);
+        }
+    }
+
+    /**
+     * Frees every native context owned by the pool.
+     */
+    @Override
+    public void close() {
+        for (WhisperCpp ctx : contexts) {
+            try {
+                ctx.close();
+            } catch (Exception e) {
+                log.debug("Ignoring Whisper context close failure model={}", modelName, e);
+            }
+        }
+        contexts.clear();
+        idle.clear();
+        created.set(0);
+        log.info("Whisper context pool closed model={}", modelName);
+    }
+}
@@ -1,23 +1,49 @@
 package cz.oluwagbemiga.speech_metric.engine;
 
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import cz.oluwagbemiga.speech_metric.audio.VoiceActivityDetector;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.exception.EngineBusyException;
 import io.github.ggerganov.whispercpp.WhisperCpp;
+import io.github.ggerganov.whispercpp.WhisperCppJnaLibrary;
+import io.github.ggerganov.whispercpp.callbacks.WhisperNewSegmentCallback;
 import io.github.ggerganov.whispercpp.params.WhisperFullParams;
 import io.github.ggerganov.whispercpp.params.WhisperSamplingStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * SpeechEngine implementation backed by the native {@code whisper.cpp} library.
  * <p>
  * This engine mirrors the semantics of {@link VoskEngine} so that callers can
- * switch engines transparently when evaluating recognition quality. A single
- * native Whisper context is cached per model path to avoid re-loading large
- * model binaries in memory for multiple engine instances.
+ * switch engines transparently when evaluating recognition quality. A
+ * {@link WhisperContextPool} is shared per model path through a {@link ModelManager}, which loads
+ * it on the first transcription and may unload it while idle; each transcription borrows
+ * an exclusive native context from it, so the pool size bounds per-model concurrency.
+ * <p>
+ * Recordings longer than the configured {@link WindowedTranscription} window are split into windows that are
+ * transcribed in parallel on several contexts and joined in order by {@link TranscriptStitcher}.
+ * <p>
+ * Besides the text, every run yields timestamped {@link WhisperSegment}s on the timeline of the untrimmed input;
+ * they are stored with the result and passed to the request's segment listener while decoding progresses.
  * <p>
  * Typical usage:
  * <pre>
@@ -28,45 +54,81 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class WhisperEngine extends SpeechEngine {
 
-    // Whisper context cached per model path to allow multiple engines with shared models
-    private static final Map<String, WhisperCpp> CTX_CACHE = new ConcurrentHashMap<>();
+    private static final int DEFAULT_POOL_SIZE = 1;
+    private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+    // Untouched library defaults per sampling strategy; the struct of a context keeps whatever the last run set
+    private static final Map<WhisperSamplingStrategy, WhisperFullParams> LIBRARY_DEFAULTS = new ConcurrentHashMap<>();
 
-    private final WhisperCpp whisper;
+    private final ModelManager modelManager;
+    private final WhisperContextPool pool;
+    private final WindowedTranscription windowing;
 
     /**
-     * Creates a new WhisperEngine and initializes (or reuses) a native Whisper context.
+     * Creates a new WhisperEngine with a single-context pool, a default wait timeout, no silence trimming or
+     * splitting and its own unbounded model manager.
      *
      * @param pathToModel absolute path to the Whisper ggml model file (e.g. {@code ggml-base.en.bin})
-     * @throws IllegalStateException if the model cannot be loaded
      */
     public WhisperEngine(String pathToModel) {
-        super(pathToModel);
+        this(pathToModel, DEFAULT_POOL_SIZE, DEFAULT_MAX_WAIT, null, WindowedTranscription.DISABLED, new ModelManager(0L, Metrics.globalRegistry), Metrics.globalRegistry);
+    }
 
-        this.whisper = CTX_CACHE.computeIfAbsent(pathToModel, p -> {
-            WhisperCpp w = new WhisperCpp();
-            try {
-                log.info("Loading Whisper model context path={}", p);
-                w.initContext(p);
-                log.info("Whisper model loaded path={}", p);
-                return w;
-            } catch (IOException e) {
-                // Ensure native context is cleaned up on failure
-                try {
-                    w.close();
-                } catch (Exception closeEx) {
-                    log.debug("Ignoring Whisper context close failure after init error", closeEx);
-                }
-                throw new IllegalStateException("Failed to load Whisper model at path: " + p, e);
-            }
-        });
-        if (CTX_CACHE.containsKey(pathToModel)) {
-            log.debug("Using cached Whisper context for model={}", name);
-        }
+    /**
+     * Creates a new WhisperEngine and registers (or reuses) a pool of native Whisper contexts.
+     * The model is loaded on the first transcription.
+     *
+     * @param pathToModel           absolute path to the Whisper ggml model file (e.g. {@code ggml-base.en.bin})
+     * @param poolSize              number of contexts, i.e. maximum concurrent transcriptions for this model
+     * @param maxWait               maximum time a request waits for a free context before failing
+     * @param voiceActivityDetector detector trimming silence before inference, or null to disable
+     * @param windowing             splitting of long recordings into parallel windows
+     * @param modelManager          manager loading and evicting the context pool
+     * @param meterRegistry         registry receiving pool and silence trimming metrics
+     */
+    public WhisperEngine(String pathToModel, int poolSize, Duration maxWait, VoiceActivityDetector voiceActivityDetector,
+                         WindowedTranscription windowing, ModelManager modelManager, MeterRegistry meterRegistry) {
+        super(pathToModel, voiceActivityDetector, meterRegistry);
+        this.modelManager = modelManager;
+        this.windowing = windowing;
+        this.pool = modelManager.register(pathToModel,
+                () -> new WhisperContextPool(pathToModel, name, poolSize, maxWait, meterRegistry));
     }
 
 
+    @Override
+    public NativeModel getNativeModel() {
+        return pool;
+    }
+
+    /**
+     * Signature of {@link DecodingProfile#DEFAULT}: beam search with temperature fallback.
+     *
+     * @return decoding signature
+     */
+    @Override
+    public String getDecodingSignature() {
+        return getDecodingSignature(DecodingProfile.DEFAULT);
+    }
+
+    /**
+     * Profile parameters plus the window settings, which change how long recordings are decoded.
+     *
+     * @param profile requested decoding profile
+     * @return decoding signature
+     */
+    @Override
+    public String getDecodingSignature(DecodingProfile profile) {
+        return profile.signature() + windowing.signature();
+    }
+
+    @Override
+    public boolean supportsDecodingProfiles() {
+        return true;
+    }
+
     /**
      * Performs full transcription of the audio in the provided request and computes accuracy.
+     * Clips without speech get an empty transcript without running the model.
      *
      * @param request recognition request containing audio bytes and expected text
      * @return populated {@link RecognitionResult} including recognized text and CER-based accuracy
@@ -76,65 +138,232 @@ public class WhisperEngine extends SpeechEngine {
         long startNanos = System.nanoTime();
         AudioFile audioFile = request.audioFile();
         log.debug("WhisperEngine processAudio start audioFile={} dataBytes={}", audioFile.getId(), audioFile.getData() == null ? 0 : audioFile.getData().length);
-        String expected = request.expectedText();
         String recognizedText;
+        List<WhisperSegment> segments = null;
         long modelProcessingMs = 0L;
+        Long skippedSilenceMs = null;
         try {
-            float[] samples = toPcmMono16kFloat(audioFile.getData());
-            log.trace("Converted WAV to float samples count={}", samples.length);
-            long modelStart = System.nanoTime();
-            recognizedText = transcribe(samples);
-            modelProcessingMs = (System.nanoTime() - modelStart) / 1_000_000L;
+            if (audioFile.getData() == null || audioFile.getData().length == 0) throw new IOException("Empty audio data");
+            VoiceActivityDetector.Speech speech = extractSpeech(audioFile.getData());
+            if (voiceActivityDetector != null) {
+                skippedSilenceMs = speech.skippedMs();
+            }
+            if (speech.silent()) {
+                log.info("No speech detected, skipping inference audioFile={} model={} inputMs={}", audioFile.getId(), name, speech.inputMs());
+                recognizedText = "";
+                segments = List.of();
+            } else {
+                Transcript transcript = transcribe(speech, request.decodingProfile(), request.segmentListener());
+                recognizedText = transcript.text();
+                segments = transcript.segments();
+                modelProcessingMs = transcript.modelMs();
+            }
+        } catch (EngineBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Whisper recognition failed for model '{}' and audioFile '{}'", name, audioFile.getId(), e);
             recognizedText = ""; // fallback to empty string on failure
         }
-        double accuracy = computeAccuracy(expected, recognizedText);
+        RecognitionResult result = buildResult(request, recognizedText, modelProcessingMs);
+        result.setSkippedSilenceMs(skippedSilenceMs);
+        result.setSegments(segments);
         long totalElapsedMs = (System.nanoTime() - startNanos) / 1_000_000L;
-        log.info("WhisperEngine finished audioFile={} model={} chars={} accuracy={} timeMs={} modelOnlyMs={}", audioFile.getId(), name, recognizedText.length(), accuracy, totalElapsedMs, modelProcessingMs);
-
-        RecognitionResult result = new RecognitionResult();
-        result.setModelName(name);
-        result.setRecognizedText(recognizedText);
-        result.setExpectedText(expected);
-        result.setAccuracy(accuracy);
-        result.setModelProcessingTimeMs(modelProcessingMs);
-        result.setAudioFile(audioFile);
-        result.setOwner(audioFile.getOwner());
-        audioFile.getRecognitionResults().add(result);
+        log.info("WhisperEngine finished audioFile={} model={} profile={} chars={} accuracy={} wer={} timeMs={} modelOnlyMs={}", audioFile.getId(), name, request.decodingProfile().name(), recognizedText.length(), result.getAccuracy(), result.getWordErrorRate(), totalElapsedMs, modelProcessingMs);
         return result;
     }
 
     /**
-     * Runs a full Whisper transcription using beam search sampling.
+     * Runs a full Whisper transcription with the given decoding profile, on one context borrowed from the pool or,
+     * for recordings longer than the window, on several contexts in parallel.
+     * The pool is held through the model manager for the duration, which loads it if needed and keeps it from being evicted.
      *
-     * @param samples PCM mono 16 kHz float samples in range [-1, 1]
-     * @return recognized text from the Whisper model
+     * @param speech   speech to transcribe
+     * @param profile  decoding parameters
+     * @param listener receives segments in order while they are decoded, may be null
+     * @return recognized text, its segments on the timeline of the untrimmed input and the model time, which leaves
+     * out loading the model (recorded by the model manager's load timer)
      * @throws IOException if samples are empty or transcription fails at native level
      */
-    private String transcribe(float[] samples) throws IOException {
-        if (samples == null || samples.length == 0) {
+    private Transcript transcribe(VoiceActivityDetector.Speech speech, DecodingProfile profile, Consumer<WhisperSegment> listener) throws IOException {
+        float[] samples = toFloatSamples(speech.pcm());
+        if (samples.length == 0) {
             throw new IOException("Empty audio samples");
         }
-        log.debug("Starting Whisper transcription samples={} model={}", samples.length, name);
-        WhisperFullParams params = whisper.getFullDefaultParams(WhisperSamplingStrategy.WHISPER_SAMPLING_BEAM_SEARCH);
-        params.temperature = 0.0f;
-        params.temperature_inc = 0.2f;
-        String text = whisper.fullTranscribe(params, samples);
-        log.debug("Completed Whisper transcription model={} textLength={}", name, text == null ? 0 : text.length());
+        List<VoiceActivityDetector.Window> windows = windowsOf(speech.pcm(), samples.length);
+        SegmentCollector segments = new SegmentCollector(windows.size(), listener, speech::sourceMs);
+        log.debug("Starting Whisper transcription samples={} windows={} model={}", samples.length, windows.size(), name);
+        modelManager.acquire(pool);
+        long modelStart = System.nanoTime();
+        String text;
+        try {
+            text = transcribeWindows(samples, windows, profile, segments);
+        } finally {
+            modelManager.release(pool);
+        }
+        long modelMs = (System.nanoTime() - modelStart) / 1_000_000L;
+        log.debug("Completed Whisper transcription model={} textLength={} segments={} modelMs={}", name, text.length(), segments.segments().size(), modelMs);
+        return new Transcript(text, segments.segments(), modelMs);
+    }
+
+    private List<VoiceActivityDetector.Window> windowsOf(byte[] pcm, int samples) {
+        long windowMs = windowing.window().toMillis();
+        if (!windowing.enabled() || samples <= windowMs * (long) TARGET_SAMPLE_RATE / 1000) {
+            return List.of(new VoiceActivityDetector.Window(0, samples, false));
+        }
+        int overlapMs = (int) windowing.overlap().toMillis();
+        return voiceActivityDetector != null
+                ? voiceActivityDetector.split(pcm, (int) windowMs, overlapMs)
+                : VoiceActivityDetector.splitEvenly(samples, (int) windowMs, overlapMs);
+    }
+
+    /**
+     * Transcribes the windows on up to {@link WindowedTranscription#parallelism()} contexts and joins the texts in order.
+     * The calling thread is one of the workers, so the windows complete even when no helper can be started or
+     * every other context is busy. Helpers are awaited before returning, so no context is used after the
+     * caller releases the model.
+     */
+    private String transcribeWindows(float[] samples, List<VoiceActivityDetector.Window> windows, DecodingProfile profile,
+                                     SegmentCollector segments) throws IOException {
+        int workers = Math.min(windows.size(), windowing.parallelism() > 0 ? windowing.parallelism() : pool.getSize());
+        String[] texts = new String[windows.size()];
+        AtomicInteger next = new AtomicInteger();
+        List<CompletableFuture<Void>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            try {
+                helpers.add(CompletableFuture.runAsync(() -> helpTranscribe(samples, windows, texts, next, profile, segments), windowing.executor()));
+            } catch (RejectedExecutionException e) {
+                log.debug("Window helper rejected model={}; continuing with {} workers", name, helpers.size() + 1);
+                break;
+            }
+        }
+        if (windows.size() > 1) {
+            log.info("Transcribing windows model={} windows={} workers={}", name, windows.size(), helpers.size() + 1);
+        }
+        try {
+            transcribeQueued(samples, windows, texts, next, profile, segments);
+        } catch (IOException | RuntimeException e) {
+            next.set(windows.size());
+            helpers.forEach(helper -> helper.exceptionally(ex -> null).join());
+            throw e;
+        }
+        for (CompletableFuture<Void> helper : helpers) {
+            try {
+                helper.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+                throw new IOException("Window transcription failed for model " + name, cause);
+            }
+        }
+        String text = "";
+        for (int i = 0; i < windows.size(); i++) {
+            text = TranscriptStitcher.append(text, texts[i], windows.get(i).overlapsPrevious());
+        }
         return text;
     }
 
     /**
-     * Converts a WAV (PCM s16le mono 16 kHz) byte array to normalized float samples [-1,1].
+     * Worker body of a helper thread. A helper that finds every context busy leaves the windows to the others.
+     */
+    private void helpTranscribe(float[] samples, List<VoiceActivityDetector.Window> windows, String[] texts,
+                                AtomicInteger next, DecodingProfile profile, SegmentCollector segments) {
+        try {
+            transcribeQueued(samples, windows, texts, next, profile, segments);
+        } catch (EngineBusyException e) {
+            log.debug("No free context for window helper model={}", name);
+        } catch (IOException e) {
+            next.set(windows.size());
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            next.set(windows.size());
+            throw e;
+        }
+    }
+
+    /**
+     * Borrows a context and transcribes the next unclaimed windows until none is left.
+     */
+    private void transcribeQueued(float[] samples, List<VoiceActivityDetector.Window> windows, String[] texts,
+                                  AtomicInteger next, DecodingProfile profile, SegmentCollector segments) throws IOException {
+        if (next.get() >= windows.size()) {
+            return;
+        }
+        WhisperCpp whisper = pool.borrow();
+        try {
+            int index;
+            while ((index = next.getAndIncrement()) < windows.size()) {
+                texts[index] = transcribeWindow(whisper, samples, windows.get(index), index, profile, segments);
+            }
+        } finally {
+            pool.release(whisper);
+        }
+    }
+
+    /**
+     * Transcribes one window, handing every segment to the collector as soon as whisper.cpp finalizes it.
+     */
+    private String transcribeWindow(WhisperCpp whisper, float[] samples, VoiceActivityDetector.Window window, int index,
+                                    DecodingProfile profile, SegmentCollector segments) throws IOException {
+        long offsetMs = window.startMs();
+        WhisperNewSegmentCallback onNewSegments = (ctx, state, newSegments, userData) -> {
+            WhisperCppJnaLibrary lib = WhisperCppJnaLibrary.instance;
+            int total = lib.whisper_full_n_segments(ctx);
+            for (int i = total - newSegments; i < total; i++) {
+                // Segment times are in 10 ms units, relative to the window
+                segments.add(index, offsetMs + lib.whisper_full_get_segment_t0(ctx, i) * 10,
+                        offsetMs + lib.whisper_full_get_segment_t1(ctx, i) * 10, lib.whisper_full_get_segment_text(ctx, i));
+            }
+        };
+        WhisperFullParams params = fullParams(whisper, profile);
+        params.setNewSegmentCallback(onNewSegments);
+        try {
+            return whisper.fullTranscribe(params, Arrays.copyOfRange(samples, window.fromSample(), window.toSample()));
+        } finally {
+            // Native code references the callback only weakly
+            Reference.reachabilityFence(onNewSegments);
+            segments.complete(index);
+        }
+    }
+
+    /**
+     * Takes the parameter struct of the context and assigns every value the profile controls, so nothing set by an
+     * earlier run with another profile remains.
+     *
+     * @param whisper context providing the parameters
+     * @param profile decoding parameters
+     * @return parameters for {@link WhisperCpp#fullTranscribe(WhisperFullParams, float[])}
+     */
+    private static WhisperFullParams fullParams(WhisperCpp whisper, DecodingProfile profile) {
+        WhisperSamplingStrategy strategy = profile.beamSearch()
+                ? WhisperSamplingStrategy.WHISPER_SAMPLING_BEAM_SEARCH
+                : WhisperSamplingStrategy.WHISPER_SAMPLING_GREEDY;
+        WhisperFullParams params = whisper.getFullDefaultParams(strategy);
+        profile.applyTo(params, LIBRARY_DEFAULTS.computeIfAbsent(strategy, WhisperEngine::readLibraryDefaults));
+        return params;
+    }
+
+    /**
+     * Reads the library defaults of a sampling strategy from a freshly allocated struct into memory owned by the JVM.
+     */
+    private static WhisperFullParams readLibraryDefaults(WhisperSamplingStrategy strategy) {
+        WhisperCppJnaLibrary lib = WhisperCppJnaLibrary.instance;
+        Pointer fresh = lib.whisper_full_default_params_by_ref(strategy.ordinal());
+        try {
+            WhisperFullParams defaults = new WhisperFullParams(new Memory(new WhisperFullParams(fresh).size()));
+            defaults.getPointer().write(0, fresh.getByteArray(0, defaults.size()), 0, defaults.size());
+            defaults.read();
+            return defaults;
+        } finally {
+            lib.whisper_free_params(fresh);
+        }
+    }
+
+    /**
+     * Converts PCM s16le mono 16 kHz bytes to normalized float samples [-1,1].
      *
-     * @param wav full WAV container bytes
+     * @param pcmBytes raw PCM bytes
      * @return float array of audio samples
-     * @throws IOException if the WAV data is invalid or empty
      */
-    private float[] toPcmMono16kFloat(byte[] wav) throws IOException {
-        if (wav == null || wav.length == 0) throw new IOException("Empty audio data");
-        byte[] pcmBytes = extractPcmS16leMono16k(wav);
+    private static float[] toFloatSamples(byte[] pcmBytes) {
         int samples = pcmBytes.length / 2; // 2 bytes per sample
         float[] out = new float[samples];
         for (int i = 0, s = 0; i + 1 < pcmBytes.length; i += 2, s++) {
@@ -146,4 +375,7 @@ public class WhisperEngine extends SpeechEngine {
         }
         return out;
     }
+
+    private record Transcript(String text, List<WhisperSegment> segments, long modelMs) {
+    }
 }
@@ -0,0 +1,42 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * How {@link WhisperEngine} splits long recordings into windows that are transcribed in parallel.
+ * <p>
+ * Audio longer than {@code window} is cut at pauses found by the engine's voice activity detector (or at fixed
+ * positions without one) into windows of at most {@code window}; windows cut inside speech overlap by
+ * {@code overlap}. Up to {@code parallelism} windows run at once, each on its own pooled context, so the effective
+ * degree is also bounded by the context pool size. The calling thread transcribes windows itself and
+ * {@code executor} supplies the additional workers.
+ *
+ * @param window      maximum window length; zero disables splitting
+ * @param overlap     overlap of windows cut inside speech
+ * @param parallelism windows transcribed at once; 0 = context pool size
+ * @param executor    runs the workers beside the calling thread
+ */
+public record WindowedTranscription(Duration window, Duration overlap, int parallelism, Executor executor) {
+
+    /**
+     * Whole recordings in one transcription call.
+     */
+    public static final WindowedTranscription DISABLED = new WindowedTranscription(Duration.ZERO, Duration.ZERO, 1, Runnable::run);
+
+    /**
+     * @return true if long recordings are split
+     */
+    public boolean enabled() {
+        return window.toMillis() > 0;
+    }
+
+    /**
+     * Window settings that change the transcript; the degree of parallelism does not.
+     *
+     * @return signature part, empty when splitting is disabled
+     */
+    public String signature() {
+        return enabled() ? ";window_ms=" + window.toMillis() + ";overlap_ms=" + overlap.toMillis() : "";
+    }
+}
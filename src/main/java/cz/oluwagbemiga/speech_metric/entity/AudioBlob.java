@@ -0,0 +1,55 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * JPA entity referencing normalized audio exactly once per distinct content.
+ * <p>
+ * Keyed by the SHA-256 of the normalized WAV; any number of {@link AudioFile} rows may reference the
+ * same blob. {@code refCount} tracks those references and the blob is removed when it drops to zero.
+ * The bytes themselves live in the {@link cz.oluwagbemiga.speech_metric.storage.AudioBlobStore} named by
+ * {@code storageType} and are loaded on demand into the transient {@link #getData() data} field.
+ * </p>
+ */
+@Entity
+@Table(name = "audio_blobs")
+@Data
+public class AudioBlob {
+
+    /**
+     * SHA-256 hex of the normalized WAV bytes.
+     */
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Store holding the bytes ({@code filesystem}, {@code s3}); null while they are still in the legacy
+     * {@code audio_blobs.data} column, which is not mapped and only read by the background migration.
+     */
+    @Column(length = 16)
+    private String storageType;
+
+    /**
+     * Normalized WAV bytes (PCM s16le mono 16 kHz) loaded on demand; not persisted.
+     */
+    @Transient
+    private byte[] data;
+
+    private long sizeBytes;
+
+    /**
+     * Playback length derived from the WAV header; null for blobs stored before it was recorded.
+     */
+    private Long durationMs;
+
+    /**
+     * Number of {@link AudioFile} rows referencing this blob.
+     */
+    private int refCount;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
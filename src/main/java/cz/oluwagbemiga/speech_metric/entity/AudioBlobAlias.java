@@ -0,0 +1,27 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Maps the SHA-256 of a raw (not yet normalized) upload to the {@link AudioBlob} its normalization
+ * produced, so repeated uploads of the same file can skip ffmpeg entirely.
+ */
+@Entity
+@Table(name = "audio_blob_aliases", indexes = @Index(name = "idx_audio_blob_aliases_content_hash", columnList = "contentHash"))
+@Data
+public class AudioBlobAlias {
+
+    /**
+     * SHA-256 hex of the raw uploaded bytes.
+     */
+    @Id
+    @Column(length = 64)
+    private String rawHash;
+
+    /**
+     * SHA-256 hex of the normalized WAV (key of {@link AudioBlob}).
+     */
+    @Column(length = 64, nullable = false)
+    private String contentHash;
+}
@@ -9,12 +9,13 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * JPA entity storing raw uploaded audio data and metadata.
+ * JPA entity storing uploaded audio metadata.
  * Associates to a {@link User} owner and holds {@link RecognitionResult} records
- * produced by recognition engines. Audio bytes are stored as a LOB.
+ * produced by recognition engines. Audio bytes live in a shared, content-addressed
+ * {@link AudioBlob}, so identical uploads are stored once.
  */
 @Entity
-@Table(name = "audio_files")
+@Table(name = "audio_files", indexes = @Index(name = "idx_audio_files_owner_created", columnList = "user_id, createdAt, id"))
 @Data
 public class AudioFile {
 
@@ -36,11 +37,24 @@ public class AudioFile {
     private LocalDateTime createdAt = LocalDateTime.now();
 
     /**
-     * Raw WAV (or other) bytes; non-null.
+     * Content-addressed audio bytes shared by every upload of the same normalized audio.
      */
-    @Lob
-    @Column(nullable = false)
-    private byte[] data;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "content_hash")
+    private AudioBlob blob;
+
+    /**
+     * SHA-256 of the normalized WAV (read-only view of the blob foreign key).
+     */
+    @Column(name = "content_hash", length = 64, insertable = false, updatable = false)
+    private String contentHash;
+
+    /**
+     * Bytes of a row uploaded before content-addressed storage and not migrated yet, loaded on demand
+     * from the unmapped legacy {@code audio_files.data} column; not persisted.
+     */
+    @Transient
+    private byte[] legacyData;
 
     /**
      * Owning user.
@@ -55,4 +69,15 @@ public class AudioFile {
     @OneToMany(mappedBy = "audioFile", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<RecognitionResult> recognitionResults = new ArrayList<>();
 
+    /**
+     * Normalized WAV bytes of this file. The {@link #blob} association must be initialized
+     * (see {@code AudioFileRepository#findWithBlobById}) and its content loaded
+     * (see {@code AudioBlobService#loadContent}); entity loads never read audio bytes.
+     *
+     * @return audio bytes, or null if none are stored
+     */
+    public byte[] getData() {
+        return blob != null ? blob.getData() : legacyData;
+    }
+
 }
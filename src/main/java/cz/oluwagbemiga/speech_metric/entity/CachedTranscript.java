@@ -0,0 +1,76 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import cz.oluwagbemiga.speech_metric.engine.WhisperSegment;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JPA entity storing a transcript produced for a given (audio content, engine, model, decoding parameters)
+ * combination, so that identical recognitions can be answered without running inference again.
+ * <p>
+ * The primary key is the SHA-256 over all key parts; the parts themselves are kept for inspection
+ * and targeted invalidation. {@code lastAccessedAt} drives least-recently-used eviction.
+ * </p>
+ */
+@Entity
+@Table(name = "recognition_cache", indexes = @Index(name = "idx_recognition_cache_last_accessed", columnList = "lastAccessedAt"))
+@Data
+public class CachedTranscript {
+
+    /**
+     * SHA-256 hex over audio hash, engine name, model checksum and run signature.
+     */
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+
+    /**
+     * SHA-256 hex of the normalized WAV bytes.
+     */
+    @Column(length = 64, nullable = false)
+    private String audioHash;
+
+    @Column(nullable = false)
+    private String engineName;
+
+    @Column(length = 64, nullable = false)
+    private String modelChecksum;
+
+    /**
+     * Decoding parameters of the run, plus silence trimming settings when voice activity detection is enabled.
+     */
+    @Column(nullable = false)
+    private String decodingSignature;
+
+    /**
+     * Transcript produced by the engine.
+     */
+    @Column(columnDefinition = "text", nullable = false)
+    private String recognizedText;
+
+    /**
+     * Inference time of the original run (milliseconds).
+     */
+    private long modelProcessingTimeMs;
+
+    /**
+     * Silence skipped by voice activity detection in the original run (milliseconds); null when disabled.
+     */
+    private Long skippedSilenceMs;
+
+    /**
+     * Timestamped segments of the transcript, packed; null for engines without segment output.
+     */
+    @Convert(converter = WhisperSegmentListConverter.class)
+    @Column(columnDefinition = "text")
+    private List<WhisperSegment> segments;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime lastAccessedAt = LocalDateTime.now();
+
+    private long hitCount;
+}
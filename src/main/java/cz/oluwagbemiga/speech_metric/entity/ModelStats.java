@@ -0,0 +1,79 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * JPA entity holding running aggregates of the recognition results of one model within one scope
+ * (all results, one owner or one suite).
+ * <p>
+ * Rows are updated in the transaction that inserts the results, so reading them costs one row per model
+ * regardless of how many results exist. Every aggregate is mergeable (counts and sums, Welford moments,
+ * a {@link cz.oluwagbemiga.speech_metric.metrics.LatencySketch}), which lets a batch be folded in with a
+ * single update per row. The primary key is the SHA-256 over scope, scope id and model name.
+ * </p>
+ */
+@Entity
+@Table(name = "model_stats", indexes = @Index(name = "idx_model_stats_scope", columnList = "scope, scopeId"))
+@Data
+public class ModelStats {
+
+    /**
+     * SHA-256 hex over scope, scope id and model name.
+     */
+    @Id
+    @Column(length = 64)
+    private String statsKey;
+
+    @Column(nullable = false)
+    private String modelName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private ModelStatsScope scope;
+
+    /**
+     * Owner or suite id; the nil UUID for {@link ModelStatsScope#GLOBAL}.
+     */
+    @Column(nullable = false)
+    private UUID scopeId;
+
+    private long resultCount;
+
+    /**
+     * Mean character accuracy over all results.
+     */
+    private double accuracyMean;
+
+    /**
+     * Sum of squared deviations of accuracy from {@link #accuracyMean}.
+     */
+    private double accuracyM2;
+
+    /**
+     * Results that had an expected text and therefore a word error rate.
+     */
+    private long werCount;
+
+    private double werSum;
+
+    /**
+     * Results answered from the recognition cache; their inference time is excluded from latency aggregates.
+     */
+    private long cachedCount;
+
+    private long totalModelProcessingTimeMs;
+
+    /**
+     * Serialized {@link cz.oluwagbemiga.speech_metric.metrics.LatencySketch} of inference times.
+     */
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    private byte[] latencySketch;
+
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,19 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+/**
+ * Slice of the result history a {@link ModelStats} row aggregates.
+ */
+public enum ModelStatsScope {
+    /**
+     * Every result of the model.
+     */
+    GLOBAL,
+    /**
+     * Results owned by one user; {@code scopeId} is the user id.
+     */
+    OWNER,
+    /**
+     * Results of one recognition suite; {@code scopeId} is the suite id.
+     */
+    SUITE
+}
@@ -1,17 +1,22 @@
 package cz.oluwagbemiga.speech_metric.entity;
 
+import cz.oluwagbemiga.speech_metric.engine.WhisperSegment;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
  * JPA entity representing a single speech recognition outcome for an audio file.
- * Stores model metadata, transcripts (recognized vs expected) and an accuracy metric.
+ * Stores model metadata, transcripts (recognized vs expected), a character-level accuracy metric
+ * and the word-level error breakdown (WER, MER, WIL and substitution/deletion/insertion counts),
+ * plus the timestamped segments of engines that produce them.
  * Links to the originating {@link AudioFile}, the {@link User} owner and optionally
  * a {@link RecognitionSuite} for grouped evaluations.
  */
 @Entity
+@Table(indexes = @Index(name = "idx_recognition_result_suite", columnList = "recognition_suite_id"))
 @Data
 public class RecognitionResult {
 
@@ -43,6 +48,59 @@ public class RecognitionResult {
      */
     private long modelProcessingTimeMs;
 
+    /**
+     * True when the transcript was taken from the recognition cache instead of running inference;
+     * {@link #modelProcessingTimeMs} then refers to the original run.
+     */
+    private Boolean fromCache;
+
+    /**
+     * Name of the decoding profile the engine ran with; null for engines without tunable decoding.
+     */
+    private String decodingProfile;
+
+    /**
+     * Silence removed by voice activity detection before inference (milliseconds); null when detection is disabled.
+     */
+    private Long skippedSilenceMs;
+
+    /**
+     * Timestamped segments of the transcript, packed into one column by {@link WhisperSegmentListConverter};
+     * null for engines without segment output.
+     */
+    @Convert(converter = WhisperSegmentListConverter.class)
+    @Column(columnDefinition = "text")
+    private List<WhisperSegment> segments;
+
+    /**
+     * Word error rate (S + D + I) / N. Null when no expected text was provided.
+     */
+    private Double wordErrorRate;
+    /**
+     * Match error rate (S + D + I) / (H + S + D + I). Null when no expected text was provided.
+     */
+    private Double matchErrorRate;
+    /**
+     * Word information lost 1 - (H / N) * (H / P). Null when no expected text was provided.
+     */
+    private Double wordInformationLost;
+    /**
+     * Substituted words in the word alignment.
+     */
+    private Integer wordSubstitutions;
+    /**
+     * Reference words missing from the recognized text.
+     */
+    private Integer wordDeletions;
+    /**
+     * Recognized words not present in the reference.
+     */
+    private Integer wordInsertions;
+    /**
+     * Number of words in the normalized expected text (N).
+     */
+    private Integer referenceWordCount;
+
     /**
      * Source audio file for this recognition.
      */
@@ -14,6 +14,10 @@ import java.util.UUID;
  * can correlate related recognition outcomes (e.g. same audio processed by different models).
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_recognition_suite_created", columnList = "createdAt, id"),
+        @Index(name = "idx_recognition_suite_owner_created", columnList = "user_id, createdAt, id")
+})
 @Data
 public class RecognitionSuite {
 
@@ -0,0 +1,105 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JPA entity tracking an asynchronous run of a {@link RecognitionSuite}.
+ * <p>
+ * The job durably stores its work items (audio file id to expected transcript) so an
+ * interrupted run can be resumed after a restart, together with progress counters used
+ * to report completion and an ETA while the suite is still being processed.
+ * </p>
+ */
+@Entity
+@Table(name = "suite_jobs")
+@Data
+public class SuiteJob {
+
+    /**
+     * Capacity of {@link #errorMessage}; longer messages are cut to fit.
+     */
+    public static final int ERROR_MESSAGE_LENGTH = 255;
+
+    /**
+     * Primary identifier (UUID).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    /**
+     * Suite receiving the recognition results produced by this job.
+     */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recognition_suite_id", nullable = false)
+    private RecognitionSuite recognitionSuite;
+
+    /**
+     * User who submitted the job.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SuiteJobStatus status = SuiteJobStatus.QUEUED;
+
+    /**
+     * Work items: audio file id mapped to its expected transcript.
+     */
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "suite_job_items", joinColumns = @JoinColumn(name = "suite_job_id"))
+    @MapKeyColumn(name = "audio_file_id")
+    @Column(name = "expected_text", columnDefinition = "text")
+    private Map<UUID, String> expectedTexts = new LinkedHashMap<>();
+
+    /**
+     * Number of audio files in the job.
+     */
+    private int totalItems;
+
+    /**
+     * Audio files whose results have been committed.
+     */
+    private int completedItems;
+
+    /**
+     * Audio files that could not be processed (e.g. deleted or no engine succeeded).
+     */
+    private int failedItems;
+
+    /**
+     * Name of the decoding profile used for every engine run; null for jobs queued before profiles existed (default profile).
+     */
+    private String decodingProfile;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Token of the run currently processing the job; a run that no longer holds the claim stops without writing.
+     */
+    private UUID claimToken;
+
+    /**
+     * When the claim of the current run lapses unless renewed; a running job with a lapsed claim was abandoned
+     * and can be claimed by another run.
+     */
+    private LocalDateTime claimExpiresAt;
+
+    /**
+     * Reason of a FAILED job, at most {@link #ERROR_MESSAGE_LENGTH} characters.
+     */
+    @Column(length = ERROR_MESSAGE_LENGTH)
+    private String errorMessage;
+}
@@ -0,0 +1,15 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+/**
+ * Lifecycle state of an asynchronous {@link SuiteJob}.
+ */
+public enum SuiteJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED;
+
+    /**
+     * @return true when the job will not make further progress
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
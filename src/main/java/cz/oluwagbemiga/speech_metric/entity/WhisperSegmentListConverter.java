@@ -0,0 +1,51 @@
+package cz.oluwagbemiga.speech_metric.entity;
+
+import cz.oluwagbemiga.speech_metric.engine.WhisperSegment;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs the segments of a transcript into one text column instead of a row per segment.
+ * <p>
+ * Every segment is one line {@code start<TAB>end<TAB>text} with times in milliseconds; tabs and line breaks
+ * inside the text are stored as spaces. An empty list is stored as an empty string and null stays null.
+ * </p>
+ */
+@Converter
+public class WhisperSegmentListConverter implements AttributeConverter<List<WhisperSegment>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<WhisperSegment> segments) {
+        if (segments == null) {
+            return null;
+        }
+        StringBuilder packed = new StringBuilder(segments.size() * 48);
+        for (WhisperSegment segment : segments) {
+            String text = segment.getSentence() == null ? "" : segment.getSentence().replaceAll("[\\t\\r\\n]", " ");
+            packed.append(segment.getStart()).append('\t').append(segment.getEnd()).append('\t').append(text).append('\n');
+        }
+        return packed.toString();
+    }
+
+    @Override
+    public List<WhisperSegment> convertToEntityAttribute(String packed) {
+        if (packed == null) {
+            return null;
+        }
+        List<WhisperSegment> segments = new ArrayList<>();
+        for (String line : packed.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("Malformed packed segment: " + line);
+            }
+            segments.add(new WhisperSegment(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+        }
+        return segments;
+    }
+}
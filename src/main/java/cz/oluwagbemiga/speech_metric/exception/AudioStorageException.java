@@ -0,0 +1,16 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+/**
+ * Exception thrown when audio bytes cannot be written to or read from the configured
+ * {@link cz.oluwagbemiga.speech_metric.storage.AudioBlobStore}.
+ */
+public class AudioStorageException extends RuntimeException {
+
+    public AudioStorageException(String message) {
+        super(message);
+    }
+
+    public AudioStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a speech engine has no free inference slot within the configured
+ * wait timeout (all pooled native contexts for the model are in use).
+ */
+public class EngineBusyException extends RuntimeException {
+
+    public EngineBusyException(String engineName, Duration maxWait) {
+        super("Engine " + engineName + " is busy; no free context within " + maxWait.toMillis() + " ms");
+    }
+}
@@ -39,5 +39,81 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles missing suite job scenarios.
+     *
+     * @param ex thrown {@link SuiteJobNotFoundException}
+     * @return standardized NOT_FOUND error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleSuiteJobNotFoundException(SuiteJobNotFoundException ex) {
+        log.error("Invalid request: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.NOT_FOUND.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles recognition requests rejected because every context of the engine stayed busy.
+     *
+     * @param ex thrown {@link EngineBusyException}
+     * @return standardized SERVICE_UNAVAILABLE error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleEngineBusyException(EngineBusyException ex) {
+        log.warn("Engine busy: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles failures of the audio blob store (missing objects, unreachable backend).
+     *
+     * @param ex thrown {@link AudioStorageException}
+     * @return standardized SERVICE_UNAVAILABLE error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleAudioStorageException(AudioStorageException ex) {
+        log.error("Audio storage failure: {}", ex.getMessage(), ex);
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles uploads rejected because every ffmpeg slot stayed busy.
+     *
+     * @param ex thrown {@link TranscoderBusyException}
+     * @return standardized SERVICE_UNAVAILABLE error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleTranscoderBusyException(TranscoderBusyException ex) {
+        log.warn("Transcoder busy: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 
+    /**
+     * Handles pagination cursors that were not issued by the server.
+     *
+     * @param ex thrown {@link InvalidCursorException}
+     * @return standardized BAD_REQUEST error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("Invalid request: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles decoding profile names that match no profile.
+     *
+     * @param ex thrown {@link UnknownDecodingProfileException}
+     * @return standardized BAD_REQUEST error response
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleUnknownDecodingProfileException(UnknownDecodingProfileException ex) {
+        log.warn("Invalid request: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
 }
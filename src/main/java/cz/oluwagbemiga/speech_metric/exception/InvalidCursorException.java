@@ -0,0 +1,11 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+/**
+ * Exception indicating that a pagination cursor supplied by a client cannot be decoded.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid pagination cursor: " + cursor);
+    }
+}
@@ -0,0 +1,11 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+/**
+ * Exception indicating that an asynchronous suite job referenced by UUID was not found.
+ */
+public class SuiteJobNotFoundException extends RuntimeException {
+
+    public SuiteJobNotFoundException(String jobUUID) {
+        super("Suite job with UUID " + jobUUID + " does not exist.");
+    }
+}
@@ -0,0 +1,18 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an upload needs ffmpeg but no transcoding slot frees up within the configured
+ * queue timeout, or the transcoding queue is already full.
+ */
+public class TranscoderBusyException extends RuntimeException {
+
+    public TranscoderBusyException(Duration queueTimeout) {
+        super("Audio transcoder is busy; no free slot within " + queueTimeout.toMillis() + " ms");
+    }
+
+    public TranscoderBusyException(int maxQueued) {
+        super("Audio transcoder is busy; " + maxQueued + " uploads are already waiting");
+    }
+}
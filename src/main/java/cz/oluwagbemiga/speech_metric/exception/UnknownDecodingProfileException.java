@@ -0,0 +1,12 @@
+package cz.oluwagbemiga.speech_metric.exception;
+
+/**
+ * Exception thrown when a requested decoding profile name does not match any
+ * {@code DecodingProfile}.
+ */
+public class UnknownDecodingProfileException extends RuntimeException {
+
+    public UnknownDecodingProfileException(String profileName) {
+        super("Unknown decoding profile: " + profileName);
+    }
+}
@@ -8,8 +8,9 @@ import org.mapstruct.Mapping;
 @Mapper(componentModel = "spring")
 public interface AudioFileMapper extends GenericMapper<AudioFile, AudioFileDTO> {
 
+    // Bytes are shared, not cloned: the entity's copy was freshly loaded from the store for this request
     @Override
-    @Mapping(target = "data", expression = "java(entity.getData() == null ? null : entity.getData().clone())")
+    @Mapping(target = "data", expression = "java(entity.getData())")
     AudioFileDTO toDto(AudioFile entity);
 }
 
@@ -21,6 +21,12 @@ public interface UserMapper extends GenericMapper<User, UserDTO> {
     @Mapping(target = "audioFileIds", expression = "java(mapAudioIds(entity))")
     UserDTO toDto(User entity);
 
+    // Maps a user whose audio file IDs were fetched by a projection query, leaving audioFiles untouched
+    default UserDTO toDto(User entity, List<UUID> audioFileIds) {
+        if (entity == null) return null;
+        return new UserDTO(entity.getId(), entity.getUsername(), audioFileIds);
+    }
+
     // Helper to extract audio file IDs
     default List<UUID> mapAudioIds(User user) {
         if (user == null || user.getAudioFiles() == null) return List.of();
@@ -0,0 +1,276 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Character-level Levenshtein distance used for accuracy (CER) scoring.
+ * <p>
+ * After stripping the common prefix and suffix, the distance is computed with the Myers/Hyyrö
+ * bit-vector algorithm: the shorter string is encoded as 64-bit blocks of match masks and every
+ * character of the longer string advances all blocks with a handful of word operations. This runs in
+ * {@code O(ceil(m/64) * n)} time and {@code O(ceil(m/64) * distinct chars)} memory, instead of the
+ * {@code (n+1) * (m+1)} matrix of the textbook dynamic program.
+ * <p>
+ * When a maximum distance is given and the diagonal band it implies is narrower than the bit-vector
+ * work, a banded linear-memory dynamic program is used instead; both paths stop early once the bound
+ * can no longer be met and then report {@code maxDistance + 1}.
+ */
+public final class EditDistance {
+
+    private static final int WORD = 64;
+    // Rough number of banded DP cells that cost as much as advancing one 64-bit block
+    private static final int CELLS_PER_BLOCK_STEP = 4;
+
+    private EditDistance() {
+    }
+
+    /**
+     * Computes the exact Levenshtein distance (unit cost insert, delete, substitute).
+     *
+     * @param a first string
+     * @param b second string
+     * @return edit distance
+     */
+    public static int levenshtein(CharSequence a, CharSequence b) {
+        return levenshtein(a, b, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the Levenshtein distance if it does not exceed {@code maxDistance}.
+     *
+     * @param a           first string
+     * @param b           second string
+     * @param maxDistance largest distance of interest (non-negative)
+     * @return exact distance, or {@code maxDistance + 1} if the distance is larger
+     */
+    public static int levenshtein(CharSequence a, CharSequence b, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must be non-negative");
+        }
+        int overLimit = maxDistance == Integer.MAX_VALUE ? Integer.MAX_VALUE : maxDistance + 1;
+        int aEnd = a.length();
+        int bEnd = b.length();
+        int start = 0;
+        while (start < aEnd && start < bEnd && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        while (aEnd > start && bEnd > start && a.charAt(aEnd - 1) == b.charAt(bEnd - 1)) {
+            aEnd--;
+            bEnd--;
+        }
+        CharSequence x = a.subSequence(start, aEnd);
+        CharSequence y = b.subSequence(start, bEnd);
+        // Pattern (bit-encoded side) is the shorter string
+        if (x.length() > y.length()) {
+            CharSequence t = x;
+            x = y;
+            y = t;
+        }
+        int m = x.length();
+        int n = y.length();
+        if (m == 0) {
+            return n <= maxDistance ? n : overLimit;
+        }
+        if (n - m > maxDistance) {
+            return overLimit;
+        }
+        long bitVectorWork = (long) ((m + WORD - 1) / WORD) * n;
+        long bandWork = (2L * Math.min(maxDistance, n) + 1) * n / CELLS_PER_BLOCK_STEP;
+        if (maxDistance < n && bandWork < bitVectorWork) {
+            return banded(x, y, maxDistance);
+        }
+        return bitParallel(x, y, maxDistance);
+    }
+
+    /**
+     * Myers/Hyyrö bit-vector distance with arbitrary pattern length split into 64-bit blocks.
+     *
+     * @param pattern     shorter string, non-empty
+     * @param text        longer string
+     * @param maxDistance cutoff, see {@link #levenshtein(CharSequence, CharSequence, int)}
+     * @return distance or {@code maxDistance + 1}
+     */
+    static int bitParallel(CharSequence pattern, CharSequence text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        int blocks = (m + WORD - 1) / WORD;
+        PatternMasks masks = new PatternMasks(pattern, blocks);
+
+        long[] pv = new long[blocks];
+        long[] mv = new long[blocks];
+        Arrays.fill(pv, -1L);
+        long lastBit = 1L << ((m - 1) % WORD);
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            int row = masks.indexOf(text.charAt(j));
+            // Horizontal delta entering the top of block 0 is +1 (first DP row is 0, 1, 2, ...)
+            int hin = 1;
+            for (int blk = 0; blk < blocks; blk++) {
+                long eq = row < 0 ? 0L : masks.peq[row * blocks + blk];
+                long p = pv[blk];
+                long q = mv[blk];
+
+                long xv = eq | q;
+                if (hin < 0) {
+                    eq |= 1L;
+                }
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = q | ~(xh | p);
+                long mh = p & xh;
+
+                long high = blk == blocks - 1 ? lastBit : Long.MIN_VALUE;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) {
+                    mh |= 1L;
+                } else if (hin > 0) {
+                    ph |= 1L;
+                }
+                pv[blk] = mh | ~(xv | ph);
+                mv[blk] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+            // The last row can drop by at most one per remaining text character
+            if (maxDistance != Integer.MAX_VALUE && score - (n - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return score <= maxDistance ? score : maxDistance + 1;
+    }
+
+    /**
+     * Banded two-row dynamic program restricted to the diagonals {@code |i - j| <= maxDistance}.
+     *
+     * @param a           first string
+     * @param b           second string
+     * @param maxDistance band half-width and cutoff
+     * @return distance or {@code maxDistance + 1}
+     */
+    static int banded(CharSequence a, CharSequence b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int inf = maxDistance + 1;
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j <= maxDistance ? j : inf;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(m, i + maxDistance);
+            curr[0] = i <= maxDistance ? i : inf;
+            if (from > 1) {
+                curr[from - 1] = inf;
+            }
+            char ca = a.charAt(i - 1);
+            int rowMin = curr[0];
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                v = Math.min(v, inf);
+                curr[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (to < m) {
+                curr[to + 1] = inf;
+            }
+            if (rowMin > maxDistance) {
+                return inf;
+            }
+            int[] t = prev;
+            prev = curr;
+            curr = t;
+        }
+        return Math.min(prev[m], inf);
+    }
+
+    /**
+     * Plain two-row dynamic program in {@code O(min(n, m))} memory. Used as the reference
+     * implementation in tests and benchmarks.
+     *
+     * @param a first string
+     * @param b second string
+     * @return edit distance
+     */
+    static int linear(CharSequence a, CharSequence b) {
+        if (a.length() < b.length()) {
+            CharSequence t = a;
+            a = b;
+            b = t;
+        }
+        int m = b.length();
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+            }
+            int[] t = prev;
+            prev = curr;
+            curr = t;
+        }
+        return prev[m];
+    }
+
+    /**
+     * Match masks of the pattern: for each distinct character, one 64-bit word per block with the
+     * bits of the positions where that character occurs. Characters are mapped to rows through a
+     * small open-addressing table.
+     */
+    private static final class PatternMasks {
+        private final char[] keys;
+        private final int[] rows;
+        private final int mask;
+        private final long[] peq;
+
+        private PatternMasks(CharSequence pattern, int blocks) {
+            int m = pattern.length();
+            int capacity = Integer.highestOneBit(Math.max(4, Math.min(m, 1 << 16)) * 2 - 1) << 1;
+            this.keys = new char[capacity];
+            this.rows = new int[capacity];
+            Arrays.fill(rows, -1);
+            this.mask = capacity - 1;
+
+            int distinct = 0;
+            int[] rowOfPos = new int[m];
+            for (int i = 0; i < m; i++) {
+                char c = pattern.charAt(i);
+                int slot = slot(c);
+                if (rows[slot] < 0) {
+                    keys[slot] = c;
+                    rows[slot] = distinct++;
+                }
+                rowOfPos[i] = rows[slot];
+            }
+            this.peq = new long[distinct * blocks];
+            for (int i = 0; i < m; i++) {
+                peq[rowOfPos[i] * blocks + i / WORD] |= 1L << (i % WORD);
+            }
+        }
+
+        private int slot(char c) {
+            int h = (c * 0x9E37) & mask;
+            while (rows[h] >= 0 && keys[h] != c) {
+                h = (h + 1) & mask;
+            }
+            return h;
+        }
+
+        private int indexOf(char c) {
+            return rows[slot(c)];
+        }
+    }
+}
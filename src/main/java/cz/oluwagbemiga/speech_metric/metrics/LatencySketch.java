@@ -0,0 +1,199 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Mergeable quantile sketch of non-negative latencies with bounded relative error.
+ * <p>
+ * Values are counted in logarithmic buckets {@code (γ^(i-1), γ^i]} with {@code γ = (1 + α) / (1 - α)}, so every
+ * quantile is answered within relative error {@code α} of a value actually recorded. Merging adds bucket
+ * counts, which makes the sketch of a union exactly the merge of the sketches of its parts; that is what lets
+ * per-model statistics be maintained incrementally and rebuilt from any partition of the history.
+ * Latencies from 1 ms to a day fit in about 900 buckets at the default 1 % error.
+ * </p>
+ * Not thread-safe.
+ */
+public final class LatencySketch {
+
+    /**
+     * Relative accuracy of {@link #quantile(double)}.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    // counts[i] holds bucket offset + i; values <= 0 are counted separately
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Records one value.
+     *
+     * @param value latency, negative values are treated as 0
+     */
+    public void add(long value) {
+        count++;
+        if (value <= 0) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+        ensureCapacity(index, index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * Adds every value recorded in {@code other} to this sketch.
+     *
+     * @param other sketch to merge; left unchanged
+     */
+    public void merge(LatencySketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        if (other.counts.length == 0) {
+            return;
+        }
+        ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+    }
+
+    /**
+     * Removes the values recorded in {@code other}, e.g. when results are deleted; inverse of {@link #merge(LatencySketch)}.
+     *
+     * @param other sketch of a subset of the values of this sketch; left unchanged
+     */
+    public void subtract(LatencySketch other) {
+        zeroCount = Math.max(0, zeroCount - other.zeroCount);
+        count = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            int otherIndex = offset + i - other.offset;
+            if (otherIndex >= 0 && otherIndex < other.counts.length) {
+                counts[i] = Math.max(0, counts[i] - other.counts[otherIndex]);
+            }
+            count += counts[i];
+        }
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Estimates a quantile.
+     *
+     * @param q quantile in [0,1], e.g. 0.5 for the median
+     * @return estimated value, or null if nothing was recorded
+     */
+    public Double quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(1, q)) * (count - 1));
+        if (rank < zeroCount) {
+            return 0d;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Midpoint of the bucket in relative terms, which bounds the error by α on both sides
+                return 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, offset + counts.length - 1) / (GAMMA + 1);
+    }
+
+    /**
+     * @return compact binary form accepted by {@link #fromBytes(byte[])}
+     */
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) first++;
+        while (last >= first && counts[last] == 0) last--;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 8 * Math.max(0, last - first + 1));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(zeroCount);
+            out.writeInt(offset + first);
+            out.writeInt(Math.max(0, last - first + 1));
+            for (int i = first; i <= last; i++) {
+                out.writeLong(counts[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param data value produced by {@link #toBytes()}, or null for an empty sketch
+     * @return decoded sketch
+     * @throws IllegalArgumentException if the data is not a serialized sketch
+     */
+    public static LatencySketch fromBytes(byte[] data) {
+        LatencySketch sketch = new LatencySketch();
+        if (data == null || data.length == 0) {
+            return sketch;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported latency sketch format");
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.offset = in.readInt();
+            int buckets = in.readInt();
+            if (buckets < 0 || buckets > (data.length - 17) / 8) {
+                throw new IllegalArgumentException("Corrupt latency sketch");
+            }
+            sketch.counts = new long[buckets];
+            sketch.count = sketch.zeroCount;
+            for (int i = 0; i < buckets; i++) {
+                sketch.counts[i] = in.readLong();
+                sketch.count += sketch.counts[i];
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt latency sketch", e);
+        }
+        return sketch;
+    }
+
+    private void ensureCapacity(int minIndex, int maxIndex) {
+        if (counts.length == 0) {
+            offset = minIndex;
+            counts = new long[maxIndex - minIndex + 1];
+            return;
+        }
+        int newOffset = Math.min(offset, minIndex);
+        int newEnd = Math.max(offset + counts.length - 1, maxIndex);
+        if (newOffset == offset && newEnd == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newEnd - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySketch{count=" + count + ", p50=" + quantile(0.5) + ", p99=" + quantile(0.99) + '}';
+    }
+}
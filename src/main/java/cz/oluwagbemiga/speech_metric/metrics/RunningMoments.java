@@ -0,0 +1,68 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+/**
+ * Count, mean and sum of squared deviations of a stream of values, mergeable across partitions.
+ * <p>
+ * Values are added with Welford's update and partitions are combined with Chan et al.'s pairwise formula,
+ * both numerically stable, so mean and variance can be maintained incrementally without keeping the values
+ * or a running sum of squares.
+ * </p>
+ *
+ * @param count number of values
+ * @param mean  arithmetic mean, 0 when empty
+ * @param m2    sum of squared deviations from the mean
+ */
+public record RunningMoments(long count, double mean, double m2) {
+
+    /**
+     * Moments of no values.
+     */
+    public static final RunningMoments EMPTY = new RunningMoments(0, 0d, 0d);
+
+    /**
+     * @param value value to add
+     * @return moments including {@code value}
+     */
+    public RunningMoments add(double value) {
+        long n = count + 1;
+        double delta = value - mean;
+        double newMean = mean + delta / n;
+        return new RunningMoments(n, newMean, m2 + delta * (value - newMean));
+    }
+
+    /**
+     * @param other moments of a disjoint set of values
+     * @return moments of the union
+     */
+    public RunningMoments merge(RunningMoments other) {
+        if (other.count == 0) return this;
+        if (count == 0) return other;
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        double newMean = mean + delta * other.count / n;
+        return new RunningMoments(n, newMean, m2 + other.m2 + delta * delta * ((double) count * other.count / n));
+    }
+
+    /**
+     * Inverse of {@link #merge(RunningMoments)}.
+     *
+     * @param other moments of a subset of the values
+     * @return moments of the remaining values
+     */
+    public RunningMoments remove(RunningMoments other) {
+        if (other.count == 0) return this;
+        long n = count - other.count;
+        if (n <= 0) return EMPTY;
+        double restMean = (mean * count - other.mean * other.count) / n;
+        double delta = other.mean - restMean;
+        // Rounding can leave a tiny negative remainder when the rest has (nearly) no spread
+        return new RunningMoments(n, restMean, Math.max(0d, m2 - other.m2 - delta * delta * ((double) n * other.count / count)));
+    }
+
+    /**
+     * @return sample variance, or null with fewer than two values
+     */
+    public Double variance() {
+        return count < 2 ? null : m2 / (count - 1);
+    }
+}
@@ -0,0 +1,110 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimum edit alignment of two word sequences producing a full {@link WordErrorMetrics} breakdown.
+ * <p>
+ * Both texts are split on whitespace once and every distinct word is interned to an {@code int} id,
+ * so the alignment compares integers instead of strings. A single Levenshtein pass with two rows of
+ * memory carries, next to the cost, the substitution/deletion/insertion counts of the best path into
+ * each cell; all word-level metrics are derived from the final cell. Among equal-cost paths,
+ * substitutions are preferred over deletions and deletions over insertions.
+ * <p>
+ * Inputs are expected to be normalized already (case, punctuation); see
+ * {@code SpeechEngine#normalizeForCer(String)}.
+ */
+public final class WordAlignment {
+
+    private WordAlignment() {
+    }
+
+    /**
+     * Aligns the hypothesis against the reference.
+     *
+     * @param reference  normalized ground-truth transcript
+     * @param hypothesis normalized recognized transcript
+     * @return word-level error metrics
+     */
+    public static WordErrorMetrics align(String reference, String hypothesis) {
+        Map<String, Integer> vocabulary = new HashMap<>();
+        int[] ref = intern(reference, vocabulary);
+        int[] hyp = intern(hypothesis, vocabulary);
+        return align(ref, hyp);
+    }
+
+    /**
+     * Aligns two sequences of interned token ids.
+     *
+     * @param ref reference token ids
+     * @param hyp hypothesis token ids
+     * @return word-level error metrics
+     */
+    static WordErrorMetrics align(int[] ref, int[] hyp) {
+        int n = ref.length;
+        int m = hyp.length;
+        // Row i = reference prefix of length i; column j = hypothesis prefix of length j
+        int[] prevCost = new int[m + 1];
+        int[] prevSub = new int[m + 1];
+        int[] prevDel = new int[m + 1];
+        int[] prevIns = new int[m + 1];
+        int[] cost = new int[m + 1];
+        int[] sub = new int[m + 1];
+        int[] del = new int[m + 1];
+        int[] ins = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prevCost[j] = j;
+            prevIns[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cost[0] = i;
+            sub[0] = 0;
+            del[0] = i;
+            ins[0] = 0;
+            int r = ref[i - 1];
+            for (int j = 1; j <= m; j++) {
+                int diagonal = prevCost[j - 1] + (r == hyp[j - 1] ? 0 : 1);
+                int up = prevCost[j] + 1;
+                int left = cost[j - 1] + 1;
+                if (diagonal <= up && diagonal <= left) {
+                    cost[j] = diagonal;
+                    sub[j] = prevSub[j - 1] + (r == hyp[j - 1] ? 0 : 1);
+                    del[j] = prevDel[j - 1];
+                    ins[j] = prevIns[j - 1];
+                } else if (up <= left) {
+                    cost[j] = up;
+                    sub[j] = prevSub[j];
+                    del[j] = prevDel[j] + 1;
+                    ins[j] = prevIns[j];
+                } else {
+                    cost[j] = left;
+                    sub[j] = sub[j - 1];
+                    del[j] = del[j - 1];
+                    ins[j] = ins[j - 1] + 1;
+                }
+            }
+            int[] t = prevCost; prevCost = cost; cost = t;
+            t = prevSub; prevSub = sub; sub = t;
+            t = prevDel; prevDel = del; del = t;
+            t = prevIns; prevIns = ins; ins = t;
+        }
+        int substitutions = prevSub[m];
+        int deletions = prevDel[m];
+        int insertions = prevIns[m];
+        int hits = n - substitutions - deletions;
+        return WordErrorMetrics.fromCounts(hits, substitutions, deletions, insertions);
+    }
+
+    private static int[] intern(String text, Map<String, Integer> vocabulary) {
+        if (text == null || text.isBlank()) {
+            return new int[0];
+        }
+        String[] words = text.trim().split("\\s+");
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = vocabulary.computeIfAbsent(words[i], w -> vocabulary.size());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,67 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+/**
+ * Word-level error breakdown of a hypothesis against a reference transcript.
+ * <p>
+ * With {@code H} hits, {@code S} substitutions, {@code D} deletions, {@code I} insertions,
+ * {@code N = H + S + D} reference words and {@code P = H + S + I} hypothesis words:
+ * <ul>
+ *   <li>WER = (S + D + I) / N</li>
+ *   <li>MER = (S + D + I) / (H + S + D + I)</li>
+ *   <li>WIL = 1 - (H / N) * (H / P)</li>
+ * </ul>
+ * Rates with a zero denominator are reported as 0 when both texts are empty and 1 otherwise.
+ *
+ * @param hits          aligned words that match
+ * @param substitutions aligned words that differ
+ * @param deletions     reference words missing from the hypothesis
+ * @param insertions    hypothesis words not present in the reference
+ * @param wer           word error rate (may exceed 1)
+ * @param mer           match error rate in [0,1]
+ * @param wil           word information lost in [0,1]
+ */
+public record WordErrorMetrics(
+        int hits,
+        int substitutions,
+        int deletions,
+        int insertions,
+        double wer,
+        double mer,
+        double wil
+) {
+
+    /**
+     * Derives the rates from alignment counts.
+     *
+     * @param hits          matching words
+     * @param substitutions substituted words
+     * @param deletions     deleted words
+     * @param insertions    inserted words
+     * @return metrics with computed rates
+     */
+    public static WordErrorMetrics fromCounts(int hits, int substitutions, int deletions, int insertions) {
+        int errors = substitutions + deletions + insertions;
+        int referenceWords = hits + substitutions + deletions;
+        int hypothesisWords = hits + substitutions + insertions;
+        double wer = referenceWords == 0 ? (errors == 0 ? 0d : 1d) : (double) errors / referenceWords;
+        double mer = hits + errors == 0 ? 0d : (double) errors / (hits + errors);
+        double wil = referenceWords == 0 || hypothesisWords == 0
+                ? (referenceWords == hypothesisWords ? 0d : 1d)
+                : 1d - ((double) hits / referenceWords) * ((double) hits / hypothesisWords);
+        return new WordErrorMetrics(hits, substitutions, deletions, insertions, wer, mer, wil);
+    }
+
+    /**
+     * @return number of words in the reference
+     */
+    public int referenceWords() {
+        return hits + substitutions + deletions;
+    }
+
+    /**
+     * @return number of words in the hypothesis
+     */
+    public int hypothesisWords() {
+        return hits + substitutions + insertions;
+    }
+}
@@ -0,0 +1,17 @@
+package cz.oluwagbemiga.speech_metric.repository;
+
+import cz.oluwagbemiga.speech_metric.entity.AudioBlobAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository mapping raw upload hashes to normalized {@link cz.oluwagbemiga.speech_metric.entity.AudioBlob}s.
+ */
+public interface AudioBlobAliasRepository extends JpaRepository<AudioBlobAlias, String> {
+
+    @Modifying
+    @Query("delete from AudioBlobAlias a where a.contentHash = :hash")
+    int deleteAllByContentHash(@Param("hash") String hash);
+}
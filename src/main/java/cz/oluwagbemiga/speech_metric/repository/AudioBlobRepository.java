@@ -0,0 +1,25 @@
+package cz.oluwagbemiga.speech_metric.repository;
+
+import cz.oluwagbemiga.speech_metric.entity.AudioBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository for content-addressed {@link AudioBlob} rows.
+ */
+public interface AudioBlobRepository extends JpaRepository<AudioBlob, String> {
+
+    @Modifying
+    @Query("update AudioBlob b set b.refCount = b.refCount + 1 where b.contentHash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Query("update AudioBlob b set b.refCount = b.refCount - 1 where b.contentHash = :hash")
+    int decrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Query("delete from AudioBlob b where b.contentHash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
@@ -1,13 +1,18 @@
 package cz.oluwagbemiga.speech_metric.repository;
 
+import cz.oluwagbemiga.speech_metric.dto.AudioFileSummaryDTO;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -18,5 +23,69 @@ public interface AudioFileRepository extends JpaRepository<AudioFile, UUID> {
     int deleteByUUID(@Param("id") UUID id);
 
     // List all audio files owned by a given user
+    @EntityGraph(attributePaths = "blob")
     List<AudioFile> findAllByOwner_Id(UUID ownerId);
+
+    // Audio file with its blob initialized, usable after the transaction ends
+    @EntityGraph(attributePaths = "blob")
+    Optional<AudioFile> findWithBlobById(UUID id);
+
+    @Query("select a.contentHash from AudioFile a where a.id = :id")
+    Optional<String> findContentHashById(@Param("id") UUID id);
+
+    @Query("select a.contentHash from AudioFile a where a.owner.username = :username and a.contentHash is not null")
+    List<String> findContentHashesByOwnerUsername(@Param("username") String username);
+
+    @Query("select a.id from AudioFile a where a.owner.id = :ownerId order by a.createdAt, a.id")
+    List<UUID> findIdsByOwnerId(@Param("ownerId") UUID ownerId);
+
+    // Owner and id of every file, for listing users without loading their files
+    @Query("select a.owner.id as ownerId, a.id as id from AudioFile a order by a.createdAt, a.id")
+    List<OwnedId> findAllOwnedIds();
+
+    @Query("select a.fileName from AudioFile a where a.id = :id")
+    Optional<String> findFileNameById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("update AudioFile a set a.fileName = :fileName where a.id = :id")
+    int renameById(@Param("id") UUID id, @Param("fileName") String fileName);
+
+    // First page of a user's file metadata joined with the size and duration of their blobs; never reads audio bytes
+    @Query("select new cz.oluwagbemiga.speech_metric.dto.AudioFileSummaryDTO(a.id, a.fileName, a.createdAt, b.sizeBytes, b.durationMs) "
+            + "from AudioFile a left join a.blob b where a.owner.id = :ownerId order by a.createdAt, a.id")
+    List<AudioFileSummaryDTO> findSummariesByOwnerId(@Param("ownerId") UUID ownerId, Pageable pageable);
+
+    // Page of a user's file metadata following the (createdAt, id) keyset position
+    @Query("select new cz.oluwagbemiga.speech_metric.dto.AudioFileSummaryDTO(a.id, a.fileName, a.createdAt, b.sizeBytes, b.durationMs) "
+            + "from AudioFile a left join a.blob b where a.owner.id = :ownerId "
+            + "and (a.createdAt > :createdAt or (a.createdAt = :createdAt and a.id > :id)) order by a.createdAt, a.id")
+    List<AudioFileSummaryDTO> findSummariesByOwnerIdAfter(@Param("ownerId") UUID ownerId, @Param("createdAt") LocalDateTime createdAt,
+                                                          @Param("id") UUID id, Pageable pageable);
+
+    // What a download needs to stream the file from the blob store
+    @Query("select a.fileName as fileName, a.contentHash as contentHash, b.storageType as storageType, b.sizeBytes as sizeBytes "
+            + "from AudioFile a left join a.blob b where a.id = :id")
+    Optional<DownloadView> findDownloadViewById(@Param("id") UUID id);
+
+    /**
+     * Projection of an audio file id together with its owner's id.
+     */
+    interface OwnedId {
+        UUID getOwnerId();
+
+        UUID getId();
+    }
+
+    /**
+     * Projection of the storage location of an audio file's content.
+     */
+    interface DownloadView {
+        String getFileName();
+
+        String getContentHash();
+
+        String getStorageType();
+
+        Long getSizeBytes();
+    }
 }
@@ -0,0 +1,25 @@
+package cz.oluwagbemiga.speech_metric.repository;
+
+import cz.oluwagbemiga.speech_metric.entity.CachedTranscript;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the recognition result cache ({@link CachedTranscript}).
+ */
+public interface CachedTranscriptRepository extends JpaRepository<CachedTranscript, String> {
+
+    @Modifying
+    @Query("update CachedTranscript c set c.lastAccessedAt = :now, c.hitCount = c.hitCount + 1 where c.cacheKey = :key")
+    int touch(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    // Least recently used keys first (eviction candidates)
+    @Query("select c.cacheKey from CachedTranscript c order by c.lastAccessedAt asc")
+    List<String> findLeastRecentlyUsedKeys(Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package cz.oluwagbemiga.speech_metric.repository;
+
+import cz.oluwagbemiga.speech_metric.entity.ModelStats;
+import cz.oluwagbemiga.speech_metric.entity.ModelStatsScope;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for incrementally maintained per-model aggregates ({@link ModelStats}).
+ */
+public interface ModelStatsRepository extends JpaRepository<ModelStats, String> {
+
+    List<ModelStats> findAllByScope(ModelStatsScope scope);
+
+    List<ModelStats> findAllByScopeAndScopeId(ModelStatsScope scope, UUID scopeId);
+
+    // Rows about to be updated, locked until the inserting transaction ends so concurrent batches serialize
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ModelStats s where s.statsKey in :keys order by s.statsKey")
+    List<ModelStats> findAllForUpdate(@Param("keys") Collection<String> keys);
+
+    // Creates an empty row unless a concurrent transaction already did
+    @Modifying
+    @Query(value = "insert into model_stats (stats_key, model_name, scope, scope_id, result_count, accuracy_mean, accuracy_m2, "
+            + "wer_count, wer_sum, cached_count, total_model_processing_time_ms, updated_at) "
+            + "values (:key, :modelName, :scope, :scopeId, 0, 0, 0, 0, 0, 0, 0, now()) on conflict (stats_key) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("modelName") String modelName, @Param("scope") String scope,
+                       @Param("scopeId") UUID scopeId);
+}
@@ -1,10 +1,17 @@
 package cz.oluwagbemiga.speech_metric.repository;
 
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository for querying persisted {@link RecognitionResult} entities.
@@ -12,5 +19,76 @@ import java.util.UUID;
 public interface RecognitionResultRepository extends JpaRepository<RecognitionResult, UUID> {
 
     List<RecognitionResult> findAllByModelNameIgnoreCase(String modelName);
-}
 
+    // Audio files that already have results in the suite (used to resume interrupted suite jobs)
+    @Query("select distinct r.audioFile.id from RecognitionResult r where r.recognitionSuite.id = :suiteId")
+    List<UUID> findAudioFileIdsBySuiteId(@Param("suiteId") UUID suiteId);
+
+    // Every result reduced to what per-model statistics need, streamed for rebuilding them
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select r.modelName as modelName, r.owner.id as ownerId, s.id as suiteId, r.accuracy as accuracy, "
+            + "r.wordErrorRate as wordErrorRate, r.modelProcessingTimeMs as modelProcessingTimeMs, r.fromCache as fromCache "
+            + "from RecognitionResult r left join r.recognitionSuite s")
+    Stream<StatsSample> streamStatsSamples();
+
+    // Stats fields of the results of an audio file, read before deleting them
+    @Query("select r.modelName as modelName, r.owner.id as ownerId, s.id as suiteId, r.accuracy as accuracy, "
+            + "r.wordErrorRate as wordErrorRate, r.modelProcessingTimeMs as modelProcessingTimeMs, r.fromCache as fromCache "
+            + "from RecognitionResult r left join r.recognitionSuite s where r.audioFile.id = :audioFileId")
+    List<StatsSample> findStatsSamplesByAudioFileId(@Param("audioFileId") UUID audioFileId);
+
+    @Modifying
+    @Query("delete from RecognitionResult r where r.audioFile.id = :audioFileId")
+    int deleteByAudioFileId(@Param("audioFileId") UUID audioFileId);
+
+    // Stats fields of the results a user produced or that were produced on the user's audio files
+    @Query("select r.modelName as modelName, r.owner.id as ownerId, s.id as suiteId, r.accuracy as accuracy, "
+            + "r.wordErrorRate as wordErrorRate, r.modelProcessingTimeMs as modelProcessingTimeMs, r.fromCache as fromCache "
+            + "from RecognitionResult r left join r.recognitionSuite s "
+            + "where r.owner.id = :userId or r.audioFile.id in (select a.id from AudioFile a where a.owner.id = :userId)")
+    List<StatsSample> findStatsSamplesByUserId(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("delete from RecognitionResult r "
+            + "where r.owner.id = :userId or r.audioFile.id in (select a.id from AudioFile a where a.owner.id = :userId)")
+    int deleteByUserId(@Param("userId") UUID userId);
+
+    // Totals that per-model statistics must reproduce: results, cached results, results with WER, model time of the others
+    @Query("select count(r) as results, coalesce(sum(case when r.fromCache = true then 1 else 0 end), 0) as cached, "
+            + "count(r.wordErrorRate) as withWordErrorRate, "
+            + "coalesce(sum(case when r.fromCache = true then 0 else r.modelProcessingTimeMs end), 0) as modelProcessingTimeMs "
+            + "from RecognitionResult r")
+    StatsFingerprint computeStatsFingerprint();
+
+    /**
+     * Projection of the fields of a result that feed {@link cz.oluwagbemiga.speech_metric.entity.ModelStats}.
+     */
+    interface StatsSample {
+        String getModelName();
+
+        UUID getOwnerId();
+
+        UUID getSuiteId();
+
+        double getAccuracy();
+
+        Double getWordErrorRate();
+
+        long getModelProcessingTimeMs();
+
+        Boolean getFromCache();
+    }
+
+    /**
+     * Totals over every stored result, compared against the global {@link cz.oluwagbemiga.speech_metric.entity.ModelStats} rows.
+     */
+    interface StatsFingerprint {
+        long getResults();
+
+        long getCached();
+
+        long getWithWordErrorRate();
+
+        long getModelProcessingTimeMs();
+    }
+}
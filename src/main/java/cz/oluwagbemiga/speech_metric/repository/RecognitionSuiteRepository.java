@@ -1,12 +1,65 @@
 package cz.oluwagbemiga.speech_metric.repository;
 
+import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteSummaryDTO;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionSuite;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface RecognitionSuiteRepository extends JpaRepository<RecognitionSuite, UUID> {
-    // Fetch all suites belonging to a specific user (owner) by their UUID.
-    List<RecognitionSuite> findAllByOwner_Id(UUID ownerId);
+    // Suite with its results loaded by the same query
+    @EntityGraph(attributePaths = "recognitionResults")
+    Optional<RecognitionSuite> findWithResultsById(UUID id);
+
+    // Suites of one page with their results loaded by the same query; order is not preserved
+    @EntityGraph(attributePaths = "recognitionResults")
+    List<RecognitionSuite> findWithResultsByIdIn(Collection<UUID> ids);
+
+    // Page of suites older than the (createdAt, id) keyset position, newest first
+    @Query("select s.id as id, s.createdAt as createdAt from RecognitionSuite s "
+            + "where s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id) "
+            + "order by s.createdAt desc, s.id desc")
+    List<SuiteKey> findKeysBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+    @Query("select s.id as id, s.createdAt as createdAt from RecognitionSuite s where s.owner.id = :ownerId "
+            + "and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id)) "
+            + "order by s.createdAt desc, s.id desc")
+    List<SuiteKey> findKeysByOwnerIdBefore(@Param("ownerId") UUID ownerId, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") UUID id, Pageable pageable);
+
+    // Aggregates of a page of suites, grouped in the database so no result rows are transferred
+    @Query("select new cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteSummaryDTO(s.id, s.owner.id, s.createdAt, "
+            + "count(r), count(distinct r.audioFile.id), count(distinct r.modelName), avg(r.accuracy), avg(r.wordErrorRate), "
+            + "sum(r.modelProcessingTimeMs)) "
+            + "from RecognitionSuite s left join s.recognitionResults r "
+            + "where s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id) "
+            + "group by s.id, s.owner.id, s.createdAt order by s.createdAt desc, s.id desc")
+    List<RecognitionSuiteSummaryDTO> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                                         Pageable pageable);
+
+    @Query("select new cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteSummaryDTO(s.id, s.owner.id, s.createdAt, "
+            + "count(r), count(distinct r.audioFile.id), count(distinct r.modelName), avg(r.accuracy), avg(r.wordErrorRate), "
+            + "sum(r.modelProcessingTimeMs)) "
+            + "from RecognitionSuite s left join s.recognitionResults r where s.owner.id = :ownerId "
+            + "and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id)) "
+            + "group by s.id, s.owner.id, s.createdAt order by s.createdAt desc, s.id desc")
+    List<RecognitionSuiteSummaryDTO> findSummariesByOwnerIdBefore(@Param("ownerId") UUID ownerId, @Param("createdAt") LocalDateTime createdAt,
+                                                                  @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Projection of a suite's keyset position.
+     */
+    interface SuiteKey {
+        UUID getId();
+
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -0,0 +1,37 @@
+package cz.oluwagbemiga.speech_metric.repository;
+
+import cz.oluwagbemiga.speech_metric.entity.SuiteJob;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for asynchronous {@link SuiteJob} records.
+ */
+public interface SuiteJobRepository extends JpaRepository<SuiteJob, UUID> {
+
+    // Queued jobs and running jobs whose claim lapsed, oldest first
+    @Query("select j.id from SuiteJob j where j.status = :queued "
+            + "or (j.status = :running and (j.claimExpiresAt is null or j.claimExpiresAt < :now)) order by j.createdAt asc")
+    List<UUID> findClaimableIds(@Param("queued") SuiteJobStatus queued, @Param("running") SuiteJobStatus running,
+                                @Param("now") LocalDateTime now);
+
+    // Marks the job running under a new claim unless another run holds an unexpired one; 0 = not claimed
+    @Modifying
+    @Query("update SuiteJob j set j.status = :running, j.claimToken = :token, j.claimExpiresAt = :until where j.id = :id "
+            + "and (j.status = :queued or (j.status = :running and (j.claimExpiresAt is null or j.claimExpiresAt < :now)))")
+    int claim(@Param("id") UUID id, @Param("token") UUID token, @Param("queued") SuiteJobStatus queued,
+              @Param("running") SuiteJobStatus running, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Extends a claim still held by the run, locking the row until the transaction ends; 0 = claim lost
+    @Modifying
+    @Query("update SuiteJob j set j.claimExpiresAt = :until where j.id = :id and j.claimToken = :token and j.status = :running")
+    int renewClaim(@Param("id") UUID id, @Param("token") UUID token, @Param("running") SuiteJobStatus running,
+                   @Param("until") LocalDateTime until);
+}
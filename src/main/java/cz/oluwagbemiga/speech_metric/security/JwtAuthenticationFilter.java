@@ -25,8 +25,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader("Authorization");
+        String token = null;
         if (header != null && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
+            token = header.substring(7);
+        } else if (request.getRequestURI().startsWith("/ws/")) {
+            // Browsers cannot set headers on a WebSocket handshake, so the token may come as a query parameter
+            token = request.getParameter("access_token");
+        }
+        if (token != null) {
             if (jwtUtil.validateToken(token)) {
                 String userUuid = jwtUtil.getUuidFromJWT(token);
                 String role = jwtUtil.getRoleFromJWT(token);
@@ -0,0 +1,76 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background migration moving audio bytes out of Postgres into the configured
+ * {@link cz.oluwagbemiga.speech_metric.storage.AudioBlobStore}:
+ * <ul>
+ *   <li>rows created before content-addressed storage, from the legacy {@code audio_files.data} column
+ *   into shared {@link cz.oluwagbemiga.speech_metric.entity.AudioBlob}s;</li>
+ *   <li>blobs created before external storage, from the {@code audio_blobs.data} column.</li>
+ * </ul>
+ * Runs once after startup on the maintenance executor, one row per transaction, and is a no-op when
+ * nothing is left to migrate.
+ */
+@Slf4j
+@Component
+public class AudioBlobMigration {
+
+    private final AudioBlobService audioBlobService;
+    private final Executor maintenanceExecutor;
+
+    @Value("${speech.storage.migration.batch-size:50}")
+    private int batchSize;
+
+    public AudioBlobMigration(AudioBlobService audioBlobService, Executor maintenanceExecutor) {
+        this.audioBlobService = audioBlobService;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        audioBlobService.relaxLegacyColumn();
+        maintenanceExecutor.execute(this::migrate);
+    }
+
+    void migrate() {
+        migrateAll("Legacy audio", () -> audioBlobService.findLegacyAudioFileIds(batchSize), audioBlobService::migrateLegacy);
+        migrateAll("Database audio blob", () -> audioBlobService.findDatabaseStoredHashes(batchSize), audioBlobService::migrateToStore);
+    }
+
+    private <T> void migrateAll(String what, Supplier<List<T>> nextBatch, Consumer<T> migrateOne) {
+        long start = System.nanoTime();
+        int migrated = 0;
+        int failed = 0;
+        List<T> batch;
+        while (!(batch = nextBatch.get()).isEmpty()) {
+            int before = migrated;
+            for (T id : batch) {
+                try {
+                    migrateOne.accept(id);
+                    migrated++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.error("{} migration failed id={}", what, id, e);
+                }
+            }
+            if (migrated == before) {
+                // Every row of the batch failed; stop instead of retrying the same rows forever
+                break;
+            }
+        }
+        if (migrated > 0 || failed > 0) {
+            log.info("{} migration finished migrated={} failed={} timeMs={}", what, migrated, failed, (System.nanoTime() - start) / 1_000_000L);
+        }
+    }
+}
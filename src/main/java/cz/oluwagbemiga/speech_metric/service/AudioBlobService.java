@@ -0,0 +1,404 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.audio.WavHeader;
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import cz.oluwagbemiga.speech_metric.entity.AudioBlob;
+import cz.oluwagbemiga.speech_metric.entity.AudioBlobAlias;
+import cz.oluwagbemiga.speech_metric.entity.AudioFile;
+import cz.oluwagbemiga.speech_metric.exception.AudioStorageException;
+import cz.oluwagbemiga.speech_metric.repository.AudioBlobAliasRepository;
+import cz.oluwagbemiga.speech_metric.repository.AudioBlobRepository;
+import cz.oluwagbemiga.speech_metric.repository.AudioFileRepository;
+import cz.oluwagbemiga.speech_metric.storage.AudioBlobResource;
+import cz.oluwagbemiga.speech_metric.storage.AudioBlobStore;
+import cz.oluwagbemiga.speech_metric.storage.StagedAudio;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Service managing content-addressed {@link AudioBlob} storage and its reference counts.
+ * <p>
+ * Every {@link AudioFile} points to the blob of its normalized audio. Attaching a file to existing
+ * content only increments the reference count; the bytes are written to the {@link AudioBlobStore} once
+ * per distinct content and deleted from it after the last reference is released.
+ * Raw upload hashes are remembered as {@link AudioBlobAlias}es so re-uploads skip normalization.
+ * </p>
+ * <p>
+ * Taking a reference and deleting the stored bytes both hold a transaction-scoped advisory lock on the
+ * content hash, so the bytes are never deleted while a concurrent upload of the same content is being attached.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioBlobService {
+
+    private static final String AUDIO_FILES = "audio_files";
+    private static final String AUDIO_BLOBS = "audio_blobs";
+    // Enough for the fmt chunk and any metadata chunks before the data chunk
+    private static final int HEADER_PROBE_BYTES = 64 * 1024;
+
+    private final AudioBlobRepository audioBlobRepository;
+    private final AudioBlobAliasRepository audioBlobAliasRepository;
+    private final AudioFileRepository audioFileRepository;
+    private final AudioBlobStore audioBlobStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, Boolean> legacyColumns = new ConcurrentHashMap<>();
+
+    /**
+     * Looks up the normalized content produced by an earlier upload of the same raw bytes.
+     *
+     * @param rawHash SHA-256 hex of the raw upload
+     * @return content hash of the normalized audio, if known
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> resolveAlias(String rawHash) {
+        return audioBlobAliasRepository.findById(rawHash).map(AudioBlobAlias::getContentHash);
+    }
+
+    /**
+     * Writes staged normalized audio to the store unless a blob with the same content already exists.
+     * Call outside of transactions, before {@link #attach(AudioFile, String, StagedAudio)}: the store is
+     * content-addressed, so the write is idempotent and no connection is held while it runs. If the
+     * transaction that should reference the bytes rolls back, they remain as an unreferenced duplicate
+     * and are simply overwritten by the next upload of the same content.
+     *
+     * @param normalized staged normalized audio
+     */
+    public void store(StagedAudio normalized) {
+        if (!audioBlobRepository.existsById(normalized.contentHash())) {
+            audioBlobStore.put(normalized.contentHash(), normalized.file());
+        }
+    }
+
+    /**
+     * Points the audio file at the blob with the given content, taking a reference on it.
+     * Must run inside the transaction that persists the audio file. New content must have been
+     * {@link #store(StagedAudio) stored} beforehand; only the blob row is written here.
+     *
+     * @param audioFile   file being created
+     * @param contentHash SHA-256 hex of the normalized audio
+     * @param normalized  staged normalized audio, used only if the blob does not exist yet; may be null
+     * @return false if the blob does not exist and its content is not in the store, e.g. because no audio
+     * was supplied or a concurrent release deleted it after it was stored
+     */
+    @Transactional
+    public boolean attach(AudioFile audioFile, String contentHash, StagedAudio normalized) {
+        if (normalized == null) {
+            return attach(audioFile, contentHash, -1, null, null);
+        }
+        return attach(audioFile, contentHash, normalized.sizeBytes(), () -> durationMs(normalized.file()),
+                () -> audioBlobStore.exists(contentHash));
+    }
+
+    /**
+     * Same as {@link #attach(AudioFile, String, StagedAudio)} for audio already held in memory, which is
+     * written to the store within the transaction if the blob does not exist yet.
+     *
+     * @param audioFile   file being created
+     * @param contentHash SHA-256 hex of the normalized audio
+     * @param normalized  normalized bytes, used only if the blob does not exist yet
+     * @return true once attached
+     */
+    @Transactional
+    public boolean attach(AudioFile audioFile, String contentHash, byte[] normalized) {
+        return attach(audioFile, contentHash, normalized.length, () -> durationMs(normalized), () -> {
+            audioBlobStore.put(contentHash, normalized);
+            return true;
+        });
+    }
+
+    private boolean attach(AudioFile audioFile, String contentHash, long sizeBytes, Supplier<Long> durationMs, BooleanSupplier ensureContent) {
+        lockContent(contentHash);
+        if (audioBlobRepository.incrementRefCount(contentHash) == 0) {
+            // Under the lock no release can delete the stored bytes until this row is committed
+            if (ensureContent == null || !ensureContent.getAsBoolean()) {
+                return false;
+            }
+            AudioBlob blob = new AudioBlob();
+            blob.setContentHash(contentHash);
+            blob.setStorageType(audioBlobStore.type());
+            blob.setSizeBytes(sizeBytes);
+            blob.setDurationMs(durationMs.get());
+            blob.setRefCount(1);
+            audioBlobRepository.saveAndFlush(blob);
+            log.debug("Stored new audio blob hash={} bytes={}", contentHash, sizeBytes);
+        } else {
+            log.debug("Reusing audio blob hash={}", contentHash);
+        }
+        audioFile.setBlob(audioBlobRepository.getReferenceById(contentHash));
+        audioFile.setContentHash(contentHash);
+        return true;
+    }
+
+    /**
+     * Remembers that a raw upload normalizes to the given content.
+     *
+     * @param rawHash     SHA-256 hex of the raw upload
+     * @param contentHash SHA-256 hex of the normalized audio
+     */
+    @Transactional
+    public void remember(String rawHash, String contentHash) {
+        AudioBlobAlias alias = new AudioBlobAlias();
+        alias.setRawHash(rawHash);
+        alias.setContentHash(contentHash);
+        audioBlobAliasRepository.save(alias);
+    }
+
+    /**
+     * Loads the bytes of the file's audio, unless they are already loaded. Audio in the configured store
+     * is read from there; rows not migrated yet are read from their legacy database column.
+     * Call outside of transactions: reads from the store may be slow.
+     *
+     * @param audioFile file whose {@code blob} association is initialized
+     * @return the same file, for chaining
+     * @throws AudioStorageException if the bytes cannot be read
+     */
+    public AudioFile loadContent(AudioFile audioFile) {
+        AudioBlob blob = audioFile.getBlob();
+        if (blob == null) {
+            if (audioFile.getLegacyData() == null && audioFile.getId() != null) {
+                audioFile.setLegacyData(readLegacyFileData(audioFile.getId()));
+            }
+            return audioFile;
+        }
+        if (blob.getData() != null) {
+            return audioFile;
+        }
+        if (blob.getStorageType() == null) {
+            blob.setData(readLegacyBlobData(blob.getContentHash()));
+            return audioFile;
+        }
+        if (!audioBlobStore.type().equals(blob.getStorageType())) {
+            throw new AudioStorageException("Audio " + blob.getContentHash() + " is stored in " + blob.getStorageType()
+                    + " but the configured store is " + audioBlobStore.type());
+        }
+        blob.setData(audioBlobStore.readAllBytes(blob.getContentHash()));
+        return audioFile;
+    }
+
+    /**
+     * Opens a blob for streaming without loading its bytes into memory. Blobs not migrated to the
+     * store yet are read from their legacy database column instead.
+     *
+     * @param contentHash SHA-256 hex of the normalized audio
+     * @param storageType store recorded on the blob, or null while the bytes are still in the database
+     * @param sizeBytes   recorded content size
+     * @return resource streaming the content on demand
+     * @throws AudioStorageException if the blob is held by a store other than the configured one
+     */
+    public Resource openContent(String contentHash, String storageType, long sizeBytes) {
+        if (storageType == null) {
+            byte[] data = readLegacyBlobData(contentHash);
+            return new ByteArrayResource(data != null ? data : new byte[0]);
+        }
+        if (!audioBlobStore.type().equals(storageType)) {
+            throw new AudioStorageException("Audio " + contentHash + " is stored in " + storageType
+                    + " but the configured store is " + audioBlobStore.type());
+        }
+        return new AudioBlobResource(audioBlobStore, contentHash, sizeBytes);
+    }
+
+    /**
+     * Drops one reference to a blob and deletes it, together with its aliases, once unreferenced.
+     * The stored bytes are deleted after the transaction commits.
+     *
+     * @param contentHash SHA-256 hex of the normalized audio; ignored if null
+     */
+    @Transactional
+    public void release(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        lockContent(contentHash);
+        audioBlobRepository.decrementRefCount(contentHash);
+        if (audioBlobRepository.deleteIfUnreferenced(contentHash) > 0) {
+            audioBlobAliasRepository.deleteAllByContentHash(contentHash);
+            deleteFromStoreAfterCommit(contentHash);
+            log.info("Deleted unreferenced audio blob hash={}", contentHash);
+        }
+    }
+
+    private void deleteFromStoreAfterCommit(String contentHash) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        // The same content may have been uploaded again since the row was deleted; an upload
+                        // attaching it right now holds the lock until its row is committed
+                        lockContent(contentHash);
+                        if (!audioBlobRepository.existsById(contentHash)) {
+                            audioBlobStore.delete(contentHash);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    log.warn("Could not delete stored audio hash={}; the object is orphaned", contentHash, e);
+                }
+            }
+        });
+    }
+
+    // Serializes reference changes and store deletion per content until the current transaction ends
+    private void lockContent(String contentHash) {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(hashtext(?))", contentHash);
+    }
+
+    /**
+     * @param limit maximum number of ids returned
+     * @return ids of audio files still holding bytes in the legacy {@code audio_files.data} column
+     */
+    public List<UUID> findLegacyAudioFileIds(int limit) {
+        if (!hasLegacyColumn(AUDIO_FILES)) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("select id from audio_files where content_hash is null and data is not null limit ?",
+                UUID.class, limit);
+    }
+
+    /**
+     * @param limit maximum number of hashes returned
+     * @return hashes of blobs whose bytes are still in the legacy {@code audio_blobs.data} column
+     */
+    public List<String> findDatabaseStoredHashes(int limit) {
+        if (!hasLegacyColumn(AUDIO_BLOBS)) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("select content_hash from audio_blobs where storage_type is null and data is not null limit ?",
+                String.class, limit);
+    }
+
+    /**
+     * Moves the bytes of a pre-deduplication audio file from its LOB column into a shared blob
+     * and unlinks the old large object.
+     *
+     * @param audioFileId id returned by {@link #findLegacyAudioFileIds(int)}
+     */
+    @Transactional
+    public void migrateLegacy(UUID audioFileId) {
+        AudioFile audioFile = audioFileRepository.findById(audioFileId).orElse(null);
+        if (audioFile == null || audioFile.getBlob() != null) {
+            return;
+        }
+        byte[] data = readLegacyFileData(audioFileId);
+        if (data == null) {
+            return;
+        }
+        attach(audioFile, ContentHash.sha256Hex(data), data);
+        // The column holds a Postgres large object which is not freed when the column is cleared
+        jdbcTemplate.queryForList("select lo_unlink(data) from audio_files where id = ? and data is not null", audioFileId);
+        jdbcTemplate.update("update audio_files set data = null where id = ?", audioFileId);
+        log.debug("Migrated legacy audio data audioFileId={} hash={}", audioFileId, audioFile.getContentHash());
+    }
+
+    /**
+     * Moves the bytes of a blob created before external storage from {@code audio_blobs.data}
+     * into the configured store.
+     *
+     * @param contentHash hash returned by {@link #findDatabaseStoredHashes(int)}
+     */
+    @Transactional
+    public void migrateToStore(String contentHash) {
+        AudioBlob blob = audioBlobRepository.findById(contentHash).orElse(null);
+        if (blob == null || blob.getStorageType() != null) {
+            return;
+        }
+        byte[] data = readLegacyBlobData(contentHash);
+        if (data == null) {
+            return;
+        }
+        audioBlobStore.put(contentHash, data);
+        blob.setStorageType(audioBlobStore.type());
+        if (blob.getDurationMs() == null) {
+            blob.setDurationMs(durationMs(data));
+        }
+        jdbcTemplate.update("update audio_blobs set data = null where content_hash = ?", contentHash);
+        log.debug("Moved audio blob to {} store hash={}", audioBlobStore.type(), contentHash);
+    }
+
+    /**
+     * Relaxes the NOT NULL constraints the legacy byte columns had before external storage.
+     * Idempotent; tables created after the columns were unmapped do not have them.
+     */
+    public void relaxLegacyColumn() {
+        if (hasLegacyColumn(AUDIO_FILES)) {
+            jdbcTemplate.execute("alter table audio_files alter column data drop not null");
+        }
+        if (hasLegacyColumn(AUDIO_BLOBS)) {
+            jdbcTemplate.execute("alter table audio_blobs alter column data drop not null");
+        }
+    }
+
+    private byte[] readLegacyFileData(UUID audioFileId) {
+        if (!hasLegacyColumn(AUDIO_FILES)) {
+            return null;
+        }
+        List<byte[]> rows = jdbcTemplate.queryForList("select lo_get(data) from audio_files where id = ? and data is not null",
+                byte[].class, audioFileId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private byte[] readLegacyBlobData(String contentHash) {
+        if (!hasLegacyColumn(AUDIO_BLOBS)) {
+            return null;
+        }
+        List<byte[]> rows = jdbcTemplate.queryForList("select data from audio_blobs where content_hash = ? and data is not null",
+                byte[].class, contentHash);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // The legacy columns are no longer mapped, so only databases created by older versions have them
+    private boolean hasLegacyColumn(String table) {
+        return legacyColumns.computeIfAbsent(table, t -> {
+            Integer count = jdbcTemplate.queryForObject(
+                    "select count(*) from information_schema.columns where table_schema = current_schema() and table_name = ? and column_name = 'data'",
+                    Integer.class, t);
+            return count != null && count > 0;
+        });
+    }
+
+    private static Long durationMs(byte[] data) {
+        return WavHeader.parse(Arrays.copyOf(data, Math.min(data.length, HEADER_PROBE_BYTES)))
+                .map(header -> header.durationMs(data.length))
+                .orElse(null);
+    }
+
+    private static Long durationMs(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            long size = Files.size(file);
+            return WavHeader.parse(in.readNBytes(HEADER_PROBE_BYTES))
+                    .map(header -> header.durationMs(size))
+                    .orElse(null);
+        } catch (IOException e) {
+            log.warn("Could not read WAV header of {}", file, e);
+            return null;
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package cz.oluwagbemiga.speech_metric.service;
 
 import cz.oluwagbemiga.speech_metric.dto.AudioFileDTO;
+import cz.oluwagbemiga.speech_metric.dto.AudioFileDownload;
+import cz.oluwagbemiga.speech_metric.dto.AudioFileSummaryDTO;
+import cz.oluwagbemiga.speech_metric.dto.KeysetCursor;
+import cz.oluwagbemiga.speech_metric.dto.KeysetPage;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
 import cz.oluwagbemiga.speech_metric.exception.FileNotExist;
-import cz.oluwagbemiga.speech_metric.exception.UploadFileException;
 import cz.oluwagbemiga.speech_metric.mapper.AudioFileMapper;
 import cz.oluwagbemiga.speech_metric.repository.AudioFileRepository;
+import cz.oluwagbemiga.speech_metric.repository.UserRepository;
+import cz.oluwagbemiga.speech_metric.storage.StagedAudio;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -20,12 +27,13 @@ import java.util.UUID;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Persisting audio files while normalizing raw audio into a canonical WAV PCM s16le mono 16kHz format.</li>
+ *   <li>Creating uploaded files on top of deduplicated {@link AudioBlobService} content.</li>
  *   <li>Simple read operations returning entities or DTO projections.</li>
  *   <li>Utility accessors for file name, binary content and ID aggregation.</li>
  *   <li>Rename and delete operations with domain specific exception handling.</li>
  * </ul>
- * Normalization is delegated to {@link FfmpegService} and mapping to {@link cz.oluwagbemiga.speech_metric.mapper.AudioFileMapper}.
+ * Upload normalization is handled by {@link UserService}; mapping is delegated to
+ * {@link cz.oluwagbemiga.speech_metric.mapper.AudioFileMapper}.
  */
 @Service
 @RequiredArgsConstructor
@@ -34,7 +42,9 @@ public class AudioFileService {
 
     private final AudioFileRepository audioFileRepository;
     private final AudioFileMapper audioFileMapper;
-    private final FfmpegService ffmpegService;
+    private final AudioBlobService audioBlobService;
+    private final RecognitionResultWriter recognitionResultWriter;
+    private final UserRepository userRepository;
 
     /**
      * Deletes an audio file by its UUID.
@@ -45,24 +55,54 @@ public class AudioFileService {
     @Transactional
     public void deleteAudioFileById(UUID audioFileId) {
         log.debug("Attempting delete audioFileId={}", audioFileId);
+        String contentHash = audioFileRepository.findContentHashById(audioFileId).orElse(null);
+        // Results go through the writer so per-model statistics drop them in this transaction
+        recognitionResultWriter.deleteByAudioFileId(audioFileId);
         if (audioFileRepository.deleteByUUID(audioFileId) == 0) {
             throw new FileNotExist(audioFileId.toString());
         }
+        audioBlobService.release(contentHash);
         log.info("Deleted audioFileId={}", audioFileId);
     }
 
     /**
-     * Retrieves an {@link AudioFile} entity by id.
+     * Creates an uploaded audio file referencing shared content-addressed audio.
+     * If the blob already exists only a reference is taken, otherwise a blob row is created for
+     * {@code normalized}, which must already be {@link AudioBlobService#store(StagedAudio) stored}.
+     *
+     * @param ownerId     owning user UUID
+     * @param fileName    stored file name
+     * @param contentHash SHA-256 hex of the normalized WAV
+     * @param normalized  staged normalized audio, or null when the content is expected to exist already
+     * @param rawHash     SHA-256 hex of the raw upload, remembered to skip normalization next time
+     * @return persisted file, or empty if the content is not stored (it vanished, or {@code normalized} was null)
+     */
+    @Transactional
+    public Optional<AudioFile> createForUpload(UUID ownerId, String fileName, String contentHash, StagedAudio normalized, String rawHash) {
+        var audioFile = new AudioFile();
+        audioFile.setFileName(fileName);
+        audioFile.setOwner(userRepository.getReferenceById(ownerId));
+        if (!audioBlobService.attach(audioFile, contentHash, normalized)) {
+            return Optional.empty();
+        }
+        audioBlobService.remember(rawHash, contentHash);
+        return Optional.of(audioFileRepository.save(audioFile));
+    }
+
+    /**
+     * Retrieves an {@link AudioFile} entity by id with its audio bytes loaded.
+     * The row is read in the repository's own short transaction and the bytes are fetched from the
+     * blob store afterwards, so no connection is held during storage I/O. The returned entity is detached;
+     * its audio blob is initialized, other lazy associations are not.
      *
      * @param id audio file UUID
      * @return found entity
      * @throws cz.oluwagbemiga.speech_metric.exception.FileNotExist if not present
      */
-    @Transactional
     public AudioFile getById(UUID id) {
         log.trace("Fetch AudioFile entity id={}", id);
-        return audioFileRepository.findById(id)
-                .orElseThrow(() -> new FileNotExist(id.toString()));
+        return audioBlobService.loadContent(audioFileRepository.findWithBlobById(id)
+                .orElseThrow(() -> new FileNotExist(id.toString())));
     }
 
     /**
@@ -72,12 +112,9 @@ public class AudioFileService {
      * @return DTO representation
      * @throws cz.oluwagbemiga.speech_metric.exception.FileNotExist if not present
      */
-    @Transactional(readOnly = true)
     public AudioFileDTO getDtoById(UUID id) {
         log.trace("Fetch AudioFile DTO id={}", id);
-        var entity = audioFileRepository.findById(id)
-                .orElseThrow(() -> new FileNotExist(id.toString()));
-        return audioFileMapper.toDto(entity);
+        return audioFileMapper.toDto(getById(id));
     }
 
     /**
@@ -86,13 +123,55 @@ public class AudioFileService {
      * @param userId user UUID
      * @return list of audio file UUIDs (never null)
      */
-    @Transactional
     public List<UUID> getIdsByUserId(UUID userId) {
         log.debug("Listing audio file IDs for userId={}", userId);
-        return audioFileRepository.findAllByOwner_Id(userId)
-                .stream()
-                .map(AudioFile::getId)
-                .toList();
+        return audioFileRepository.findIdsByOwnerId(userId);
+    }
+
+    /**
+     * Returns one keyset-paginated page of metadata of the audio files owned by a user, ordered by
+     * creation time, without reading any audio bytes.
+     *
+     * @param userId user UUID
+     * @param cursor {@link KeysetPage#nextCursor()} of the previous page, or null for the first page
+     * @param limit  requested page size, clamped to {@code [1, KeysetPage.MAX_LIMIT]}
+     * @return page of summaries (empty if none)
+     * @throws cz.oluwagbemiga.speech_metric.exception.InvalidCursorException if the cursor cannot be decoded
+     */
+    public KeysetPage<AudioFileSummaryDTO> getSummariesByUserId(UUID userId, String cursor, int limit) {
+        log.debug("Listing audio file summaries for userId={} cursor={} limit={}", userId, cursor, limit);
+        int pageSize = KeysetPage.clampLimit(limit);
+        // One extra row tells whether another page follows
+        var pageable = PageRequest.of(0, pageSize + 1);
+        List<AudioFileSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = audioFileRepository.findSummariesByOwnerId(userId, pageable);
+        } else {
+            var after = KeysetCursor.decode(cursor);
+            rows = audioFileRepository.findSummariesByOwnerIdAfter(userId, after.createdAt(), after.id(), pageable);
+        }
+        return KeysetPage.of(rows, pageSize, row -> new KeysetCursor(row.createdAt(), row.id()));
+    }
+
+    /**
+     * Prepares an audio file for streaming. Only metadata is read here; the bytes are read from the
+     * blob store while the response is written, outside of any transaction.
+     *
+     * @param id audio file UUID
+     * @return file name, entity tag and content resource
+     * @throws cz.oluwagbemiga.speech_metric.exception.FileNotExist if not present
+     */
+    public AudioFileDownload getDownloadById(UUID id) {
+        log.trace("Open AudioFile download id={}", id);
+        var view = audioFileRepository.findDownloadViewById(id)
+                .orElseThrow(() -> new FileNotExist(id.toString()));
+        if (view.getContentHash() == null) {
+            // Not migrated to shared storage yet: no content hash and the bytes are only in the database
+            byte[] data = getById(id).getData();
+            return new AudioFileDownload(view.getFileName(), null, new ByteArrayResource(data != null ? data : new byte[0]));
+        }
+        var content = audioBlobService.openContent(view.getContentHash(), view.getStorageType(), view.getSizeBytes());
+        return new AudioFileDownload(view.getFileName(), view.getContentHash(), content);
     }
 
     /**
@@ -102,12 +181,12 @@ public class AudioFileService {
      * @param newFileName new file name (extension may be modified by later normalization routines)
      * @throws cz.oluwagbemiga.speech_metric.exception.FileNotExist if target file not found
      */
+    @Transactional
     public void rename(UUID id, String newFileName) {
         log.debug("Rename audioFile id={} newName={}", id, newFileName);
-        var file = audioFileRepository.findById(id)
-                .orElseThrow(() -> new FileNotExist(id.toString()));
-        file.setFileName(newFileName);
-        audioFileRepository.save(file);
+        if (audioFileRepository.renameById(id, newFileName) == 0) {
+            throw new FileNotExist(id.toString());
+        }
         log.info("Renamed audioFile id={} newName={}", id, newFileName);
     }
 
@@ -118,11 +197,9 @@ public class AudioFileService {
      * @return byte array clone or null if data absent
      * @throws cz.oluwagbemiga.speech_metric.exception.FileNotExist if file not found
      */
-    @Transactional(readOnly = true)
     public byte[] getContentById(UUID id) {
         log.trace("Fetching content for audioFile id={}", id);
-        var file = audioFileRepository.findById(id)
-                .orElseThrow(() -> new FileNotExist(id.toString()));
+        var file = getById(id);
         return file.getData() == null ? null : file.getData().clone();
     }
 
@@ -135,8 +212,7 @@ public class AudioFileService {
      */
     public String getFileName(UUID id) {
         log.trace("Fetching fileName for audioFile id={}", id);
-        return audioFileRepository.findById(id)
-                .map(AudioFile::getFileName)
+        return audioFileRepository.findFileNameById(id)
                 .orElseThrow(() -> new FileNotExist(id.toString()));
     }
 
@@ -146,37 +222,10 @@ public class AudioFileService {
      * @param userId user UUID
      * @return list of DTOs (empty if none)
      */
-    @Transactional(readOnly = true)
     public List<AudioFileDTO> getDtosByUserId(UUID userId) {
         log.debug("Listing audio files (DTO) for userId={}", userId);
         var files = audioFileRepository.findAllByOwner_Id(userId);
+        files.forEach(audioBlobService::loadContent);
         return audioFileMapper.toDto(files);
     }
-
-    /**
-     * Persists an {@link AudioFile}. If raw data is present it will be normalized before persistence.
-     *
-     * @param audioFile entity to save (may contain raw bytes)
-     * @return persisted entity with possibly transformed data/file name
-     * @throws cz.oluwagbemiga.speech_metric.exception.UploadFileException when normalization fails
-     */
-    @Transactional
-    public AudioFile save(AudioFile audioFile) {
-        log.debug("Persist audioFile id={} fileName={} hasData={} dataBytes={} ", audioFile.getId(), audioFile.getFileName(), audioFile.getData() != null, audioFile.getData() == null ? 0 : audioFile.getData().length);
-        // Normalize and store only converted audio (16kHz mono PCM s16le WAV)
-        byte[] data = audioFile.getData();
-        if (data != null && data.length > 0) {
-            try {
-                byte[] converted = ffmpegService.toWavPcmMono16k(data);
-                audioFile.setData(converted);
-                audioFile.setFileName(ffmpegService.withWavExtension(audioFile.getFileName()));
-            } catch (IOException e) {
-                log.error("Failed to normalize audio before saving", e);
-                throw new UploadFileException("Audio normalization failed: ".concat(e.getMessage()));
-            }
-        }
-        AudioFile savedFile = audioFileRepository.saveAndFlush(audioFile);
-        log.info("Saved audioFile id={} fileName={} bytes={}", savedFile.getId(), savedFile.getFileName(), savedFile.getData() == null ? 0 : audioFile.getData().length);
-        return savedFile;
-    }
 }
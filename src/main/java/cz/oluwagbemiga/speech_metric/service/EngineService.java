@@ -23,7 +23,7 @@ public class EngineService {
     private final SpeechEngine voskLargeEngine;
     private final SpeechEngine voskSmallEngine;
     private final SpeechEngine whisperBaseEngine;
-    //    private final SpeechEngine whisperLargeV3TurboQ5Engine; // Problematic engine - severe halucinations unable  to finish properly
+    //    large-v3-turbo-q5 is not configured: severe hallucinations, unable to finish properly
     private final SpeechEngine whisperMediumEnQ5Engine;
     private final SpeechEngine whisperSmallQ51Engine;
     private final SpeechEngine whisperSmallQ8Engine;
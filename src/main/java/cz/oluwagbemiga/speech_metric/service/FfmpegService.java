@@ -1,49 +1,130 @@
 package cz.oluwagbemiga.speech_metric.service;
 
-import lombok.RequiredArgsConstructor;
+import cz.oluwagbemiga.speech_metric.audio.PcmWavDecoder;
+import cz.oluwagbemiga.speech_metric.audio.WavHeader;
+import cz.oluwagbemiga.speech_metric.exception.TranscoderBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Service for normalizing audio bytes into a recognition-friendly format.
+ * Service for normalizing audio streams into a recognition-friendly format.
  * Default target: WAV container, PCM s16le, mono, 16kHz.
+ * <p>
+ * ffmpeg runs are bounded: at most {@code speech.ffmpeg.max-processes} processes run at once, further
+ * uploads wait in a FIFO queue of at most {@code max-queued} entries for up to {@code queue-timeout}
+ * (then {@link TranscoderBusyException}), and a process running longer than {@code process-timeout}
+ * is killed. Published meters: {@code speech.ffmpeg.queue.depth}, {@code speech.ffmpeg.queue.wait},
+ * {@code speech.ffmpeg.processes.active}, {@code speech.ffmpeg.process.duration} and
+ * {@code speech.ffmpeg.jobs} (tag {@code outcome=success|failure|timeout|rejected}).
+ * </p>
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class FfmpegService {
 
-    private static final String FFMPEG_CMD = System.getenv("FFMPEG_PATH") != null ? System.getenv("FFMPEG_PATH") : "ffmpeg";
+    // Fixed buffers per pipe; together with the header probe they bound the memory of one normalization
+    private static final int PUMP_BUFFER_BYTES = 64 * 1024;
+    private static final int HEADER_PROBE_BYTES = 64 * 1024;
+    private static final int STDERR_TAIL_BYTES = 8 * 1024;
+
+    private final String ffmpegCommand;
+    private final TaskScheduler ffmpegWatchdog;
+    private final Semaphore slots;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Duration processTimeout;
+    private final long maxInputBytes;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWaitTimer;
+
+    public FfmpegService(MeterRegistry meterRegistry,
+                         TaskScheduler ffmpegWatchdog,
+                         @Value("${speech.ffmpeg.path:${FFMPEG_PATH:ffmpeg}}") String ffmpegCommand,
+                         @Value("${speech.ffmpeg.max-processes:2}") int maxProcesses,
+                         @Value("${speech.ffmpeg.max-queued:32}") int maxQueued,
+                         @Value("${speech.ffmpeg.queue-timeout:30s}") Duration queueTimeout,
+                         @Value("${speech.ffmpeg.process-timeout:120s}") Duration processTimeout,
+                         @Value("${spring.servlet.multipart.max-file-size:10MB}") DataSize maxInputSize) {
+        this.meterRegistry = meterRegistry;
+        this.ffmpegWatchdog = ffmpegWatchdog;
+        this.ffmpegCommand = ffmpegCommand;
+        this.slots = new Semaphore(Math.max(1, maxProcesses), true);
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.processTimeout = processTimeout;
+        this.maxInputBytes = maxInputSize.toBytes();
+        this.queueWaitTimer = Timer.builder("speech.ffmpeg.queue.wait")
+                .description("Time uploads waited for an ffmpeg slot")
+                .register(meterRegistry);
+        Gauge.builder("speech.ffmpeg.queue.depth", waiting, AtomicInteger::get)
+                .description("Uploads waiting for an ffmpeg slot")
+                .register(meterRegistry);
+        Gauge.builder("speech.ffmpeg.processes.active", active, AtomicInteger::get)
+                .description("Running ffmpeg processes")
+                .register(meterRegistry);
+        log.info("ffmpeg scheduler initialized maxProcesses={} maxQueued={} queueTimeout={} processTimeout={}",
+                Math.max(1, maxProcesses), maxQueued, queueTimeout, processTimeout);
+    }
 
     /**
-     * Convert arbitrary audio bytes into WAV PCM s16le mono 16kHz. If input already matches
-     * the desired format it is returned unchanged, otherwise transcoded via ffmpeg.
+     * Streams arbitrary audio into WAV PCM s16le mono 16kHz. If the input already matches the desired
+     * format it is copied unchanged; other uncompressed WAV is converted in-process by {@link PcmWavDecoder}
+     * (saving the ffmpeg process start); everything else is piped through ffmpeg.
+     * <p>
+     * Only a bounded prefix is held in memory for the header check; everything else flows through
+     * fixed-size buffers, so memory use does not depend on the input size.
+     * </p>
      *
-     * @param input original audio bytes
-     * @return normalized bytes (or original if already normalized)
-     * @throws IOException when ffmpeg process fails or is interrupted
+     * @param input  original audio; not closed
+     * @param output receives the normalized audio; not closed
+     * @return number of bytes written to {@code output}
+     * @throws IOException when reading, writing or the ffmpeg process fails, or when an uncompressed WAV
+     *                     declares more data than the upload limit or ends before its declared size
      */
-    public byte[] toWavPcmMono16k(byte[] input) throws IOException {
-        if (input == null || input.length == 0) return input;
-        log.debug("Audio normalization requested bytes={}", input.length);
-        try {
-            if (isWavPcmMono16k(input)) {
-                log.trace("Input already normalized; skipping ffmpeg transcode");
-                return input; // already normalized
-            } else {
-                log.debug("Input not normalized; invoking ffmpeg");
-            }
-        } catch (Exception e) {
-            // If header parsing fails, fall back to ffmpeg conversion
-            log.debug("WAV header parse failed, falling back to ffmpeg", e);
+    public long toWavPcmMono16k(InputStream input, OutputStream output) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, PUMP_BUFFER_BYTES);
+        in.mark(HEADER_PROBE_BYTES);
+        byte[] head = in.readNBytes(HEADER_PROBE_BYTES);
+        in.reset();
+        if (head.length == 0) return 0;
+        log.debug("Audio normalization requested headerBytes={}", head.length);
+        Optional<WavHeader> header = WavHeader.parse(head);
+        if (header.isPresent() && header.get().isPcmMono16k()) {
+            log.trace("Input already normalized; skipping ffmpeg transcode");
+            return copy(in, output); // already normalized
         }
-        return ffmpegTranscodeToWavPcmMono16k(input);
+        if (header.isPresent() && PcmWavDecoder.supports(header.get())) {
+            WavHeader wav = header.get();
+            log.debug("Converting uncompressed WAV in-process format={} channels={} rate={} bits={}",
+                    wav.formatCode(), wav.channels(), wav.sampleRate(), wav.bitsPerSample());
+            return PcmWavDecoder.decodeToPcmMono16k(wav, in, output, maxInputBytes);
+        }
+        log.debug("Input not uncompressed WAV; invoking ffmpeg");
+        return ffmpegTranscodeToWavPcmMono16k(in, output);
     }
 
     /**
@@ -62,16 +143,63 @@ public class FfmpegService {
     }
 
     /**
-     * Performs ffmpeg transcoding to canonical WAV PCM s16le mono 16kHz.
+     * Performs ffmpeg transcoding to canonical WAV PCM s16le mono 16kHz once a process slot is free.
      *
-     * @param input original bytes
-     * @return transcoded bytes
-     * @throws IOException on process start / execution failure
+     * @param input  original audio
+     * @param output receives the transcoded audio
+     * @return number of transcoded bytes
+     * @throws IOException on process start / execution failure, timeout, or if reading the input fails
+     * @throws TranscoderBusyException if no slot frees up in time or too many uploads are queued
+     */
+    long ffmpegTranscodeToWavPcmMono16k(InputStream input, OutputStream output) throws IOException {
+        acquireSlot();
+        active.incrementAndGet();
+        try {
+            return runFfmpeg(input, output);
+        } finally {
+            active.decrementAndGet();
+            slots.release();
+        }
+    }
+
+    private void acquireSlot() throws IOException {
+        if (slots.tryAcquire()) {
+            queueWaitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            countJob("rejected");
+            throw new TranscoderBusyException(maxQueued);
+        }
+        long start = System.nanoTime();
+        try {
+            if (!slots.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                countJob("rejected");
+                log.warn("No ffmpeg slot within {} ms", queueTimeout.toMillis());
+                throw new TranscoderBusyException(queueTimeout);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for ffmpeg", ie);
+        } finally {
+            waiting.decrementAndGet();
+            queueWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs one ffmpeg process.
+     * <p>
+     * stdin and stderr are pumped on their own threads while the calling thread drains stdout, so
+     * neither side can block on a full pipe buffer. Only the tail of stderr is kept for diagnostics.
+     * The watchdog kills the process when it exceeds the wall-clock limit, which ends the stdout copy.
+     * </p>
      */
-    private byte[] ffmpegTranscodeToWavPcmMono16k(byte[] input) throws IOException {
-        log.info("Starting ffmpeg normalization bytes={}", input.length);
+    private long runFfmpeg(InputStream input, OutputStream output) throws IOException {
+        log.info("Starting ffmpeg normalization");
         ProcessBuilder pb = new ProcessBuilder(
-                FFMPEG_CMD,
+                ffmpegCommand,
                 "-hide_banner",
                 "-loglevel", "error",
                 "-i", "pipe:0",
@@ -81,97 +209,145 @@ public class FfmpegService {
                 "-ar", "16000",
                 "pipe:1"
         );
+        long start = System.nanoTime();
         Process proc;
         try {
             proc = pb.start();
         } catch (IOException ioe) {
+            recordRun("failure", start);
             throw new IOException("Failed to start ffmpeg for audio normalization", ioe);
         }
-        try (OutputStream os = proc.getOutputStream()) {
-            os.write(input);
-        }
-        byte[] out = proc.getInputStream().readAllBytes();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = ffmpegWatchdog.schedule(() -> {
+            timedOut.set(true);
+            // Children (e.g. of a wrapper script) would otherwise keep stdout open
+            proc.descendants().forEach(ProcessHandle::destroyForcibly);
+            proc.destroyForcibly();
+        }, Instant.now().plus(processTimeout));
+        AtomicReference<IOException> inputFailure = new AtomicReference<>();
+        AtomicReference<String> stderrTail = new AtomicReference<>("");
+        Thread stdinPump = startPump("ffmpeg-stdin-" + proc.pid(), () -> feedStdin(proc, input, inputFailure));
+        Thread stderrPump = startPump("ffmpeg-stderr-" + proc.pid(), () -> stderrTail.set(drainTail(proc.getErrorStream())));
+        String outcome = "failure";
         try {
+            long written;
+            try (InputStream stdout = proc.getInputStream()) {
+                written = copy(stdout, output);
+            }
             int exit = proc.waitFor();
-            if (exit != 0 || out.length == 0) {
-                String err = new String(proc.getErrorStream().readAllBytes());
-                log.error("ffmpeg normalization failed (exit {}): {}", exit, err);
+            stdinPump.join();
+            stderrPump.join();
+            if (timedOut.get()) {
+                outcome = "timeout";
+                log.error("ffmpeg normalization killed after {} ms", processTimeout.toMillis());
+                throw new IOException("ffmpeg normalization timed out after " + processTimeout.toMillis() + " ms");
+            }
+            if (exit != 0 || written == 0) {
+                log.error("ffmpeg normalization failed (exit {}): {}", exit, stderrTail.get());
                 throw new IOException("ffmpeg normalization failed, exit=" + exit);
             }
+            if (inputFailure.get() != null) {
+                // ffmpeg saw a premature end of input and produced truncated audio
+                throw new IOException("Failed to read audio for normalization", inputFailure.get());
+            }
+            outcome = "success";
+            log.info("Completed ffmpeg normalization outputBytes={}", written);
+            return written;
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
             throw new IOException("Interrupted during ffmpeg normalization", ie);
+        } finally {
+            watchdog.cancel(false);
+            if (proc.isAlive()) {
+                proc.destroyForcibly();
+            }
+            recordRun(outcome, start);
         }
-        log.info("Completed ffmpeg normalization outputBytes={}", out.length);
-        return out;
     }
 
-    /**
-     * Lightweight header inspection to determine if data already matches target WAV format.
-     *
-     * @param data audio bytes
-     * @return true if RIFF/WAVE PCM s16le mono 16kHz
-     */
-    private boolean isWavPcmMono16k(byte[] data) {
-        if (data.length < 44) return false;
-        ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        // ChunkID "RIFF"
-        if (!equalsAscii(data, 0, "RIFF")) return false;
-        // Format "WAVE"
-        if (!equalsAscii(data, 8, "WAVE")) return false;
-        // Subchunk1ID "fmt " at offset 12
-        int fmtIndex = 12;
-        if (!equalsAscii(data, fmtIndex, "fmt ")) return false;
-        int subchunk1Size = bb.getInt(16); // usually 16 for PCM
-        int audioFormat = bb.getShort(20) & 0xFFFF; // 1 = PCM
-        int numChannels = bb.getShort(22) & 0xFFFF;
-        int sampleRate = bb.getInt(24);
-        int bitsPerSample = bb.getShort(34) & 0xFFFF;
-        if (audioFormat != 1) return false;
-        if (numChannels != 1) return false;
-        if (sampleRate != 16000) return false;
-        if (bitsPerSample != 16) return false;
-        // Optionally verify data subchunk exists
-        int dataIdx = findDataChunk(data, 12 + 8 + subchunk1Size);
-        boolean match = dataIdx > 0;
-        log.trace("Header check PCMmono16k result={}", match);
-        return match;
+    private void recordRun(String outcome, long startNanos) {
+        Timer.builder("speech.ffmpeg.process.duration")
+                .description("Wall-clock time of ffmpeg normalization processes")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        countJob(outcome);
+    }
+
+    private void countJob(String outcome) {
+        Counter.builder("speech.ffmpeg.jobs")
+                .description("ffmpeg normalization jobs by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
     }
 
     /**
-     * Finds the data chunk start index in a WAV stream.
-     *
-     * @param data  wav bytes
-     * @param start search offset
-     * @return index of data chunk or -1 if absent
+     * Copies the input into ffmpeg stdin and closes it. A write failure means ffmpeg stopped reading
+     * (its exit code tells why); a read failure is recorded because the output would be truncated.
      */
-    private int findDataChunk(byte[] data, int start) {
-        int i = start;
-        ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        while (i + 8 <= data.length) {
-            if (equalsAscii(data, i, "data")) {
-                return i;
+    private void feedStdin(Process proc, InputStream input, AtomicReference<IOException> inputFailure) {
+        byte[] buffer = new byte[PUMP_BUFFER_BYTES];
+        try (OutputStream stdin = proc.getOutputStream()) {
+            int read;
+            while (true) {
+                try {
+                    read = input.read(buffer);
+                } catch (IOException e) {
+                    inputFailure.set(e);
+                    return;
+                }
+                if (read < 0) {
+                    return;
+                }
+                stdin.write(buffer, 0, read);
             }
-            // read chunk size and skip
-            if (i + 8 > data.length) break;
-            int size = bb.getInt(i + 4);
-            i += 8 + Math.max(0, size);
+        } catch (IOException e) {
+            log.debug("ffmpeg closed stdin early: {}", e.getMessage());
         }
-        return -1;
     }
 
     /**
-     * Compares an ASCII string against a byte region.
-     *
-     * @param data   source bytes
-     * @param offset starting offset
-     * @param ascii  string to compare
-     * @return true if region matches
+     * Reads a stream to its end keeping only the last {@link #STDERR_TAIL_BYTES} bytes.
      */
-    private boolean equalsAscii(byte[] data, int offset, String ascii) {
-        byte[] ref = ascii.getBytes(StandardCharsets.US_ASCII);
-        if (offset + ref.length > data.length) return false;
-        for (int i = 0; i < ref.length; i++) if (data[offset + i] != ref[i]) return false;
-        return true;
+    private String drainTail(InputStream stream) {
+        byte[] tail = new byte[STDERR_TAIL_BYTES];
+        byte[] buffer = new byte[4096];
+        int length = 0;
+        try (stream) {
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                if (read >= tail.length) {
+                    System.arraycopy(buffer, read - tail.length, tail, 0, tail.length);
+                    length = tail.length;
+                } else {
+                    int keep = Math.min(length, tail.length - read);
+                    System.arraycopy(tail, length - keep, tail, 0, keep);
+                    System.arraycopy(buffer, 0, tail, keep, read);
+                    length = keep + read;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed reading ffmpeg stderr: {}", e.getMessage());
+        }
+        return new String(tail, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static Thread startPump(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[PUMP_BUFFER_BYTES];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
     }
 }
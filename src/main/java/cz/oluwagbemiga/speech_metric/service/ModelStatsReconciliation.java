@@ -0,0 +1,39 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Brings {@link cz.oluwagbemiga.speech_metric.entity.ModelStats} in line with the stored recognition results
+ * once after startup: fills the table for results recorded before it existed and repairs it after results
+ * were deleted outside the application. Runs on the maintenance executor and is a no-op when the aggregates already match.
+ */
+@Slf4j
+@Component
+public class ModelStatsReconciliation {
+
+    private final ModelStatsService modelStatsService;
+    private final Executor maintenanceExecutor;
+
+    public ModelStatsReconciliation(ModelStatsService modelStatsService, Executor maintenanceExecutor) {
+        this.modelStatsService = modelStatsService;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintenanceExecutor.execute(this::reconcile);
+    }
+
+    void reconcile() {
+        try {
+            modelStatsService.reconcile();
+        } catch (RuntimeException e) {
+            log.error("Model stats reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.dto.ModelLeaderboardEntryDTO;
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import cz.oluwagbemiga.speech_metric.entity.ModelStats;
+import cz.oluwagbemiga.speech_metric.entity.ModelStatsScope;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.metrics.LatencySketch;
+import cz.oluwagbemiga.speech_metric.metrics.RunningMoments;
+import cz.oluwagbemiga.speech_metric.repository.ModelStatsRepository;
+import cz.oluwagbemiga.speech_metric.repository.RecognitionResultRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Service maintaining {@link ModelStats}: per-model aggregates of recognition results for all results,
+ * per owner and per suite.
+ * <p>
+ * {@link #record(List)} folds freshly inserted results into their rows inside the inserting transaction,
+ * so the leaderboard is always consistent with the committed results and reading it never touches
+ * {@code recognition_result}. Rows are locked in key order, which serializes concurrent writers of the
+ * same model without deadlocks. Deleted results are taken out again by {@link #remove(List)} inside the
+ * deleting transaction; {@link #reconcile()} rebuilds the rows at startup whenever they no longer add up to
+ * the stored results, e.g. after rows were deleted directly in the database.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ModelStatsService {
+
+    private static final UUID GLOBAL_SCOPE_ID = new UUID(0L, 0L);
+
+    private final ModelStatsRepository modelStatsRepository;
+    private final RecognitionResultRepository recognitionResultRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds freshly inserted results to the aggregates of their model, owner and suite.
+     * Must run inside the transaction inserting the results.
+     *
+     * @param results persisted results with owner (and optionally suite) references set
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<RecognitionResult> results) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (RecognitionResult result : results) {
+            UUID suiteId = result.getRecognitionSuite() == null ? null : result.getRecognitionSuite().getId();
+            addSample(deltas, result.getModelName(), result.getOwner().getId(), suiteId, result.getAccuracy(),
+                    result.getWordErrorRate(), result.getModelProcessingTimeMs(), Boolean.TRUE.equals(result.getFromCache()));
+        }
+        // TreeMap iteration keeps inserts and locks in key order
+        deltas.forEach((key, delta) -> modelStatsRepository.insertIfAbsent(key, delta.modelName, delta.scope.name(), delta.scopeId));
+        LocalDateTime now = LocalDateTime.now();
+        for (ModelStats row : modelStatsRepository.findAllForUpdate(deltas.keySet())) {
+            deltas.get(row.getStatsKey()).applyTo(row);
+            row.setUpdatedAt(now);
+        }
+        log.trace("Recorded model stats results={} rows={}", results.size(), deltas.size());
+    }
+
+    /**
+     * Takes results about to be deleted out of the aggregates of their model, owner and suite.
+     * Must run inside the transaction deleting the results.
+     *
+     * @param samples stats fields of the deleted results
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(List<RecognitionResultRepository.StatsSample> samples) {
+        Map<String, Delta> deltas = new TreeMap<>();
+        samples.forEach(sample -> addSample(deltas, sample));
+        LocalDateTime now = LocalDateTime.now();
+        for (ModelStats row : modelStatsRepository.findAllForUpdate(deltas.keySet())) {
+            deltas.get(row.getStatsKey()).removeFrom(row);
+            row.setUpdatedAt(now);
+        }
+        log.trace("Removed model stats results={} rows={}", samples.size(), deltas.size());
+    }
+
+    /**
+     * Returns the leaderboard of a scope, best mean accuracy first. Reads one row per model.
+     *
+     * @param scope   slice of the history to rank
+     * @param scopeId owner or suite id; ignored for {@link ModelStatsScope#GLOBAL}
+     * @return one entry per model that has results in the scope
+     */
+    @Transactional(readOnly = true)
+    public List<ModelLeaderboardEntryDTO> getLeaderboard(ModelStatsScope scope, UUID scopeId) {
+        log.trace("Fetch leaderboard scope={} scopeId={}", scope, scopeId);
+        List<ModelStats> rows = scope == ModelStatsScope.GLOBAL
+                ? modelStatsRepository.findAllByScope(scope)
+                : modelStatsRepository.findAllByScopeAndScopeId(scope, scopeId);
+        return rows.stream()
+                .filter(row -> row.getResultCount() > 0)
+                .map(ModelStatsService::toEntry)
+                .sorted(Comparator.comparingDouble(ModelLeaderboardEntryDTO::meanAccuracy).reversed()
+                        .thenComparing(ModelLeaderboardEntryDTO::modelName))
+                .toList();
+    }
+
+    /**
+     * Rebuilds every row from {@code recognition_result} unless the global rows reproduce the totals of the
+     * stored results: result count, cached count, count of results with WER and summed model time. Comparing
+     * several totals catches deletions that were offset by inserts. The table is locked for the duration, so
+     * concurrent inserts wait and are recorded on top of the rebuilt rows instead of being counted twice.
+     *
+     * @return true if the rows were rebuilt
+     */
+    @Transactional
+    public boolean reconcile() {
+        jdbcTemplate.execute("lock table model_stats in exclusive mode");
+        var stored = recognitionResultRepository.computeStatsFingerprint();
+        List<ModelStats> global = modelStatsRepository.findAllByScope(ModelStatsScope.GLOBAL);
+        long counted = global.stream().mapToLong(ModelStats::getResultCount).sum();
+        if (stored.getResults() == counted
+                && stored.getCached() == global.stream().mapToLong(ModelStats::getCachedCount).sum()
+                && stored.getWithWordErrorRate() == global.stream().mapToLong(ModelStats::getWerCount).sum()
+                && stored.getModelProcessingTimeMs() == global.stream().mapToLong(ModelStats::getTotalModelProcessingTimeMs).sum()) {
+            return false;
+        }
+        Map<String, Delta> deltas = new TreeMap<>();
+        try (var samples = recognitionResultRepository.streamStatsSamples()) {
+            samples.forEach(sample -> addSample(deltas, sample));
+        }
+        modelStatsRepository.deleteAllInBatch();
+        List<ModelStats> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            ModelStats row = new ModelStats();
+            row.setStatsKey(key);
+            row.setModelName(delta.modelName);
+            row.setScope(delta.scope);
+            row.setScopeId(delta.scopeId);
+            delta.applyTo(row);
+            rows.add(row);
+        });
+        modelStatsRepository.saveAll(rows);
+        log.info("Rebuilt model stats results={} previouslyCounted={} rows={}", stored.getResults(), counted, rows.size());
+        return true;
+    }
+
+    private static void addSample(Map<String, Delta> deltas, RecognitionResultRepository.StatsSample sample) {
+        addSample(deltas, sample.getModelName(), sample.getOwnerId(), sample.getSuiteId(), sample.getAccuracy(),
+                sample.getWordErrorRate(), sample.getModelProcessingTimeMs(), Boolean.TRUE.equals(sample.getFromCache()));
+    }
+
+    private static void addSample(Map<String, Delta> deltas, String modelName, UUID ownerId, UUID suiteId, double accuracy,
+                                  Double wordErrorRate, long modelProcessingTimeMs, boolean fromCache) {
+        String model = modelName == null ? "" : modelName;
+        delta(deltas, model, ModelStatsScope.GLOBAL, GLOBAL_SCOPE_ID).add(accuracy, wordErrorRate, modelProcessingTimeMs, fromCache);
+        if (ownerId != null) {
+            delta(deltas, model, ModelStatsScope.OWNER, ownerId).add(accuracy, wordErrorRate, modelProcessingTimeMs, fromCache);
+        }
+        if (suiteId != null) {
+            delta(deltas, model, ModelStatsScope.SUITE, suiteId).add(accuracy, wordErrorRate, modelProcessingTimeMs, fromCache);
+        }
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, String modelName, ModelStatsScope scope, UUID scopeId) {
+        return deltas.computeIfAbsent(ContentHash.sha256Hex(scope.name(), scopeId.toString(), modelName),
+                key -> new Delta(modelName, scope, scopeId));
+    }
+
+    private static ModelLeaderboardEntryDTO toEntry(ModelStats row) {
+        var accuracy = new RunningMoments(row.getResultCount(), row.getAccuracyMean(), row.getAccuracyM2());
+        Double variance = accuracy.variance();
+        LatencySketch latency = LatencySketch.fromBytes(row.getLatencySketch());
+        long timed = row.getResultCount() - row.getCachedCount();
+        return new ModelLeaderboardEntryDTO(
+                row.getModelName(),
+                row.getResultCount(),
+                row.getAccuracyMean(),
+                variance == null ? null : Math.sqrt(variance),
+                row.getWerCount() == 0 ? null : row.getWerSum() / row.getWerCount(),
+                row.getCachedCount(),
+                timed <= 0 ? null : (double) row.getTotalModelProcessingTimeMs() / timed,
+                latency.quantile(0.5),
+                latency.quantile(0.9),
+                latency.quantile(0.99)
+        );
+    }
+
+    /**
+     * Aggregates of a batch of results for one row, merged into (or taken out of) the row in a single update.
+     */
+    private static final class Delta {
+        private final String modelName;
+        private final ModelStatsScope scope;
+        private final UUID scopeId;
+        private RunningMoments accuracy = RunningMoments.EMPTY;
+        private long werCount;
+        private double werSum;
+        private long cachedCount;
+        private long processingTimeMs;
+        private final LatencySketch latency = new LatencySketch();
+
+        private Delta(String modelName, ModelStatsScope scope, UUID scopeId) {
+            this.modelName = modelName;
+            this.scope = scope;
+            this.scopeId = scopeId;
+        }
+
+        private void add(double accuracyValue, Double wordErrorRate, long modelProcessingTimeMs, boolean fromCache) {
+            accuracy = accuracy.add(accuracyValue);
+            if (wordErrorRate != null) {
+                werCount++;
+                werSum += wordErrorRate;
+            }
+            if (fromCache) {
+                // Cached results carry the time of the original run; counting it again would skew latency
+                cachedCount++;
+            } else {
+                processingTimeMs += modelProcessingTimeMs;
+                latency.add(modelProcessingTimeMs);
+            }
+        }
+
+        private void applyTo(ModelStats row) {
+            var merged = new RunningMoments(row.getResultCount(), row.getAccuracyMean(), row.getAccuracyM2()).merge(accuracy);
+            row.setResultCount(merged.count());
+            row.setAccuracyMean(merged.mean());
+            row.setAccuracyM2(merged.m2());
+            row.setWerCount(row.getWerCount() + werCount);
+            row.setWerSum(row.getWerSum() + werSum);
+            row.setCachedCount(row.getCachedCount() + cachedCount);
+            row.setTotalModelProcessingTimeMs(row.getTotalModelProcessingTimeMs() + processingTimeMs);
+            if (latency.count() > 0) {
+                LatencySketch sketch = LatencySketch.fromBytes(row.getLatencySketch());
+                sketch.merge(latency);
+                row.setLatencySketch(sketch.toBytes());
+            }
+        }
+
+        private void removeFrom(ModelStats row) {
+            var rest = new RunningMoments(row.getResultCount(), row.getAccuracyMean(), row.getAccuracyM2()).remove(accuracy);
+            row.setResultCount(rest.count());
+            row.setAccuracyMean(rest.mean());
+            row.setAccuracyM2(rest.m2());
+            row.setWerCount(Math.max(0, row.getWerCount() - werCount));
+            row.setWerSum(row.getWerCount() == 0 ? 0d : row.getWerSum() - werSum);
+            row.setCachedCount(Math.max(0, row.getCachedCount() - cachedCount));
+            row.setTotalModelProcessingTimeMs(Math.max(0, row.getTotalModelProcessingTimeMs() - processingTimeMs));
+            if (latency.count() > 0) {
+                LatencySketch sketch = LatencySketch.fromBytes(row.getLatencySketch());
+                sketch.subtract(latency);
+                row.setLatencySketch(sketch.toBytes());
+            }
+        }
+    }
+}
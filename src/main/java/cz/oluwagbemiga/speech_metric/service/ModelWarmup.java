@@ -0,0 +1,191 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.audio.WavHeader;
+import cz.oluwagbemiga.speech_metric.engine.ModelManager;
+import cz.oluwagbemiga.speech_metric.engine.NativeModel;
+import cz.oluwagbemiga.speech_metric.engine.RecognitionRequest;
+import cz.oluwagbemiga.speech_metric.engine.SpeechEngine;
+import cz.oluwagbemiga.speech_metric.entity.AudioFile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the selected engines' models in parallel once after startup and runs a short synthetic utterance
+ * through each, so the first real request does not pay for page-faulting the weights, first-call native setup
+ * or computing the model checksum of the recognition cache.
+ * <p>
+ * As a health indicator it reports {@code OUT_OF_SERVICE} until every selected engine is warm and {@code DOWN}
+ * if one failed to load; included in the readiness group, it keeps traffic away from cold instances.
+ * Load and warm-up durations are logged and exported ({@code speech.models.load}, {@code speech.models.warmup}).
+ * Selected models should fit the model memory budget, otherwise warming later models evicts earlier ones.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ModelWarmup implements HealthIndicator {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int UTTERANCE_MS = 1000;
+
+    private final EngineService engineService;
+    private final ModelManager modelManager;
+    private final MeterRegistry meterRegistry;
+    private final Executor modelWarmupExecutor;
+
+    // Engine names to warm up; empty = every active engine
+    @Value("${speech.models.warmup.engines:}")
+    private List<String> engineNames;
+
+    @Value("${speech.models.warmup.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, EngineWarmup> states = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    public ModelWarmup(EngineService engineService, ModelManager modelManager, MeterRegistry meterRegistry,
+                       Executor modelWarmupExecutor) {
+        this.engineService = engineService;
+        this.modelManager = modelManager;
+        this.meterRegistry = meterRegistry;
+        this.modelWarmupExecutor = modelWarmupExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Model warm-up disabled");
+            started = true;
+            return;
+        }
+        List<SpeechEngine> engines = selectEngines();
+        engines.forEach(engine -> states.put(engine.getName(), new EngineWarmup()));
+        started = true;
+        log.info("Warming up models engines={}", engines.stream().map(SpeechEngine::getName).toList());
+        byte[] utterance = syntheticUtterance();
+        for (SpeechEngine engine : engines) {
+            modelWarmupExecutor.execute(() -> warmUp(engine, utterance));
+        }
+    }
+
+    /**
+     * @return UP once every selected engine is warm, DOWN if one failed, OUT_OF_SERVICE meanwhile
+     */
+    @Override
+    public Health health() {
+        if (!started) {
+            return Health.outOfService().build();
+        }
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean ready = true;
+        boolean failed = false;
+        for (Map.Entry<String, EngineWarmup> entry : new TreeMap<>(states).entrySet()) {
+            EngineWarmup state = entry.getValue();
+            details.put(entry.getKey(), state.describe());
+            ready &= state.phase == Phase.READY;
+            failed |= state.phase == Phase.FAILED;
+        }
+        Health.Builder health = failed ? Health.down() : ready ? Health.up() : Health.outOfService();
+        return health.withDetails(details).build();
+    }
+
+    void warmUp(SpeechEngine engine, byte[] utterance) {
+        EngineWarmup state = states.get(engine.getName());
+        NativeModel model = engine.getNativeModel();
+        try {
+            state.phase = Phase.LOADING;
+            long start = System.nanoTime();
+            // Holding the model keeps it resident between loading and the warm-up run
+            modelManager.acquire(model);
+            try {
+                state.loadMs = (System.nanoTime() - start) / 1_000_000L;
+                state.phase = Phase.WARMING;
+                long warmStart = System.nanoTime();
+                AudioFile audioFile = new AudioFile();
+                audioFile.setFileName("warmup.wav");
+                audioFile.setLegacyData(utterance);
+                engine.processAudio(new RecognitionRequest(audioFile, null));
+                long warmNanos = System.nanoTime() - warmStart;
+                state.warmupMs = warmNanos / 1_000_000L;
+                Timer.builder("speech.models.warmup")
+                        .description("Time of the synthetic warm-up recognition run after startup")
+                        .tag("model", engine.getName())
+                        .register(meterRegistry)
+                        .record(warmNanos, TimeUnit.NANOSECONDS);
+            } finally {
+                modelManager.release(model);
+            }
+            // Hashed here so the first cache lookup does not wait for it
+            engine.getModelChecksum(Runnable::run);
+            state.phase = Phase.READY;
+            log.info("Model warm model={} loadMs={} warmupMs={}", engine.getName(), state.loadMs, state.warmupMs);
+        } catch (RuntimeException e) {
+            state.error = e.getMessage();
+            state.phase = Phase.FAILED;
+            log.error("Model warm-up failed model={}", engine.getName(), e);
+        }
+    }
+
+    private List<SpeechEngine> selectEngines() {
+        if (engineNames == null || engineNames.stream().allMatch(String::isBlank)) {
+            return engineService.getAllEngines();
+        }
+        return engineNames.stream()
+                .filter(name -> !name.isBlank())
+                .map(name -> engineService.getEngineByName(name.trim()))
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * One second of a low two-tone signal: loud enough to reach the decoders, short enough to cost little.
+     */
+    private static byte[] syntheticUtterance() {
+        int samples = SAMPLE_RATE * UTTERANCE_MS / 1000;
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(WavHeader.pcmMono16k(samples * 2));
+        for (int i = 0; i < samples; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double value = 0.2 * Math.sin(2 * Math.PI * 220 * t) + 0.1 * Math.sin(2 * Math.PI * 440 * t);
+            wav.putShort((short) Math.round(value * Short.MAX_VALUE));
+        }
+        return wav.array();
+    }
+
+    private enum Phase {PENDING, LOADING, WARMING, READY, FAILED}
+
+    /**
+     * Progress of one engine, written by its warm-up task and read by health checks.
+     */
+    private static final class EngineWarmup {
+        private volatile Phase phase = Phase.PENDING;
+        private volatile long loadMs = -1;
+        private volatile long warmupMs = -1;
+        private volatile String error;
+
+        private Map<String, Object> describe() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("phase", phase);
+            if (loadMs >= 0) out.put("loadMs", loadMs);
+            if (warmupMs >= 0) out.put("warmupMs", warmupMs);
+            if (error != null) out.put("error", error);
+            return out;
+        }
+    }
+}
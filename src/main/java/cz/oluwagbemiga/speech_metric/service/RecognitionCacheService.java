@@ -0,0 +1,175 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
+import cz.oluwagbemiga.speech_metric.engine.SpeechEngine;
+import cz.oluwagbemiga.speech_metric.entity.CachedTranscript;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.repository.CachedTranscriptRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Postgres-backed cache of transcripts keyed by audio content, engine, model checksum and decoding
+ * parameters.
+ * <p>
+ * A hit means the same normalized audio has already been transcribed by the same model with the same
+ * decoding settings, so the stored transcript can be reused and only the metrics against the (possibly
+ * different) expected text have to be recomputed. The cache is bounded by {@code max-entries}: inserts are
+ * counted in memory against a size read once from the table, and when the estimate passes the limit the table
+ * is counted exactly and the least recently accessed entries are evicted down to {@link #TRIM_RATIO} of it,
+ * so the exact count runs once per many inserts rather than on each one.
+ * </p>
+ * Model checksums are computed by {@link ModelWarmup}, or on the model warm-up executor for engines it skipped;
+ * until an engine's checksum is known its runs bypass the cache instead of waiting for the model to be hashed.
+ * Lookups are counted in {@code speech.recognition.cache.requests} (tag {@code result=hit|miss}) and the
+ * running ratio is exposed as {@code speech.recognition.cache.hit.ratio}.
+ */
+@Slf4j
+@Service
+public class RecognitionCacheService {
+
+    // Share of max-entries kept after a trim; the headroom absorbs inserts until the next one
+    private static final double TRIM_RATIO = 0.95;
+
+    private final CachedTranscriptRepository cachedTranscriptRepository;
+    private final Executor modelWarmupExecutor;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+    // Estimated number of entries; -1 until read from the table. Inserts by other instances or rolled back
+    // inserts make it drift, which the exact count at the next trim corrects
+    private final AtomicLong estimatedSize = new AtomicLong(-1);
+
+    @Getter
+    @Value("${speech.recognition.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${speech.recognition.cache.max-entries:10000}")
+    private int maxEntries;
+
+    public RecognitionCacheService(CachedTranscriptRepository cachedTranscriptRepository, MeterRegistry meterRegistry,
+                                   Executor modelWarmupExecutor) {
+        this.cachedTranscriptRepository = cachedTranscriptRepository;
+        this.modelWarmupExecutor = modelWarmupExecutor;
+        this.hitCounter = Counter.builder("speech.recognition.cache.requests")
+                .description("Recognition cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("speech.recognition.cache.requests")
+                .description("Recognition cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("speech.recognition.cache.evictions")
+                .description("Cache entries evicted as least recently used")
+                .register(meterRegistry);
+        Gauge.builder("speech.recognition.cache.hit.ratio", this, RecognitionCacheService::hitRatio)
+                .description("Share of recognition cache lookups served from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the cache key of an engine run over the given audio content.
+     *
+     * @param engine    engine that would run the recognition
+     * @param audioHash SHA-256 hex of the normalized WAV bytes
+     * @param profile   requested decoding profile
+     * @return cache key, or null while the engine's model checksum is still being computed
+     */
+    public String keyFor(SpeechEngine engine, String audioHash, DecodingProfile profile) {
+        return engine.getModelChecksum(modelWarmupExecutor)
+                .map(checksum -> ContentHash.sha256Hex(audioHash, engine.getName(), checksum, engine.getRunSignature(profile)))
+                .orElse(null);
+    }
+
+    /**
+     * Looks up a cached transcript and marks it as recently used.
+     *
+     * @param key cache key from {@link #keyFor(SpeechEngine, String, DecodingProfile)}
+     * @return cached entry if present
+     */
+    @Transactional
+    public Optional<CachedTranscript> lookup(String key) {
+        Optional<CachedTranscript> entry = cachedTranscriptRepository.findById(key);
+        if (entry.isPresent()) {
+            cachedTranscriptRepository.touch(key, LocalDateTime.now());
+            hitCounter.increment();
+            log.debug("Recognition cache hit key={} engine={}", key, entry.get().getEngineName());
+        } else {
+            missCounter.increment();
+            log.trace("Recognition cache miss key={}", key);
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the transcript of a fresh recognition and evicts least recently used entries
+     * if the cache grew beyond its limit.
+     *
+     * @param key       cache key from {@link #keyFor(SpeechEngine, String, DecodingProfile)}
+     * @param engine    engine that produced the result
+     * @param audioHash SHA-256 hex of the normalized WAV bytes
+     * @param profile   decoding profile of the run
+     * @param result    fresh recognition result
+     */
+    @Transactional
+    public void store(String key, SpeechEngine engine, String audioHash, DecodingProfile profile, RecognitionResult result) {
+        if (cachedTranscriptRepository.existsById(key)) {
+            return;
+        }
+        CachedTranscript entry = new CachedTranscript();
+        entry.setCacheKey(key);
+        entry.setAudioHash(audioHash);
+        entry.setEngineName(engine.getName());
+        entry.setModelChecksum(engine.getModelChecksum(modelWarmupExecutor).orElseThrow());
+        entry.setDecodingSignature(engine.getRunSignature(profile));
+        entry.setRecognizedText(result.getRecognizedText());
+        entry.setModelProcessingTimeMs(result.getModelProcessingTimeMs());
+        entry.setSkippedSilenceMs(result.getSkippedSilenceMs());
+        entry.setSegments(result.getSegments());
+        cachedTranscriptRepository.save(entry);
+
+        long size = estimatedSize.get() < 0 ? estimatedSize.updateAndGet(n -> n < 0 ? cachedTranscriptRepository.count() : n + 1)
+                : estimatedSize.incrementAndGet();
+        if (size > maxEntries) {
+            trim();
+        }
+    }
+
+    /**
+     * Counts the entries exactly and evicts the least recently used ones down to {@link #TRIM_RATIO} of
+     * {@code max-entries}.
+     */
+    private void trim() {
+        long count = cachedTranscriptRepository.count();
+        long overflow = count - (long) (maxEntries * TRIM_RATIO);
+        if (count <= maxEntries || overflow <= 0) {
+            estimatedSize.set(count);
+            return;
+        }
+        List<String> evicted = cachedTranscriptRepository.findLeastRecentlyUsedKeys(PageRequest.of(0, (int) Math.min(overflow, Integer.MAX_VALUE)));
+        cachedTranscriptRepository.deleteAllByIdInBatch(evicted);
+        estimatedSize.set(count - evicted.size());
+        evictionCounter.increment(evicted.size());
+        log.debug("Recognition cache evicted entries={} maxEntries={}", evicted.size(), maxEntries);
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0d : hits / total;
+    }
+}
@@ -0,0 +1,100 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.repository.AudioFileRepository;
+import cz.oluwagbemiga.speech_metric.repository.RecognitionResultRepository;
+import cz.oluwagbemiga.speech_metric.repository.RecognitionSuiteRepository;
+import cz.oluwagbemiga.speech_metric.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts freshly produced {@link RecognitionResult} rows and deletes them together with their audio file or user.
+ * <p>
+ * Associations are re-pointed to lazy references by id before persisting, so neither the
+ * {@link cz.oluwagbemiga.speech_metric.entity.AudioFile} aggregate nor its audio bytes are loaded,
+ * merged or rewritten. Identifiers are generated application-side, which lets Hibernate group
+ * the inserts into JDBC batches ({@code hibernate.jdbc.batch_size}) and makes the ids available
+ * directly on the returned instances. Per-model statistics are updated in the same transaction as
+ * inserts and deletions (see {@link ModelStatsService#record(List)} and {@link ModelStatsService#remove(List)}).
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecognitionResultWriter {
+
+    private final RecognitionResultRepository recognitionResultRepository;
+    private final AudioFileRepository audioFileRepository;
+    private final UserRepository userRepository;
+    private final RecognitionSuiteRepository recognitionSuiteRepository;
+    private final ModelStatsService modelStatsService;
+
+    /**
+     * Inserts a single result.
+     *
+     * @param result new result (id must be null)
+     * @return the same instance with its generated id
+     */
+    @Transactional
+    public RecognitionResult insert(RecognitionResult result) {
+        return insertAll(List.of(result)).get(0);
+    }
+
+    /**
+     * Inserts results in one transaction using JDBC batching.
+     *
+     * @param results new results (ids must be null)
+     * @return the same instances, in the same order, with generated ids
+     */
+    @Transactional
+    public List<RecognitionResult> insertAll(List<RecognitionResult> results) {
+        if (results.isEmpty()) {
+            return results;
+        }
+        for (RecognitionResult result : results) {
+            result.setAudioFile(audioFileRepository.getReferenceById(result.getAudioFile().getId()));
+            result.setOwner(userRepository.getReferenceById(result.getOwner().getId()));
+            if (result.getRecognitionSuite() != null) {
+                result.setRecognitionSuite(recognitionSuiteRepository.getReferenceById(result.getRecognitionSuite().getId()));
+            }
+        }
+        recognitionResultRepository.saveAll(results);
+        modelStatsService.record(results);
+        log.debug("Inserted recognition results count={}", results.size());
+        return results;
+    }
+
+    /**
+     * Deletes the results of an audio file.
+     *
+     * @param audioFileId audio file UUID
+     * @return number of deleted results
+     */
+    @Transactional
+    public int deleteByAudioFileId(UUID audioFileId) {
+        modelStatsService.remove(recognitionResultRepository.findStatsSamplesByAudioFileId(audioFileId));
+        int deleted = recognitionResultRepository.deleteByAudioFileId(audioFileId);
+        log.debug("Deleted recognition results audioFileId={} count={}", audioFileId, deleted);
+        return deleted;
+    }
+
+    /**
+     * Deletes the results a user produced and the results produced on the user's audio files.
+     *
+     * @param userId user UUID
+     * @return number of deleted results
+     */
+    @Transactional
+    public int deleteByUserId(UUID userId) {
+        modelStatsService.remove(recognitionResultRepository.findStatsSamplesByUserId(userId));
+        int deleted = recognitionResultRepository.deleteByUserId(userId);
+        log.debug("Deleted recognition results userId={} count={}", userId, deleted);
+        return deleted;
+    }
+}
@@ -2,31 +2,37 @@ package cz.oluwagbemiga.speech_metric.service;
 
 
 import cz.oluwagbemiga.speech_metric.dto.RecognitionResponse;
-import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteDTO;
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
 import cz.oluwagbemiga.speech_metric.engine.RecognitionRequest;
 import cz.oluwagbemiga.speech_metric.engine.SpeechEngine;
+import cz.oluwagbemiga.speech_metric.engine.WhisperSegment;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
+import cz.oluwagbemiga.speech_metric.entity.CachedTranscript;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
-import cz.oluwagbemiga.speech_metric.entity.RecognitionSuite;
 import cz.oluwagbemiga.speech_metric.repository.RecognitionResultRepository;
-import cz.oluwagbemiga.speech_metric.repository.RecognitionSuiteRepository;
-import cz.oluwagbemiga.speech_metric.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Service coordinating speech recognition workflows.
  * <p>
  * Provides operations for executing recognition with a single selected engine or across all
  * registered engines, persisting resulting {@link cz.oluwagbemiga.speech_metric.entity.RecognitionResult}
- * instances (cascade via {@link cz.oluwagbemiga.speech_metric.entity.AudioFile}).
+ * instances. No database transaction is held while engines run. Engine runs are answered from the
+ * {@link RecognitionCacheService} when the same audio was already transcribed with the same model.
  * </p>
  */
 @Service
@@ -36,151 +42,214 @@ public class RecognitionService {
 
     private final EngineService engineService;
     private final AudioFileService audioFileService;
-    private final RecognitionSuiteRepository recognitionSuiteRepository;
     private final RecognitionResultRepository recognitionResultRepository;
-    private final UserRepository userRepository;
+    private final RecognitionResultWriter recognitionResultWriter;
+    private final RecognitionCacheService recognitionCacheService;
+    private final Executor recognitionExecutor;
 
 
     /**
      * Runs recognition for a single model selected by name.
+     * <p>
+     * The audio is loaded in a short read-only transaction, inference runs without any database
+     * connection held and the result is inserted in a separate short write transaction.
      *
      * @param audioFileId source audio UUID
      * @param expected    expected transcript provided by user (used for accuracy metrics)
      * @param modelSelect engine key (see {@link EngineService#getEngineByName(String)})
+     * @param profile     decoding profile for engines that support it
      * @return response DTO based on newly persisted result
      */
-    public RecognitionResponse recognizeAllEngines(
+    public RecognitionResponse recognize(
             UUID audioFileId,
             String expected,
-            String modelSelect) {
-        log.debug("Single-engine recognition request audioFileId={} model={} expectedChars={}", audioFileId, modelSelect, expected == null ? 0 : expected.length());
+            String modelSelect,
+            DecodingProfile profile) {
+        return recognize(audioFileId, expected, modelSelect, profile, null);
+    }
 
-        AudioFile audioFile = audioFileService.getById(audioFileId);
+    /**
+     * Runs recognition for a single model like {@link #recognize(UUID, String, String, DecodingProfile)},
+     * passing timestamped segments to the listener while the engine decodes them. When the transcript is
+     * served from the cache, its stored segments are passed at once.
+     *
+     * @param audioFileId     source audio UUID
+     * @param expected        expected transcript provided by user (used for accuracy metrics)
+     * @param modelSelect     engine key (see {@link EngineService#getEngineByName(String)})
+     * @param profile         decoding profile for engines that support it
+     * @param segmentListener receives segments in timeline order, or null
+     * @return response DTO based on newly persisted result
+     */
+    public RecognitionResponse recognize(
+            UUID audioFileId,
+            String expected,
+            String modelSelect,
+            DecodingProfile profile,
+            Consumer<WhisperSegment> segmentListener) {
+        log.debug("Single-engine recognition request audioFileId={} model={} profile={} expectedChars={}", audioFileId, modelSelect, profile.name(), expected == null ? 0 : expected.length());
 
         SpeechEngine engine = engineService.getEngineByName(modelSelect);
 
-        engine.processAudio(new RecognitionRequest(audioFile, expected));
+        AudioFile audioFile = audioFileService.getById(audioFileId);
+
+        RecognitionResult result = process(engine, audioFile, audioHash(audioFile), expected, profile, segmentListener);
 
-        // persist audio file with cascaded recognition result
-        AudioFile saved = audioFileService.save(audioFile);
-        RecognitionResult persisted = saved.getRecognitionResults().get(saved.getRecognitionResults().size() - 1);
+        RecognitionResult persisted = recognitionResultWriter.insert(result);
 
         log.info("Recognition completed audioFileId={} model={} accuracy={}", audioFileId, persisted.getModelName(), persisted.getAccuracy());
         return mapToResponse(persisted);
     }
 
     /**
-     * Executes recognition over all configured engines.
+     * Executes recognition over all configured engines concurrently.
+     * Uses the same read / inference / write phases as {@link #recognize(UUID, String, String, DecodingProfile)}.
      *
      * @param audioFileId source audio UUID
      * @param expected    expected transcript for metric calculation
-     * @return list of responses mapped from persisted results (one per engine)
+     * @param profile     decoding profile for engines that support it
+     * @return one response per engine, in engine order: mapped from the persisted result, or
+     * {@link RecognitionResponse#failed(String, String) failed} when the engine threw
      */
     public List<RecognitionResponse> recognizeAllEngines(
             UUID audioFileId,
-            String expected) {
+            String expected,
+            DecodingProfile profile) {
         log.debug("Multi-engine recognition request audioFileId={} expectedChars={}", audioFileId, expected == null ? 0 : expected.length());
 
         AudioFile audioFile = audioFileService.getById(audioFileId);
 
-        List<RecognitionResult> results = new ArrayList<>();
         List<SpeechEngine> engines = engineService.getAllEngines();
-        for (SpeechEngine engine : engines) {
-            results.add(engine.processAudio(new RecognitionRequest(audioFile, expected)));
-        }
-
-
-        AudioFile saved = audioFileService.save(audioFile);
-
-        long skipCount = saved.getRecognitionResults().size() == results.size() ? 0L :
-                saved.getRecognitionResults().size() - results.size();
-
-        var responses = saved.getRecognitionResults()
-                .stream()
-                .skip(skipCount)
-                .map(this::mapToResponse)
+        List<EngineOutcome> outcomes = runEngines(engines, audioFile, expected, profile);
+
+        recognitionResultWriter.insertAll(outcomes.stream()
+                .filter(EngineOutcome::succeeded)
+                .map(EngineOutcome::result)
+                .toList());
+        var responses = outcomes.stream()
+                .map(outcome -> outcome.succeeded()
+                        ? mapToResponse(outcome.result())
+                        : RecognitionResponse.failed(outcome.modelName(), outcome.error()))
                 .toList();
-        log.info("Multi-engine recognition finished audioFileId={} enginesProcessed={} responses={} ", audioFileId, engines.size(), responses.size());
+        log.info("Multi-engine recognition finished audioFileId={} enginesProcessed={} failed={}", audioFileId, engines.size(),
+                outcomes.stream().filter(outcome -> !outcome.succeeded()).count());
         return responses;
     }
 
     /**
-     * Executes recognition over all configured engines.
+     * Runs every configured engine on an already loaded audio file without persisting anything.
+     * Used by background suite jobs, which commit results in batches themselves.
      *
-     * @param audioFileId source audio UUID
-     * @param expected    expected transcript for metric calculation
-     * @return list of responses mapped from persisted results (one per engine)
+     * @param audioFile source audio
+     * @param expected  expected transcript for metric calculation
+     * @param profile   decoding profile for engines that support it
+     * @return one outcome per engine, in engine order
      */
-    public List<RecognitionResponse> recognizeAllEngines(
-            UUID audioFileId,
-            String expected,
-            RecognitionSuite suite) {
-        log.debug("Suite engine recognition request audioFileId={} suiteId={} expectedChars={}", audioFileId, suite.getId(), expected == null ? 0 : expected.length());
+    public List<EngineOutcome> runAllEngines(AudioFile audioFile, String expected, DecodingProfile profile) {
+        return runEngines(engineService.getAllEngines(), audioFile, expected, profile);
+    }
 
-        AudioFile audioFile = audioFileService.getById(audioFileId);
+    /**
+     * Runs the given engines concurrently on the recognition executor and collects their outcomes
+     * in engine order. An engine that throws is logged and reported as failed; the others are unaffected.
+     *
+     * @param engines   engines to run
+     * @param audioFile source audio
+     * @param expected  expected transcript for metric calculation
+     * @param profile   decoding profile for engines that support it
+     * @return one outcome per engine, ordered like {@code engines}
+     */
+    private List<EngineOutcome> runEngines(List<SpeechEngine> engines, AudioFile audioFile, String expected, DecodingProfile profile) {
+        long start = System.nanoTime();
+        String audioHash = audioHash(audioFile);
+        List<CompletableFuture<RecognitionResult>> futures = engines.stream()
+                .map(engine -> CompletableFuture.supplyAsync(
+                        () -> process(engine, audioFile, audioHash, expected, profile, null), recognitionExecutor))
+                .toList();
 
-        List<RecognitionResult> results = new ArrayList<>();
-        List<SpeechEngine> engines = engineService.getAllEngines();
-        for (SpeechEngine engine : engines) {
-            RecognitionResult recognitionResult = engine.processAudio(new RecognitionRequest(audioFile, expected));
-            recognitionResult.setRecognitionSuite(suite);
-            results.add(recognitionResult);
+        List<EngineOutcome> outcomes = new ArrayList<>(engines.size());
+        int succeeded = 0;
+        for (int i = 0; i < engines.size(); i++) {
+            String modelName = engines.get(i).getName();
+            try {
+                outcomes.add(new EngineOutcome(modelName, futures.get(i).join(), null));
+                succeeded++;
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Engine failed model={} audioFileId={}", modelName, audioFile.getId(), cause);
+                outcomes.add(new EngineOutcome(modelName, null,
+                        cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+            }
         }
-
-
-        AudioFile saved = audioFileService.save(audioFile);
-
-        long skipCount = saved.getRecognitionResults().size() == results.size() ? 0L :
-                saved.getRecognitionResults().size() - results.size();
-
-        var responses = saved.getRecognitionResults()
-                .stream()
-                .skip(skipCount)
-                .map(this::mapToResponse)
-                .toList();
-        log.info("Suite recognition finished audioFileId={} suiteId={} enginesProcessed={} responses={}", audioFileId, suite.getId(), engines.size(), responses.size());
-        return responses;
+        log.debug("Engine fan-out finished audioFileId={} engines={} succeeded={} wallMs={}", audioFile.getId(), engines.size(), succeeded, (System.nanoTime() - start) / 1_000_000L);
+        return outcomes;
     }
 
     /**
-     * Placeholder for suite execution (batch processing across multiple audio files).
+     * Runs one engine, answering from the recognition cache when the same audio content was already
+     * transcribed by the same model and decoding settings. On a hit only the metrics against the
+     * expected text are recomputed. Empty transcripts (failed or silent runs) are not cached.
+     * Cache failures never fail the recognition itself, and while the engine's model checksum is still being
+     * computed the cache is bypassed.
      *
-     * @param expectedMap mapping of audio file id to expected transcript
-     * @return list of recognition responses (currently null until implemented)
+     * @param engine          engine to run
+     * @param audioFile       source audio
+     * @param audioHash       SHA-256 of the audio bytes, or null to bypass the cache
+     * @param expected        expected transcript for metric calculation
+     * @param profile         decoding profile for engines that support it
+     * @param segmentListener receives segments in timeline order, or null
+     * @return recognition result (not persisted)
      */
-    @Transactional
-    public RecognitionSuiteDTO runSuite(Map<UUID, String> expectedMap, UUID ownerId) {
-        log.debug("Run suite start audioFilesCount={}", expectedMap == null ? 0 : expectedMap.size());
-        if (expectedMap == null || expectedMap.isEmpty()) {
-            log.warn("Run suite called with empty expected map");
-            return null;
+    private RecognitionResult process(SpeechEngine engine, AudioFile audioFile, String audioHash, String expected, DecodingProfile profile,
+                                      Consumer<WhisperSegment> segmentListener) {
+        RecognitionRequest request = new RecognitionRequest(audioFile, expected, profile, segmentListener);
+        if (audioHash == null) {
+            return engine.processAudio(request);
+        }
+        String key = null;
+        try {
+            key = recognitionCacheService.keyFor(engine, audioHash, profile);
+            Optional<CachedTranscript> cached = key == null ? Optional.empty() : recognitionCacheService.lookup(key);
+            if (cached.isPresent()) {
+                RecognitionResult result = engine.buildResult(request, cached.get().getRecognizedText(), cached.get().getModelProcessingTimeMs());
+                result.setFromCache(true);
+                result.setSkippedSilenceMs(cached.get().getSkippedSilenceMs());
+                result.setSegments(cached.get().getSegments());
+                if (segmentListener != null && result.getSegments() != null) {
+                    result.getSegments().forEach(segmentListener);
+                }
+                log.info("Recognition served from cache audioFileId={} model={} accuracy={}", audioFile.getId(), engine.getName(), result.getAccuracy());
+                return result;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Recognition cache lookup failed model={} audioFileId={}; running inference", engine.getName(), audioFile.getId(), e);
         }
 
-        RecognitionSuite recognitionSuite = new RecognitionSuite();
-        recognitionSuite.setOwner(userRepository.findById(ownerId).orElseThrow());
-        RecognitionSuite suite = recognitionSuiteRepository.save(recognitionSuite);
-        List<RecognitionResponse> allResponses = new ArrayList<>();
-
-        expectedMap.forEach((audioFileId, expected) -> {
-            List<RecognitionResponse> responses = recognizeAllEngines(audioFileId, expected, suite);
-            allResponses.addAll(responses);
-        });
-
-        log.info("Suite run complete suiteId={} totalResults={}", suite.getId(), allResponses.size());
-        return new RecognitionSuiteDTO(suite.getId(), allResponses, suite.getOwner().getId(), suite.getCreatedAt());
-
+        RecognitionResult result = engine.processAudio(request);
+        result.setFromCache(false);
+        if (key != null && result.getRecognizedText() != null && !result.getRecognizedText().isBlank()) {
+            try {
+                recognitionCacheService.store(key, engine, audioHash, profile, result);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Recognition cache entry stored concurrently key={}", key);
+            } catch (RuntimeException e) {
+                log.warn("Recognition cache store failed model={} audioFileId={}", engine.getName(), audioFile.getId(), e);
+            }
+        }
+        return result;
     }
 
+    private String audioHash(AudioFile audioFile) {
+        if (!recognitionCacheService.isEnabled()) {
+            return null;
+        }
+        if (audioFile.getContentHash() != null) {
+            return audioFile.getContentHash();
+        }
+        return audioFile.getData() == null ? null : ContentHash.sha256Hex(audioFile.getData());
+    }
 
     private RecognitionResponse mapToResponse(RecognitionResult result) {
-        var response = new RecognitionResponse(
-                result.getId(),
-                result.getModelName(),
-                result.getRecognizedText(),
-                result.getExpectedText(),
-                result.getAccuracy(),
-                result.getModelProcessingTimeMs()
-        );
+        var response = new RecognitionResponse(result);
         log.trace("Mapped RecognitionResult id={} model={} accuracy={} modelMs={}", result.getId(), result.getModelName(), result.getAccuracy(), result.getModelProcessingTimeMs());
         return response;
     }
@@ -204,4 +273,18 @@ public class RecognitionService {
                 .map(this::mapToResponse)
                 .toList();
     }
+
+    /**
+     * Outcome of one engine in a multi-engine run.
+     *
+     * @param modelName engine identifier
+     * @param result    recognition result (not persisted), or null if the engine failed
+     * @param error     failure message, or null if the engine completed
+     */
+    public record EngineOutcome(String modelName, RecognitionResult result, String error) {
+
+        public boolean succeeded() {
+            return result != null;
+        }
+    }
 }
@@ -1,16 +1,24 @@
 package cz.oluwagbemiga.speech_metric.service;
 
 
+import cz.oluwagbemiga.speech_metric.dto.KeysetCursor;
+import cz.oluwagbemiga.speech_metric.dto.KeysetPage;
 import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteDTO;
+import cz.oluwagbemiga.speech_metric.dto.RecognitionSuiteSummaryDTO;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
 import cz.oluwagbemiga.speech_metric.entity.RecognitionSuite;
 import cz.oluwagbemiga.speech_metric.repository.RecognitionSuiteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +31,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RecognitionSuiteService {
 
+    // Later than any stored suite: creation times are current timestamps and the all-ones UUID sorts last
+    private static final KeysetCursor NEWEST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            new UUID(-1L, -1L));
+
     private final RecognitionSuiteRepository recognitionSuiteRepository;
 
     /**
@@ -32,6 +44,7 @@ public class RecognitionSuiteService {
      * @return found suite
      * @throws RuntimeException if not found (consider custom exception later)
      */
+    @Transactional(readOnly = true)
     public RecognitionSuite getById(UUID id) {
         log.trace("Fetch RecognitionSuite id={}", id);
         return recognitionSuiteRepository.findById(id)
@@ -44,6 +57,7 @@ public class RecognitionSuiteService {
      * @param results recognition results to associate
      * @return DTO representation of persisted suite
      */
+    @Transactional
     public RecognitionSuiteDTO save(List<RecognitionResult> results) {
         log.debug("Create new RecognitionSuite resultsCount={}", results == null ? 0 : results.size());
         RecognitionSuite suite = new RecognitionSuite();
@@ -58,6 +72,7 @@ public class RecognitionSuiteService {
      * @param results additional results to merge
      * @return updated suite DTO
      */
+    @Transactional
     public RecognitionSuiteDTO addResults(UUID suiteId, List<RecognitionResult> results) {
         log.debug("Add results to suite suiteId={} addCount={}", suiteId, results == null ? 0 : results.size());
         RecognitionSuite suite = getById(suiteId);
@@ -69,30 +84,103 @@ public class RecognitionSuiteService {
     }
 
     /**
-     * Retrieve all RecognitionSuites in the database.
-     * @return list of suite DTOs
+     * Retrieve one page of RecognitionSuites across all users, newest first, with their results.
+     * Costs two queries per page regardless of its size.
+     *
+     * @param cursor {@link KeysetPage#nextCursor()} of the previous page, or null for the first page
+     * @param limit  requested page size, clamped to {@code [1, KeysetPage.MAX_LIMIT]}
+     * @return page of suite DTOs
+     * @throws cz.oluwagbemiga.speech_metric.exception.InvalidCursorException if the cursor cannot be decoded
      */
-    public List<RecognitionSuiteDTO> getAllSuites() {
-        log.trace("Fetch all RecognitionSuites");
-        return recognitionSuiteRepository.findAll().stream()
-                .map(RecognitionSuiteDTO::new)
-                .toList();
+    @Transactional(readOnly = true)
+    public KeysetPage<RecognitionSuiteDTO> getAllSuites(String cursor, int limit) {
+        log.trace("Fetch RecognitionSuites cursor={} limit={}", cursor, limit);
+        int pageSize = KeysetPage.clampLimit(limit);
+        var before = position(cursor);
+        var keys = recognitionSuiteRepository.findKeysBefore(before.createdAt(), before.id(), PageRequest.of(0, pageSize + 1));
+        return withResults(KeysetPage.of(keys, pageSize, RecognitionSuiteService::positionOf));
     }
 
     /**
-     * Retrieve all RecognitionSuites owned by a specific user.
+     * Retrieve one page of RecognitionSuites owned by a specific user, newest first, with their results.
+     *
      * @param ownerId user UUID
-     * @return list of suite DTOs for the owner
+     * @param cursor  {@link KeysetPage#nextCursor()} of the previous page, or null for the first page
+     * @param limit   requested page size, clamped to {@code [1, KeysetPage.MAX_LIMIT]}
+     * @return page of suite DTOs for the owner
+     * @throws cz.oluwagbemiga.speech_metric.exception.InvalidCursorException if the cursor cannot be decoded
      */
-    public List<RecognitionSuiteDTO> getSuitesByOwner(UUID ownerId) {
-        log.trace("Fetch RecognitionSuites ownerId={}", ownerId);
-        return recognitionSuiteRepository.findAllByOwner_Id(ownerId).stream()
-                .map(RecognitionSuiteDTO::new)
-                .toList();
+    @Transactional(readOnly = true)
+    public KeysetPage<RecognitionSuiteDTO> getSuitesByOwner(UUID ownerId, String cursor, int limit) {
+        log.trace("Fetch RecognitionSuites ownerId={} cursor={} limit={}", ownerId, cursor, limit);
+        int pageSize = KeysetPage.clampLimit(limit);
+        var before = position(cursor);
+        var keys = recognitionSuiteRepository.findKeysByOwnerIdBefore(ownerId, before.createdAt(), before.id(),
+                PageRequest.of(0, pageSize + 1));
+        return withResults(KeysetPage.of(keys, pageSize, RecognitionSuiteService::positionOf));
+    }
 
+    /**
+     * Retrieve one page of per-suite aggregates across all users, newest first, without individual results.
+     *
+     * @param cursor {@link KeysetPage#nextCursor()} of the previous page, or null for the first page
+     * @param limit  requested page size, clamped to {@code [1, KeysetPage.MAX_LIMIT]}
+     * @return page of suite summaries
+     * @throws cz.oluwagbemiga.speech_metric.exception.InvalidCursorException if the cursor cannot be decoded
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RecognitionSuiteSummaryDTO> getAllSuiteSummaries(String cursor, int limit) {
+        log.trace("Fetch RecognitionSuite summaries cursor={} limit={}", cursor, limit);
+        int pageSize = KeysetPage.clampLimit(limit);
+        var before = position(cursor);
+        var rows = recognitionSuiteRepository.findSummariesBefore(before.createdAt(), before.id(), PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> new KeysetCursor(row.createdAt(), row.id()));
     }
 
+    /**
+     * Retrieve one page of per-suite aggregates owned by a specific user, newest first, without individual results.
+     *
+     * @param ownerId user UUID
+     * @param cursor  {@link KeysetPage#nextCursor()} of the previous page, or null for the first page
+     * @param limit   requested page size, clamped to {@code [1, KeysetPage.MAX_LIMIT]}
+     * @return page of suite summaries for the owner
+     * @throws cz.oluwagbemiga.speech_metric.exception.InvalidCursorException if the cursor cannot be decoded
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RecognitionSuiteSummaryDTO> getSuiteSummariesByOwner(UUID ownerId, String cursor, int limit) {
+        log.trace("Fetch RecognitionSuite summaries ownerId={} cursor={} limit={}", ownerId, cursor, limit);
+        int pageSize = KeysetPage.clampLimit(limit);
+        var before = position(cursor);
+        var rows = recognitionSuiteRepository.findSummariesByOwnerIdBefore(ownerId, before.createdAt(), before.id(),
+                PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> new KeysetCursor(row.createdAt(), row.id()));
+    }
+
+    @Transactional(readOnly = true)
     public RecognitionSuiteDTO getSuiteDTOById(UUID id) {
-        return new RecognitionSuiteDTO(getById(id));
+        log.trace("Fetch RecognitionSuite DTO id={}", id);
+        return new RecognitionSuiteDTO(recognitionSuiteRepository.findWithResultsById(id)
+                .orElseThrow(() -> new RuntimeException("RecognitionSuite not found with id: " + id)));
+    }
+
+    // Loads the suites of a page of keys with their results in one query and restores the page order
+    private KeysetPage<RecognitionSuiteDTO> withResults(KeysetPage<RecognitionSuiteRepository.SuiteKey> keys) {
+        if (keys.items().isEmpty()) {
+            return new KeysetPage<>(List.of(), keys.nextCursor());
+        }
+        Map<UUID, RecognitionSuite> suites = recognitionSuiteRepository.findWithResultsByIdIn(
+                        keys.items().stream().map(RecognitionSuiteRepository.SuiteKey::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(RecognitionSuite::getId, Function.identity(), (a, b) -> a));
+        return keys.map(key -> new RecognitionSuiteDTO(suites.get(key.getId())));
+    }
+
+    // Listings are newest first, so the first page starts before a position later than any suite
+    private static KeysetCursor position(String cursor) {
+        return cursor == null || cursor.isBlank() ? NEWEST : KeysetCursor.decode(cursor);
+    }
+
+    private static KeysetCursor positionOf(RecognitionSuiteRepository.SuiteKey key) {
+        return new KeysetCursor(key.getCreatedAt(), key.getId());
     }
 }
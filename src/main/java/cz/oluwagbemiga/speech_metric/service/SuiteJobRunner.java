@@ -0,0 +1,178 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.dto.SuiteJobDTO;
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
+import cz.oluwagbemiga.speech_metric.entity.AudioFile;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJobStatus;
+import cz.oluwagbemiga.speech_metric.exception.FileNotExist;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes queued {@link cz.oluwagbemiga.speech_metric.entity.SuiteJob} runs on a background executor.
+ * <p>
+ * For every work item the audio file is loaded, all engines are run through
+ * {@link RecognitionService#runAllEngines(AudioFile, String, DecodingProfile)} with the job's decoding profile
+ * and the produced results are buffered.
+ * Every {@code speech.suite.commit-batch-size} audio files the buffer is committed together with
+ * the job progress, so a crash loses at most one batch. Once the application is ready, and then every
+ * {@code speech.suite.resume-interval}, queued jobs and jobs whose run stopped renewing its claim (e.g. its
+ * process died) are scheduled; a run that loses its claim to another run stops.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuiteJobRunner {
+
+    private final SuiteJobService suiteJobService;
+    private final RecognitionService recognitionService;
+    private final AudioFileService audioFileService;
+    private final Executor suiteJobExecutor;
+    private final TaskScheduler suiteJobScheduler;
+
+    // Jobs waiting or running on this instance, so periodic resumes do not queue them again
+    private final Set<UUID> scheduledJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${speech.suite.commit-batch-size:5}")
+    private int commitBatchSize;
+
+    @Value("${speech.suite.resume-interval:5m}")
+    private Duration resumeInterval;
+
+    /**
+     * Persists a new job and schedules it for background execution.
+     *
+     * @param expectedMap audio file id to expected transcript
+     * @param ownerId     submitting user
+     * @param profile     decoding profile used for every engine run of the job
+     * @return DTO of the queued job
+     */
+    public SuiteJobDTO submit(Map<UUID, String> expectedMap, UUID ownerId, DecodingProfile profile) {
+        SuiteJobDTO job = suiteJobService.create(expectedMap, ownerId, profile);
+        enqueue(job.jobId());
+        return job;
+    }
+
+    /**
+     * Re-schedules jobs interrupted by a shutdown or crash, now and periodically afterwards.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startResuming() {
+        resumeUnfinishedJobs();
+        suiteJobScheduler.scheduleWithFixedDelay(this::resumeUnfinishedJobs, Instant.now().plus(resumeInterval), resumeInterval);
+    }
+
+    private void resumeUnfinishedJobs() {
+        try {
+            List<UUID> jobIds = suiteJobService.findUnfinishedJobIds().stream()
+                    .filter(jobId -> !scheduledJobs.contains(jobId))
+                    .toList();
+            if (!jobIds.isEmpty()) {
+                log.info("Resuming unfinished suite jobs count={}", jobIds.size());
+            }
+            jobIds.forEach(this::enqueue);
+        } catch (RuntimeException e) {
+            log.error("Resuming suite jobs failed", e);
+        }
+    }
+
+    private void enqueue(UUID jobId) {
+        if (scheduledJobs.add(jobId)) {
+            suiteJobExecutor.execute(() -> run(jobId));
+        }
+    }
+
+    private void run(UUID jobId) {
+        SuiteJobService.PendingWork work = null;
+        try {
+            work = suiteJobService.start(jobId);
+            if (work == null) {
+                return;
+            }
+            List<RecognitionResult> batch = new ArrayList<>();
+            int batchItems = 0;
+            int completed = 0;
+            int failed = 0;
+            for (Map.Entry<UUID, String> item : work.pending().entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.warn("Suite job interrupted jobId={}; it will be resumed once its claim expires", jobId);
+                    return;
+                }
+                if (processItem(jobId, item.getKey(), item.getValue(), work.profile(), batch)) {
+                    completed++;
+                } else {
+                    failed++;
+                }
+                boolean claimed;
+                if (++batchItems >= commitBatchSize) {
+                    claimed = suiteJobService.commitBatch(jobId, work.claim(), batch, completed, failed);
+                    batch = new ArrayList<>();
+                    batchItems = 0;
+                    completed = 0;
+                    failed = 0;
+                } else {
+                    claimed = suiteJobService.renewClaim(jobId, work.claim());
+                }
+                if (!claimed) {
+                    log.warn("Suite job taken over by another run jobId={}; stopping", jobId);
+                    return;
+                }
+            }
+            if (batchItems > 0 && !suiteJobService.commitBatch(jobId, work.claim(), batch, completed, failed)) {
+                log.warn("Suite job taken over by another run jobId={}; stopping", jobId);
+                return;
+            }
+            suiteJobService.finish(jobId, work.claim(), SuiteJobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("Suite job failed jobId={}", jobId, e);
+            if (work != null) {
+                suiteJobService.finish(jobId, work.claim(), SuiteJobStatus.FAILED, e.getMessage());
+            }
+        } finally {
+            scheduledJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * Runs all engines on one audio file and appends the results to the batch.
+     * A failure of the item is counted as failed and does not stop the job.
+     *
+     * @return true if at least one engine produced a result
+     */
+    private boolean processItem(UUID jobId, UUID audioFileId, String expected, DecodingProfile profile, List<RecognitionResult> batch) {
+        try {
+            AudioFile audioFile = audioFileService.getById(audioFileId);
+            boolean anySucceeded = false;
+            for (RecognitionService.EngineOutcome outcome : recognitionService.runAllEngines(audioFile, expected, profile)) {
+                if (outcome.succeeded()) {
+                    batch.add(outcome.result());
+                    anySucceeded = true;
+                }
+            }
+            return anySucceeded;
+        } catch (FileNotExist e) {
+            log.warn("Suite job item skipped jobId={} audioFileId={}: {}", jobId, audioFileId, e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            log.error("Suite job item failed jobId={} audioFileId={}", jobId, audioFileId, e);
+            return false;
+        }
+    }
+}
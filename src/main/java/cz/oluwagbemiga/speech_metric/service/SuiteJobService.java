@@ -0,0 +1,232 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.dto.SuiteJobDTO;
+import cz.oluwagbemiga.speech_metric.engine.DecodingProfile;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionResult;
+import cz.oluwagbemiga.speech_metric.entity.RecognitionSuite;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJob;
+import cz.oluwagbemiga.speech_metric.entity.SuiteJobStatus;
+import cz.oluwagbemiga.speech_metric.exception.SuiteJobNotFoundException;
+import cz.oluwagbemiga.speech_metric.exception.UserNotExistException;
+import cz.oluwagbemiga.speech_metric.repository.RecognitionResultRepository;
+import cz.oluwagbemiga.speech_metric.repository.RecognitionSuiteRepository;
+import cz.oluwagbemiga.speech_metric.repository.SuiteJobRepository;
+import cz.oluwagbemiga.speech_metric.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Transactional state management for asynchronous {@link SuiteJob} runs.
+ * <p>
+ * Every method is a short transaction: job creation, start/resume, committing a batch of
+ * results together with the progress counters, and finishing. Inference itself is driven by
+ * {@link SuiteJobRunner} outside of any transaction.
+ * </p>
+ * <p>
+ * Starting a job claims it with a conditional update, so only one run processes a job even when several
+ * instances resume it. The claim expires after {@code speech.suite.claim-timeout} unless the run renews it;
+ * commits and finishing are ignored once the run has lost its claim.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuiteJobService {
+
+    private final SuiteJobRepository suiteJobRepository;
+    private final RecognitionSuiteRepository recognitionSuiteRepository;
+    private final RecognitionResultRepository recognitionResultRepository;
+    private final RecognitionResultWriter recognitionResultWriter;
+    private final UserRepository userRepository;
+
+    // How long a run holds a job without renewing its claim; must exceed the time to process one audio file
+    @Value("${speech.suite.claim-timeout:30m}")
+    private Duration claimTimeout;
+
+    /**
+     * Work remaining for a job when it is (re)started.
+     *
+     * @param suiteId suite receiving results
+     * @param pending audio file id to expected transcript for items without committed results
+     * @param profile decoding profile of the job
+     * @param claim   token of the run's claim on the job
+     */
+    public record PendingWork(UUID suiteId, Map<UUID, String> pending, DecodingProfile profile, UUID claim) {
+    }
+
+    /**
+     * Creates a suite and a queued job holding the work items.
+     *
+     * @param expectedMap audio file id to expected transcript
+     * @param ownerId     submitting user
+     * @param profile     decoding profile for every engine run of the job
+     * @return DTO of the queued job
+     * @throws UserNotExistException if the owner does not exist
+     */
+    @Transactional
+    public SuiteJobDTO create(Map<UUID, String> expectedMap, UUID ownerId, DecodingProfile profile) {
+        var owner = userRepository.findById(ownerId)
+                .orElseThrow(() -> new UserNotExistException("ID: " + ownerId));
+
+        RecognitionSuite suite = new RecognitionSuite();
+        suite.setOwner(owner);
+        suite = recognitionSuiteRepository.save(suite);
+
+        SuiteJob job = new SuiteJob();
+        job.setRecognitionSuite(suite);
+        job.setOwner(owner);
+        job.setExpectedTexts(new LinkedHashMap<>(expectedMap));
+        job.setTotalItems(expectedMap.size());
+        job.setDecodingProfile(profile.name());
+        job = suiteJobRepository.save(job);
+        log.info("Suite job queued jobId={} suiteId={} items={}", job.getId(), suite.getId(), job.getTotalItems());
+        return new SuiteJobDTO(job);
+    }
+
+    /**
+     * Returns current progress of a job.
+     *
+     * @param jobId job UUID
+     * @return job DTO
+     * @throws SuiteJobNotFoundException if the job does not exist
+     */
+    @Transactional(readOnly = true)
+    public SuiteJobDTO getStatus(UUID jobId) {
+        return new SuiteJobDTO(getJob(jobId));
+    }
+
+    /**
+     * Returns the suite id of a job.
+     *
+     * @param jobId job UUID
+     * @return suite UUID
+     * @throws SuiteJobNotFoundException if the job does not exist
+     */
+    @Transactional(readOnly = true)
+    public UUID getSuiteId(UUID jobId) {
+        return getJob(jobId).getRecognitionSuite().getId();
+    }
+
+    /**
+     * Ids of jobs that are queued or were running under a claim that lapsed, oldest first.
+     *
+     * @return ids of jobs a run can claim
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findUnfinishedJobIds() {
+        return suiteJobRepository.findClaimableIds(SuiteJobStatus.QUEUED, SuiteJobStatus.RUNNING, LocalDateTime.now());
+    }
+
+    /**
+     * Claims a job for a new run, marks it as running and returns the items that do not have committed results yet.
+     * Progress counters are re-synchronized with the results already stored in the suite.
+     *
+     * @param jobId job UUID
+     * @return pending work, or null when the job is finished or held by another run
+     */
+    @Transactional
+    public PendingWork start(UUID jobId) {
+        UUID claim = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        if (suiteJobRepository.claim(jobId, claim, SuiteJobStatus.QUEUED, SuiteJobStatus.RUNNING, now, now.plus(claimTimeout)) == 0) {
+            log.debug("Suite job not claimed jobId={}: finished or held by another run", jobId);
+            return null;
+        }
+        SuiteJob job = getJob(jobId);
+        UUID suiteId = job.getRecognitionSuite().getId();
+        Set<UUID> processed = new HashSet<>(recognitionResultRepository.findAudioFileIdsBySuiteId(suiteId));
+        Map<UUID, String> pending = new LinkedHashMap<>();
+        job.getExpectedTexts().forEach((audioFileId, expected) -> {
+            if (!processed.contains(audioFileId)) {
+                pending.put(audioFileId, expected);
+            }
+        });
+        job.setCompletedItems(job.getTotalItems() - pending.size());
+        job.setFailedItems(0);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        log.info("Suite job started jobId={} suiteId={} pending={} alreadyDone={}", jobId, suiteId, pending.size(), job.getCompletedItems());
+        return new PendingWork(suiteId, pending, DecodingProfile.forName(job.getDecodingProfile()), claim);
+    }
+
+    /**
+     * Extends the run's claim on a job.
+     *
+     * @param jobId job UUID
+     * @param claim token returned by {@link #start(UUID)}
+     * @return false if another run took over the job
+     */
+    @Transactional
+    public boolean renewClaim(UUID jobId, UUID claim) {
+        return suiteJobRepository.renewClaim(jobId, claim, SuiteJobStatus.RUNNING, LocalDateTime.now().plus(claimTimeout)) > 0;
+    }
+
+    /**
+     * Persists a batch of results into the job's suite and advances progress in one transaction, renewing the claim.
+     *
+     * @param jobId     job UUID
+     * @param claim     token returned by {@link #start(UUID)}
+     * @param results   results produced for the batch
+     * @param completed audio files of the batch that produced results
+     * @param failed    audio files of the batch that failed
+     * @return false if another run took over the job; nothing is written then
+     */
+    @Transactional
+    public boolean commitBatch(UUID jobId, UUID claim, List<RecognitionResult> results, int completed, int failed) {
+        if (!renewClaim(jobId, claim)) {
+            return false;
+        }
+        SuiteJob job = getJob(jobId);
+        RecognitionSuite suite = job.getRecognitionSuite();
+        results.forEach(result -> result.setRecognitionSuite(suite));
+        recognitionResultWriter.insertAll(results);
+        job.setCompletedItems(job.getCompletedItems() + completed);
+        job.setFailedItems(job.getFailedItems() + failed);
+        log.debug("Suite job batch committed jobId={} results={} completed={} failed={}", jobId, results.size(), job.getCompletedItems(), job.getFailedItems());
+        return true;
+    }
+
+    /**
+     * Marks a job as finished unless another run took it over.
+     *
+     * @param jobId        job UUID
+     * @param claim        token returned by {@link #start(UUID)}
+     * @param status       COMPLETED or FAILED
+     * @param errorMessage failure reason, may be null; cut to the column size so a long native or SQL message
+     *                     cannot keep the job from being marked finished
+     */
+    @Transactional
+    public void finish(UUID jobId, UUID claim, SuiteJobStatus status, String errorMessage) {
+        if (!renewClaim(jobId, claim)) {
+            log.warn("Suite job not finished jobId={}: claim lost to another run", jobId);
+            return;
+        }
+        SuiteJob job = getJob(jobId);
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage == null || errorMessage.length() <= SuiteJob.ERROR_MESSAGE_LENGTH
+                ? errorMessage
+                : errorMessage.substring(0, SuiteJob.ERROR_MESSAGE_LENGTH));
+        job.setFinishedAt(LocalDateTime.now());
+        job.setClaimToken(null);
+        job.setClaimExpiresAt(null);
+        log.info("Suite job finished jobId={} status={} completed={} failed={}", jobId, status, job.getCompletedItems(), job.getFailedItems());
+    }
+
+    private SuiteJob getJob(UUID jobId) {
+        return suiteJobRepository.findById(jobId)
+                .orElseThrow(() -> new SuiteJobNotFoundException(jobId.toString()));
+    }
+}
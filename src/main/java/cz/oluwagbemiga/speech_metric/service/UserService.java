@@ -2,22 +2,32 @@ package cz.oluwagbemiga.speech_metric.service;
 
 import cz.oluwagbemiga.speech_metric.dto.UploadResponse;
 import cz.oluwagbemiga.speech_metric.dto.UserDTO;
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
 import cz.oluwagbemiga.speech_metric.entity.AudioFile;
 import cz.oluwagbemiga.speech_metric.entity.User;
+import cz.oluwagbemiga.speech_metric.exception.TranscoderBusyException;
 import cz.oluwagbemiga.speech_metric.exception.UploadFileException;
 import cz.oluwagbemiga.speech_metric.exception.UserNotExistException;
 import cz.oluwagbemiga.speech_metric.mapper.AudioFileMapper;
 import cz.oluwagbemiga.speech_metric.mapper.UserMapper;
+import cz.oluwagbemiga.speech_metric.repository.AudioFileRepository;
 import cz.oluwagbemiga.speech_metric.repository.UserRepository;
+import cz.oluwagbemiga.speech_metric.storage.StagedAudio;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service managing {@link cz.oluwagbemiga.speech_metric.entity.User} lifecycle and user-owned audio uploads.
@@ -38,6 +48,18 @@ public class UserService {
 
     private final FfmpegService ffmpegService;
 
+    private final AudioFileService audioFileService;
+
+    private final AudioBlobService audioBlobService;
+
+    private final AudioFileRepository audioFileRepository;
+
+    private final RecognitionResultWriter recognitionResultWriter;
+
+    // Normalized uploads are spooled here until their content hash is known
+    @Value("${speech.storage.staging-dir:${java.io.tmpdir}}")
+    private String stagingDir;
+
     /**
      * Creates and persists a new user with given username.
      *
@@ -50,7 +72,7 @@ public class UserService {
         userEntity.setUsername(username);
         var savedUser = userRepository.save(userEntity);
         log.info("Created user id={} username={}", savedUser.getId(), savedUser.getUsername());
-        return userMapper.toDto(savedUser);
+        return userMapper.toDto(savedUser, List.of());
     }
 
     /**
@@ -62,10 +84,17 @@ public class UserService {
     @Transactional
     public void deleteUserByUsername(String username) {
         log.debug("Deleting user username={}", username);
+        UUID userId = userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new UserNotExistException(username));
+        List<String> contentHashes = audioFileRepository.findContentHashesByOwnerUsername(username);
+        // Results go through the writer so per-model statistics drop them in this transaction
+        recognitionResultWriter.deleteByUserId(userId);
         var success = userRepository.deleteByUsername(username);
         if (success == 0) {
             throw new UserNotExistException(username);
         }
+        contentHashes.forEach(audioBlobService::release);
         log.info("Deleted user username={}", username);
     }
 
@@ -76,12 +105,11 @@ public class UserService {
      * @return user DTO
      * @throws cz.oluwagbemiga.speech_metric.exception.UserNotExistException if user not found
      */
-    @Transactional
     public UserDTO getUserByUsername(String username) {
         log.trace("Fetching user by username={}", username);
         var user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotExistException(username));
-        return userMapper.toDto(user);
+        return userMapper.toDto(user, audioFileRepository.findIdsByOwnerId(user.getId()));
     }
 
     /**
@@ -89,15 +117,25 @@ public class UserService {
      *
      * @return list of user DTOs
      */
-    @Transactional
     public List<UserDTO> getAllUsers() {
         log.debug("Fetching all users");
         var users = userRepository.findAll();
-        return userMapper.toDto(users);
+        // One id-only query for all users instead of initializing every user's audio files
+        Map<UUID, List<UUID>> audioFileIds = audioFileRepository.findAllOwnedIds().stream()
+                .collect(Collectors.groupingBy(AudioFileRepository.OwnedId::getOwnerId,
+                        Collectors.mapping(AudioFileRepository.OwnedId::getId, Collectors.toList())));
+        return users.stream()
+                .map(user -> userMapper.toDto(user, audioFileIds.getOrDefault(user.getId(), List.of())))
+                .toList();
     }
 
     /**
-     * Adds an uploaded audio file to a user. Audio is normalized (WAV PCM s16le mono 16kHz) before persistence.
+     * Adds an uploaded audio file to a user. Audio is normalized (WAV PCM s16le mono 16kHz) and stored
+     * content-addressed: an upload whose raw bytes were seen before skips ffmpeg, and an upload whose
+     * normalized audio is already stored only adds metadata referencing the existing bytes.
+     * The upload is streamed through ffmpeg into a staged file and from there into the blob store before
+     * the database transaction starts, so heap use per upload does not grow with the file size and no
+     * connection is held while the bytes are written.
      *
      * @param userId id of owner user
      * @param file   multipart upload
@@ -105,17 +143,43 @@ public class UserService {
      * @throws cz.oluwagbemiga.speech_metric.exception.UserNotExistException if user not found
      * @throws cz.oluwagbemiga.speech_metric.exception.UploadFileException   on IO/processing errors
      */
-    @Transactional
     public UploadResponse addFileToUser(UUID userId, MultipartFile file) {
         log.debug("Uploading file for userId={} originalFilename={}", userId, file.getOriginalFilename());
-        var user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotExistException("ID: " + userId));
-        var audioFile = new AudioFile();
-        try (var inputStream = file.getInputStream()) {
-            byte[] original = inputStream.readAllBytes();
-            byte[] normalized = ffmpegService.toWavPcmMono16k(original);
-            audioFile.setData(normalized);
-            audioFile.setFileName(ffmpegService.withWavExtension(file.getOriginalFilename()));
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotExistException("ID: " + userId);
+        }
+        String fileName = ffmpegService.withWavExtension(file.getOriginalFilename());
+        AudioFile audioFile;
+        try {
+            // Multipart content is spooled to disk by the container, so it can be streamed twice:
+            // once for the raw hash and once through ffmpeg into a staged file
+            String rawHash;
+            try (var inputStream = file.getInputStream()) {
+                rawHash = ContentHash.sha256Hex(inputStream);
+            }
+            Optional<AudioFile> stored = audioBlobService.resolveAlias(rawHash)
+                    .flatMap(contentHash -> createWithRetry(userId, fileName, contentHash, null, rawHash));
+            if (stored.isPresent()) {
+                log.debug("Upload matched known raw audio; skipped normalization rawHash={}", rawHash);
+            } else {
+                try (StagedAudio normalized = StagedAudio.write(Path.of(stagingDir), out -> {
+                    try (var inputStream = file.getInputStream()) {
+                        ffmpegService.toWavPcmMono16k(inputStream, out);
+                    }
+                })) {
+                    // Written before the transaction, so no connection is held during storage I/O
+                    audioBlobService.store(normalized);
+                    stored = createWithRetry(userId, fileName, normalized.contentHash(), normalized, rawHash);
+                    if (stored.isEmpty()) {
+                        log.debug("Stored audio was released concurrently; storing again hash={}", normalized.contentHash());
+                        audioBlobService.store(normalized);
+                        stored = createWithRetry(userId, fileName, normalized.contentHash(), normalized, rawHash);
+                    }
+                }
+            }
+            audioFile = stored.orElseThrow(() -> new UploadFileException("Failed to upload file: " + file.getOriginalFilename()));
+        } catch (UploadFileException | TranscoderBusyException e) {
+            throw e;
         } catch (IOException e) {
             log.error("Failed to read/convert uploaded audio", e);
             throw new UploadFileException("Failed to upload file: " + file.getOriginalFilename());
@@ -123,13 +187,20 @@ public class UserService {
             log.error("Unexpected error during upload", e);
             throw new UploadFileException("Failed to upload file: " + file.getOriginalFilename());
         }
-        audioFile.setOwner(user);
-        user.getAudioFiles().add(audioFile);
-
-        user = userRepository.save(user);
+        log.info("Uploaded file for userId={} storedFileName={} contentHash={}", userId, audioFile.getFileName(), audioFile.getContentHash());
+        return new UploadResponse(audioFile);
+    }
 
-        List<AudioFile> audioFiles = user.getAudioFiles();
-        log.info("Uploaded file for userId={} storedFileName={} bytes={}", userId, audioFile.getFileName(), audioFile.getData() == null ? 0 : audioFile.getData().length);
-        return new UploadResponse(audioFiles.get(audioFiles.size() - 1));
+    /**
+     * Creates the audio file, retrying once when a concurrent upload of the same content
+     * inserted the blob first.
+     */
+    private Optional<AudioFile> createWithRetry(UUID userId, String fileName, String contentHash, StagedAudio normalized, String rawHash) {
+        try {
+            return audioFileService.createForUpload(userId, fileName, contentHash, normalized, rawHash);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent upload stored blob hash={} first; retrying", contentHash);
+            return audioFileService.createForUpload(userId, fileName, contentHash, normalized, rawHash);
+        }
     }
 }
@@ -0,0 +1,111 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Spring {@link org.springframework.core.io.Resource} streaming one blob from an {@link AudioBlobStore}.
+ * <p>
+ * Lets MVC serve downloads, {@code Range} requests included, without loading the blob into memory.
+ * Spring reads a range by skipping to its start; the returned stream opens the store lazily, so a skip
+ * before the first read becomes a seek (file position, S3 ranged GET) instead of reading the skipped bytes.
+ * </p>
+ */
+public class AudioBlobResource extends AbstractResource {
+
+    private final AudioBlobStore store;
+    private final String contentHash;
+    private final long sizeBytes;
+
+    public AudioBlobResource(AudioBlobStore store, String contentHash, long sizeBytes) {
+        this.store = store;
+        this.contentHash = AudioBlobStore.requireContentHash(contentHash);
+        this.sizeBytes = sizeBytes;
+    }
+
+    @Override
+    public String getDescription() {
+        return "audio blob " + contentHash + " in " + store.type() + " store";
+    }
+
+    @Override
+    public long contentLength() {
+        return sizeBytes;
+    }
+
+    @Override
+    public boolean exists() {
+        return store.exists(contentHash);
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new SeekingInputStream();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof AudioBlobResource that
+                && contentHash.equals(that.contentHash) && store == that.store);
+    }
+
+    @Override
+    public int hashCode() {
+        return contentHash.hashCode();
+    }
+
+    /**
+     * Opens the store stream at the accumulated offset on first read.
+     */
+    private class SeekingInputStream extends InputStream {
+
+        private long offset;
+        private InputStream delegate;
+        private boolean closed;
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return open().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (delegate != null) {
+                return delegate.skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, sizeBytes - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate != null ? delegate.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+        private InputStream open() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (delegate == null) {
+                delegate = store.openStream(contentHash, offset);
+            }
+            return delegate;
+        }
+    }
+}
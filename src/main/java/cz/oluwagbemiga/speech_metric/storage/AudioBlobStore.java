@@ -0,0 +1,109 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.exception.AudioStorageException;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Content-addressed storage for normalized audio bytes outside the database.
+ * <p>
+ * Objects are keyed by the SHA-256 hex of their content, so writing the same key twice stores the
+ * same bytes and {@link #put(String, byte[])} is idempotent. Reference counting lives in
+ * {@link cz.oluwagbemiga.speech_metric.entity.AudioBlob}; a store only holds bytes.
+ * All methods throw {@link AudioStorageException} when the backend fails.
+ * </p>
+ */
+public interface AudioBlobStore {
+
+    /**
+     * Identifier recorded on every blob written by this store (e.g. {@code filesystem}, {@code s3}).
+     *
+     * @return store type
+     */
+    String type();
+
+    /**
+     * Stores the bytes under the given content hash, replacing any previous object atomically.
+     *
+     * @param contentHash SHA-256 hex of {@code data}
+     * @param data        normalized audio bytes
+     */
+    void put(String contentHash, byte[] data);
+
+    /**
+     * Stores the content of a local file under the given content hash without loading it into memory.
+     * The source file is left in place.
+     *
+     * @param contentHash SHA-256 hex of the file content
+     * @param source      file to store
+     */
+    void put(String contentHash, Path source);
+
+    /**
+     * Reads the stored bytes. The buffer may be memory-mapped and is read-only.
+     *
+     * @param contentHash SHA-256 hex of the content
+     * @return buffer positioned at the first byte
+     * @throws AudioStorageException if the object does not exist or cannot be read
+     */
+    ByteBuffer read(String contentHash);
+
+    /**
+     * Reads the stored bytes into a new heap array.
+     *
+     * @param contentHash SHA-256 hex of the content
+     * @return audio bytes
+     */
+    default byte[] readAllBytes(String contentHash) {
+        ByteBuffer buffer = read(contentHash);
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Opens a stream over the stored bytes starting at {@code offset}, without reading the preceding
+     * bytes or buffering the object in memory. The caller closes the stream.
+     *
+     * @param contentHash SHA-256 hex of the content
+     * @param offset      index of the first byte returned
+     * @return stream positioned at {@code offset}
+     * @throws AudioStorageException if the object does not exist or cannot be opened
+     */
+    InputStream openStream(String contentHash, long offset);
+
+    /**
+     * @param contentHash SHA-256 hex of the content
+     * @return true if an object is stored under the hash
+     */
+    boolean exists(String contentHash);
+
+    /**
+     * Deletes the object if present.
+     *
+     * @param contentHash SHA-256 hex of the content
+     */
+    void delete(String contentHash);
+
+    /**
+     * Validates a content hash before it is turned into a path or object key.
+     *
+     * @param contentHash value to check
+     * @return the same value
+     * @throws IllegalArgumentException if it is not 64 lowercase hex characters
+     */
+    static String requireContentHash(String contentHash) {
+        if (contentHash == null || contentHash.length() != 64) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        for (int i = 0; i < contentHash.length(); i++) {
+            char c = contentHash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+            }
+        }
+        return contentHash;
+    }
+}
@@ -0,0 +1,169 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.exception.AudioStorageException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link AudioBlobStore} keeping each blob as a file under a local root directory.
+ * <p>
+ * Files are content-addressed as {@code root/ab/cd/abcd…} (two levels of fan-out keep directories small).
+ * Writes go to a temporary file in the target directory which is fsynced and atomically renamed, so readers
+ * never observe partial content. Reads memory-map the file instead of copying it through a stream.
+ * </p>
+ */
+@Slf4j
+public class FileSystemAudioBlobStore implements AudioBlobStore {
+
+    public static final String TYPE = "filesystem";
+
+    // Heap buffers are written in slices so the JDK never allocates a temporary direct buffer of the whole file
+    private static final int WRITE_CHUNK_BYTES = 1 << 20;
+
+    private final Path root;
+
+    public FileSystemAudioBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new AudioStorageException("Cannot create audio storage root " + this.root, e);
+        }
+        log.info("Filesystem audio store initialized root={}", this.root);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void put(String contentHash, byte[] data) {
+        writeAtomically(contentHash, tmp -> {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                for (int offset = 0; offset < data.length; offset += WRITE_CHUNK_BYTES) {
+                    ByteBuffer chunk = ByteBuffer.wrap(data, offset, Math.min(WRITE_CHUNK_BYTES, data.length - offset));
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+                channel.force(true);
+            }
+        });
+        log.debug("Stored audio file hash={} bytes={}", contentHash, data.length);
+    }
+
+    @Override
+    public void put(String contentHash, Path source) {
+        writeAtomically(contentHash, tmp -> {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                // transferTo copies in the kernel where supported
+                long size = in.size();
+                for (long position = 0; position < size; ) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                out.force(true);
+            }
+        });
+        log.debug("Stored audio file hash={} from {}", contentHash, source);
+    }
+
+    private interface TempFileWriter {
+        void write(Path tmp) throws IOException;
+    }
+
+    /**
+     * Writes into a temporary file next to the target and renames it into place, so readers never
+     * observe partial content.
+     */
+    private void writeAtomically(String contentHash, TempFileWriter writer) {
+        Path target = pathOf(contentHash);
+        Path tmp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            tmp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+            writer.write(tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+        } catch (IOException e) {
+            throw new AudioStorageException("Cannot store audio " + contentHash, e);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    log.warn("Cannot delete temporary audio file {}", tmp, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ByteBuffer read(String contentHash) {
+        Path path = pathOf(contentHash);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and is released with the buffer
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new AudioStorageException("Audio " + contentHash + " is missing from " + root, e);
+        } catch (IOException e) {
+            throw new AudioStorageException("Cannot read audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String contentHash, long offset) {
+        Path path = pathOf(contentHash);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            return Channels.newInputStream(channel.position(offset));
+        } catch (NoSuchFileException e) {
+            throw new AudioStorageException("Audio " + contentHash + " is missing from " + root, e);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new AudioStorageException("Cannot read audio " + contentHash, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Cannot close audio file channel", e);
+        }
+    }
+
+    @Override
+    public boolean exists(String contentHash) {
+        return Files.isRegularFile(pathOf(contentHash));
+    }
+
+    @Override
+    public void delete(String contentHash) {
+        try {
+            Files.deleteIfExists(pathOf(contentHash));
+        } catch (IOException e) {
+            throw new AudioStorageException("Cannot delete audio " + contentHash, e);
+        }
+    }
+
+    Path pathOf(String contentHash) {
+        AudioBlobStore.requireContentHash(contentHash);
+        return root.resolve(contentHash.substring(0, 2)).resolve(contentHash.substring(2, 4)).resolve(contentHash);
+    }
+}
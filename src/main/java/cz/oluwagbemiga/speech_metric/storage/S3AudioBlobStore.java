@@ -0,0 +1,143 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.exception.AudioStorageException;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * {@link AudioBlobStore} keeping each blob as an object in an S3-compatible bucket.
+ * <p>
+ * Object keys are {@code prefix + contentHash}. Works against AWS S3 as well as local stand-ins such as
+ * MinIO when the client is built with an endpoint override and path-style access
+ * (see {@code speech.storage.s3.*}).
+ * </p>
+ */
+@Slf4j
+public class S3AudioBlobStore implements AudioBlobStore {
+
+    public static final String TYPE = "s3";
+
+    private static final String CONTENT_TYPE = "audio/wav";
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String prefix;
+
+    public S3AudioBlobStore(S3Client s3Client, String bucket, String prefix) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.prefix = prefix == null ? "" : prefix;
+    }
+
+    /**
+     * Creates the bucket if it does not exist yet. Intended for local stand-ins; production buckets
+     * are expected to be provisioned upfront.
+     */
+    public void createBucketIfMissing() {
+        try {
+            s3Client.headBucket(b -> b.bucket(bucket));
+        } catch (NoSuchBucketException e) {
+            s3Client.createBucket(b -> b.bucket(bucket));
+            log.info("Created audio bucket {}", bucket);
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw new AudioStorageException("Cannot access audio bucket " + bucket, e);
+            }
+            s3Client.createBucket(b -> b.bucket(bucket));
+            log.info("Created audio bucket {}", bucket);
+        }
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void put(String contentHash, byte[] data) {
+        try {
+            s3Client.putObject(b -> b.bucket(bucket).key(keyOf(contentHash)).contentType(CONTENT_TYPE).contentLength((long) data.length),
+                    RequestBody.fromBytes(data));
+            log.debug("Stored audio object hash={} bytes={}", contentHash, data.length);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot store audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public void put(String contentHash, Path source) {
+        try {
+            s3Client.putObject(b -> b.bucket(bucket).key(keyOf(contentHash)).contentType(CONTENT_TYPE), RequestBody.fromFile(source));
+            log.debug("Stored audio object hash={} from {}", contentHash, source);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot store audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public ByteBuffer read(String contentHash) {
+        return ByteBuffer.wrap(readAllBytes(contentHash)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public byte[] readAllBytes(String contentHash) {
+        try {
+            return s3Client.getObjectAsBytes(b -> b.bucket(bucket).key(keyOf(contentHash))).asByteArrayUnsafe();
+        } catch (NoSuchKeyException e) {
+            throw new AudioStorageException("Audio " + contentHash + " is missing from bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot read audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String contentHash, long offset) {
+        try {
+            // A ranged GET, so seeking into a long recording does not transfer the bytes before it
+            return s3Client.getObject(b -> b.bucket(bucket).key(keyOf(contentHash)).range(offset > 0 ? "bytes=" + offset + "-" : null));
+        } catch (NoSuchKeyException e) {
+            throw new AudioStorageException("Audio " + contentHash + " is missing from bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot read audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String contentHash) {
+        try {
+            s3Client.headObject(b -> b.bucket(bucket).key(keyOf(contentHash)));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new AudioStorageException("Cannot check audio " + contentHash, e);
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot check audio " + contentHash, e);
+        }
+    }
+
+    @Override
+    public void delete(String contentHash) {
+        try {
+            s3Client.deleteObject(b -> b.bucket(bucket).key(keyOf(contentHash)));
+        } catch (SdkException e) {
+            throw new AudioStorageException("Cannot delete audio " + contentHash, e);
+        }
+    }
+
+    private String keyOf(String contentHash) {
+        return prefix + AudioBlobStore.requireContentHash(contentHash);
+    }
+}
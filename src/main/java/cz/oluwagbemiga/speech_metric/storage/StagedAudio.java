@@ -0,0 +1,71 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Normalized audio spooled to a temporary file while its content hash is computed.
+ * <p>
+ * The content hash of streamed audio is only known once the last byte has been written, so uploads are
+ * staged on disk first and handed to {@link AudioBlobStore#put(String, Path)} afterwards. Closing deletes
+ * the temporary file.
+ * </p>
+ *
+ * @param file        temporary file holding the bytes
+ * @param contentHash SHA-256 hex of the bytes
+ * @param sizeBytes   number of bytes
+ */
+@Slf4j
+public record StagedAudio(Path file, String contentHash, long sizeBytes) implements AutoCloseable {
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Callback producing the audio bytes.
+     */
+    @FunctionalInterface
+    public interface Writer {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes audio into a new temporary file, hashing it on the way.
+     *
+     * @param directory directory for the temporary file
+     * @param writer    callback writing the bytes; the stream is buffered and must not be closed by it
+     * @return staged audio; the caller must close it
+     * @throws IOException if the file cannot be written or the writer fails
+     */
+    public static StagedAudio write(Path directory, Writer writer) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "upload-", ".wav");
+        try {
+            MessageDigest digest = ContentHash.newDigest();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_BYTES), digest)) {
+                writer.writeTo(out);
+            }
+            return new StagedAudio(file, HexFormat.of().formatHex(digest.digest()), Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete staged audio {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcmWavDecoderTest {
+
+    @Test
+    void convertsEverySupportedEncodingToCanonicalWav() throws Exception {
+        int[][] formats = {
+                // formatTag, bitsPerSample
+                {WavHeader.FORMAT_PCM, 8},
+                {WavHeader.FORMAT_PCM, 16},
+                {WavHeader.FORMAT_PCM, 24},
+                {WavHeader.FORMAT_PCM, 32},
+                {WavHeader.FORMAT_IEEE_FLOAT, 32},
+                {WavHeader.FORMAT_IEEE_FLOAT, 64},
+        };
+        for (int[] format : formats) {
+            byte[] wav = wav(format[0], format[1], 2, 48000, 4800, false);
+            WavHeader header = WavHeader.parse(wav).orElseThrow();
+            assertTrue(PcmWavDecoder.supports(header));
+
+            byte[] out = decode(header, wav);
+            WavHeader canonical = WavHeader.parse(out).orElseThrow();
+            assertTrue(canonical.isPcmMono16k());
+            assertEquals(1600 * 2, canonical.dataSize());
+            assertEquals(44 + 1600 * 2, out.length);
+            // Left and right carry opposite halves of the same tone, so the downmix is the average of both
+            short mid = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN).getShort(44 + 2 * 800);
+            double expected = 0.25 * 32768 * Math.sin(2 * Math.PI * 440 * 800 / 16000.0);
+            assertEquals(expected, mid, format[1] == 8 ? 400 : 40, "format " + format[0] + "/" + format[1]);
+        }
+    }
+
+    @Test
+    void readsExtensibleHeadersAndRejectsUnknownLength() throws Exception {
+        byte[] extensible = wav(WavHeader.FORMAT_PCM, 24, 6, 44100, 441, true);
+        WavHeader header = WavHeader.parse(extensible).orElseThrow();
+        assertEquals(WavHeader.FORMAT_EXTENSIBLE, header.declaredFormatTag());
+        assertEquals(WavHeader.FORMAT_PCM, header.formatCode());
+        assertEquals(6, header.channels());
+        assertEquals(10L, header.durationMs(extensible.length));
+        assertEquals(44 + 160 * 2, decode(header, extensible).length);
+
+        byte[] streamed = wav(WavHeader.FORMAT_PCM, 16, 2, 44100, 441, false);
+        ByteBuffer.wrap(streamed).order(ByteOrder.LITTLE_ENDIAN).putInt(40, -1);
+        WavHeader streamedHeader = WavHeader.parse(streamed).orElseThrow();
+        assertFalse(PcmWavDecoder.supports(streamedHeader));
+        // Without a declared size the duration follows from the stream length
+        assertEquals(10L, streamedHeader.durationMs(streamed.length));
+    }
+
+    @Test
+    void rejectsStreamsEndingBeforeTheirDeclaredSize() {
+        byte[] wav = wav(WavHeader.FORMAT_PCM, 16, 2, 48000, 4800, false);
+        WavHeader header = WavHeader.parse(wav).orElseThrow();
+        byte[] truncated = Arrays.copyOf(wav, wav.length - 1000);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IOException.class,
+                () -> PcmWavDecoder.decodeToPcmMono16k(header, new ByteArrayInputStream(truncated), out, wav.length));
+    }
+
+    @Test
+    void rejectsDeclaredSizesBeyondTheRiffSizeOrTheLimit() {
+        byte[] wav = wav(WavHeader.FORMAT_PCM, 16, 2, 48000, 4800, false);
+        ByteBuffer bb = ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Data chunk claims ~4 GiB while the RIFF header still describes the real file
+        bb.putInt(40, 0xFFFFFFF0);
+        WavHeader oversized = WavHeader.parse(wav).orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IOException.class,
+                () -> PcmWavDecoder.decodeToPcmMono16k(oversized, new ByteArrayInputStream(wav), out, Long.MAX_VALUE));
+        assertEquals(0, out.size());
+
+        // With the RIFF size left unknown, the upload limit still rejects it before any output
+        bb.putInt(4, -1);
+        WavHeader overLimit = WavHeader.parse(wav).orElseThrow();
+        assertThrows(IOException.class,
+                () -> PcmWavDecoder.decodeToPcmMono16k(overLimit, new ByteArrayInputStream(wav), out, wav.length));
+        assertEquals(0, out.size());
+    }
+
+    private static byte[] decode(WavHeader header, byte[] wav) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = PcmWavDecoder.decodeToPcmMono16k(header, new ByteArrayInputStream(wav), out, wav.length);
+        assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+
+    /**
+     * 440 Hz tone at amplitude 0.5 on the first channel and 0 on the others.
+     */
+    private static byte[] wav(int formatCode, int bits, int channels, int rate, int frames, boolean extensible) {
+        int bytes = bits / 8;
+        int fmtSize = extensible ? 40 : 16;
+        int dataSize = frames * channels * bytes;
+        ByteBuffer bb = ByteBuffer.allocate(20 + fmtSize + 8 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put("RIFF".getBytes()).putInt(20 + fmtSize + dataSize).put("WAVE".getBytes());
+        bb.put("fmt ".getBytes()).putInt(fmtSize);
+        bb.putShort((short) (extensible ? WavHeader.FORMAT_EXTENSIBLE : formatCode)).putShort((short) channels)
+                .putInt(rate).putInt(rate * channels * bytes).putShort((short) (channels * bytes)).putShort((short) bits);
+        if (extensible) {
+            bb.putShort((short) 22).putShort((short) bits).putInt(0).putShort((short) formatCode)
+                    .put(new byte[]{0, 0, 0, 0, 0x10, 0, (byte) 0x80, 0, 0, (byte) 0xAA, 0, 0x38, (byte) 0x9B, 0x71});
+        }
+        bb.put("data".getBytes()).putInt(dataSize);
+        for (int i = 0; i < frames; i++) {
+            double value = 0.5 * Math.sin(2 * Math.PI * 440 * i / rate);
+            for (int c = 0; c < channels; c++) {
+                put(bb, formatCode, bits, c == 0 ? value : 0);
+            }
+        }
+        return bb.array();
+    }
+
+    private static void put(ByteBuffer bb, int formatCode, int bits, double value) {
+        if (formatCode == WavHeader.FORMAT_IEEE_FLOAT) {
+            if (bits == 32) bb.putFloat((float) value);
+            else bb.putDouble(value);
+            return;
+        }
+        switch (bits) {
+            case 8 -> bb.put((byte) (Math.round(value * 127) + 128));
+            case 16 -> bb.putShort((short) Math.round(value * 32767));
+            case 24 -> {
+                int v = (int) Math.round(value * 8388607);
+                bb.put((byte) v).put((byte) (v >> 8)).put((byte) (v >> 16));
+            }
+            default -> bb.putInt((int) Math.round(value * 2147483647));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyphaseResamplerTest {
+
+    @Test
+    void producesExactLengthIndependentOfBlockSize() {
+        Random random = new Random(1);
+        float[] input = new float[44100 + 37];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextFloat() * 2 - 1;
+        }
+        float[] whole = resample(input, 44100, 16000, input.length);
+        float[] blocks = resample(input, 44100, 16000, 333);
+        assertEquals((input.length * 160L + 440) / 441, whole.length);
+        assertArrayEquals(whole, blocks, 0f);
+
+        for (int rate : new int[]{8000, 11025, 22050, 32000, 48000, 96000}) {
+            float[] out = resample(Arrays.copyOf(input, rate / 10), rate, 16000, 1000);
+            assertEquals(new PolyphaseResampler(rate, 16000).outputLength(rate / 10), out.length, "rate " + rate);
+        }
+    }
+
+    @Test
+    void keepsPassbandAndRejectsAliases() {
+        // 1 kHz survives the 44.1 kHz -> 16 kHz conversion almost unchanged
+        float[] tone = sine(44100, 1000, 44100);
+        float[] out = resample(tone, 44100, 16000, 4096);
+        double error = 0;
+        double signal = 0;
+        for (int n = 2000; n < out.length - 2000; n++) {
+            double expected = 0.5 * Math.sin(2 * Math.PI * 1000 * n / 16000.0);
+            error += (out[n] - expected) * (out[n] - expected);
+            signal += expected * expected;
+        }
+        assertTrue(10 * Math.log10(signal / error) > 60, "passband SNR");
+
+        // 12 kHz is above the new Nyquist frequency and must not fold back to 4 kHz
+        float[] high = resample(sine(48000, 12000, 48000), 48000, 16000, 4096);
+        double energy = 0;
+        for (int n = 2000; n < high.length - 2000; n++) {
+            energy += high[n] * high[n];
+        }
+        double rms = Math.sqrt(energy / (high.length - 4000));
+        assertTrue(20 * Math.log10(rms / (0.5 / Math.sqrt(2))) < -60, "stopband attenuation");
+    }
+
+    @Test
+    void sameRateIsIdentity() {
+        float[] input = sine(16000, 440, 1000);
+        assertArrayEquals(input, resample(input, 16000, 16000, 100), 0f);
+    }
+
+    private static float[] sine(int rate, double frequency, int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (float) (0.5 * Math.sin(2 * Math.PI * frequency * i / rate));
+        }
+        return samples;
+    }
+
+    private static float[] resample(float[] input, int inRate, int outRate, int blockSize) {
+        PolyphaseResampler resampler = new PolyphaseResampler(inRate, outRate);
+        float[] result = new float[0];
+        float[] block = new float[blockSize];
+        float[] out = new float[resampler.maxOutput(blockSize)];
+        for (int pos = 0; pos < input.length; pos += blockSize) {
+            int n = Math.min(blockSize, input.length - pos);
+            System.arraycopy(input, pos, block, 0, n);
+            result = append(result, out, resampler.process(block, n, out));
+        }
+        return append(result, out, resampler.flush(out));
+    }
+
+    private static float[] append(float[] result, float[] out, int n) {
+        float[] grown = Arrays.copyOf(result, result.length + n);
+        System.arraycopy(out, 0, grown, result.length, n);
+        return grown;
+    }
+}
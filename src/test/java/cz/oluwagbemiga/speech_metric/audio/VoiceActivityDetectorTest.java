@@ -0,0 +1,130 @@
+package cz.oluwagbemiga.speech_metric.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoiceActivityDetectorTest {
+
+    private final VoiceActivityDetector detector = new VoiceActivityDetector(10, -55, -35, 200, 500);
+
+    @Test
+    void reportsSilentClipWithoutSpeech() {
+        byte[] pcm = pcm(noise(32000, 0.0005, 1));
+        VoiceActivityDetector.Speech speech = detector.trim(pcm);
+        assertTrue(speech.silent());
+        assertEquals(2000, speech.inputMs());
+        assertEquals(2000, speech.skippedMs());
+
+        assertTrue(detector.trim(new byte[3200]).silent());
+    }
+
+    @Test
+    void removesLongPausesAndKeepsSpeech() {
+        // 1 s silence, 1 s tone, 2 s silence, 1 s tone, 1 s silence
+        float[] signal = noise(96000, 0.0005, 2);
+        addTone(signal, 16000, 32000);
+        addTone(signal, 64000, 80000);
+        VoiceActivityDetector.Speech speech = detector.trim(pcm(signal));
+
+        assertFalse(speech.silent());
+        assertEquals(6000, speech.inputMs());
+        // 2 s of tone plus padding (rounded up to whole frames) on each side of both runs
+        long keptMs = speech.inputMs() - speech.skippedMs();
+        assertTrue(keptMs >= 2000 && keptMs <= 2900, "kept " + keptMs);
+        assertEquals(keptMs, speech.pcm().length / 2 * 1000L / 16000);
+
+        // Kept audio maps back onto the input timeline
+        assertEquals(2, speech.regions().size());
+        long firstMs = speech.sourceMs(0);
+        assertTrue(firstMs >= 780 && firstMs <= 1000, "first " + firstMs);
+        long lastMs = speech.sourceMs(keptMs - 1);
+        assertTrue(lastMs >= 5000 && lastMs <= 5240, "last " + lastMs);
+    }
+
+    @Test
+    void keepsShortPausesAndReturnsInputUnchanged() {
+        // 300 ms pause between tones is below the minimum silence and stays
+        float[] signal = noise(16000 + 4800 + 16000, 0.0005, 3);
+        addTone(signal, 0, 16000);
+        addTone(signal, 16000 + 4800, signal.length);
+        byte[] pcm = pcm(signal);
+        VoiceActivityDetector.Speech speech = detector.trim(pcm);
+
+        assertSame(pcm, speech.pcm());
+        assertEquals(0, speech.skippedMs());
+    }
+
+    @Test
+    void splitsLongAudioAtPauses() {
+        // 10 s tone bursts separated by 400 ms pauses, 50 s in total
+        float[] signal = noise(16000 * 50, 0.0005, 4);
+        for (int start = 0; start < signal.length; start += 16000 * 10 + 6400) {
+            addTone(signal, start, Math.min(signal.length, start + 16000 * 10));
+        }
+        List<VoiceActivityDetector.Window> windows = detector.split(pcm(signal), 30000, 1000);
+
+        assertTrue(windows.size() >= 2);
+        assertEquals(0, windows.get(0).fromSample());
+        assertEquals(signal.length, windows.get(windows.size() - 1).toSample());
+        for (int i = 0; i < windows.size(); i++) {
+            VoiceActivityDetector.Window window = windows.get(i);
+            assertTrue(window.toSample() - window.fromSample() <= 16000 * 30);
+            assertFalse(window.overlapsPrevious());
+            if (i > 0) {
+                assertEquals(windows.get(i - 1).toSample(), window.fromSample());
+                // Cut inside a pause: the tone is off around the boundary
+                assertTrue(Math.abs(signal[window.fromSample()]) < 0.01);
+            }
+        }
+    }
+
+    @Test
+    void overlapsWindowsCutInsideSpeech() {
+        float[] signal = noise(16000 * 70, 0.0005, 5);
+        addTone(signal, 0, signal.length);
+        List<VoiceActivityDetector.Window> windows = detector.split(pcm(signal), 30000, 1000);
+
+        assertEquals(3, windows.size());
+        for (int i = 1; i < windows.size(); i++) {
+            assertTrue(windows.get(i).overlapsPrevious());
+            assertEquals(16000, windows.get(i - 1).toSample() - windows.get(i).fromSample(), 480);
+        }
+        assertEquals(windows, VoiceActivityDetector.splitEvenly(signal.length, 30000, 1000));
+        assertEquals(1, VoiceActivityDetector.splitEvenly(16000 * 30, 30000, 1000).size());
+    }
+
+    @Test
+    void signatureReflectsSettings() {
+        assertEquals(detector.signature(), new VoiceActivityDetector(10, -55, -35, 200, 500).signature());
+        assertNotEquals(detector.signature(), new VoiceActivityDetector(10, -55, -35, 300, 500).signature());
+    }
+
+    private static float[] noise(int samples, double amplitude, long seed) {
+        Random random = new Random(seed);
+        float[] out = new float[samples];
+        for (int i = 0; i < samples; i++) {
+            out[i] = (float) (random.nextGaussian() * amplitude);
+        }
+        return out;
+    }
+
+    private static void addTone(float[] signal, int from, int to) {
+        for (int n = from; n < to; n++) {
+            signal[n] += (float) (0.3 * Math.sin(2 * Math.PI * 300 * n / 16000.0));
+        }
+    }
+
+    private static byte[] pcm(float[] samples) {
+        ByteBuffer out = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (float sample : samples) {
+            out.putShort((short) Math.round(Math.max(-1f, Math.min(1f, sample)) * Short.MAX_VALUE));
+        }
+        return out.array();
+    }
+}
@@ -0,0 +1,92 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import com.sun.jna.Memory;
+import cz.oluwagbemiga.speech_metric.exception.UnknownDecodingProfileException;
+import io.github.ggerganov.whispercpp.params.WhisperFullParams;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodingProfileTest {
+
+    @Test
+    void blankNameSelectsDefault() {
+        assertSame(DecodingProfile.DEFAULT, DecodingProfile.forName(null));
+        assertSame(DecodingProfile.DEFAULT, DecodingProfile.forName(" "));
+    }
+
+    @Test
+    void namesAreCaseInsensitive() {
+        assertSame(DecodingProfile.FAST, DecodingProfile.forName("FAST"));
+        assertSame(DecodingProfile.ACCURATE, DecodingProfile.forName(" Accurate "));
+    }
+
+    @Test
+    void unknownNameIsRejected() {
+        assertThrows(UnknownDecodingProfileException.class, () -> DecodingProfile.forName("turbo"));
+    }
+
+    @Test
+    void defaultSignatureMatchesPreProfileDecoding() {
+        // Cached transcripts were keyed with this signature before profiles existed
+        assertEquals("beam_search;temperature=0.0;temperature_inc=0.2", DecodingProfile.DEFAULT.signature());
+    }
+
+    @Test
+    void signaturesDistinguishProfiles() {
+        assertEquals(3, DecodingProfile.names().stream()
+                .map(name -> DecodingProfile.forName(name).signature())
+                .distinct()
+                .count());
+    }
+
+    @Test
+    void defaultRunAfterAccurateRunUsesLibraryDefaults() {
+        WhisperFullParams defaults = libraryDefaults();
+        // whisper.cpp returns the same struct for every run on a context
+        WhisperFullParams context = libraryDefaults();
+
+        DecodingProfile.ACCURATE.applyTo(context, defaults);
+        assertEquals(5, context.beam_search.beam_size);
+        assertEquals(5, context.greedy.best_of);
+        assertEquals(0.6f, context.no_speech_thold);
+        assertTrue(context.token_timestamps.getAsBoolean());
+
+        DecodingProfile.DEFAULT.applyTo(context, defaults);
+        assertEquals(defaults.n_threads, context.n_threads);
+        assertEquals(defaults.beam_search.beam_size, context.beam_search.beam_size);
+        assertEquals(defaults.greedy.best_of, context.greedy.best_of);
+        assertEquals(defaults.audio_ctx, context.audio_ctx);
+        assertEquals(defaults.max_len, context.max_len);
+        assertEquals(defaults.no_speech_thold, context.no_speech_thold);
+        assertEquals(defaults.logprob_thold, context.logprob_thold);
+        assertEquals(0.0f, context.temperature);
+        assertEquals(0.2f, context.temperature_inc);
+        assertFalse(context.single_segment.getAsBoolean());
+        assertFalse(context.token_timestamps.getAsBoolean());
+    }
+
+    @Test
+    void singleSegmentIsClearedAfterFastRun() {
+        WhisperFullParams defaults = libraryDefaults();
+        WhisperFullParams context = libraryDefaults();
+
+        DecodingProfile.FAST.applyTo(context, defaults);
+        assertTrue(context.single_segment.getAsBoolean());
+        DecodingProfile.DEFAULT.applyTo(context, defaults);
+        assertFalse(context.single_segment.getAsBoolean());
+    }
+
+    // Stand-in for whisper_full_default_params with values no profile uses
+    private static WhisperFullParams libraryDefaults() {
+        WhisperFullParams params = new WhisperFullParams(new Memory(1024));
+        params.n_threads = 3;
+        params.beam_search.beam_size = 2;
+        params.greedy.best_of = 2;
+        params.audio_ctx = 0;
+        params.max_len = 0;
+        params.no_speech_thold = 0.45f;
+        params.logprob_thold = -0.8f;
+        return params;
+    }
+}
@@ -0,0 +1,137 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelManagerTest {
+
+    @Test
+    void loadsOnFirstAcquireOnly() {
+        ModelManager manager = new ModelManager(0L, new SimpleMeterRegistry());
+        FakeModel model = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        assertFalse(manager.isLoaded(model));
+
+        manager.acquire(model);
+        manager.release(model);
+        manager.acquire(model);
+        manager.release(model);
+
+        assertEquals(1, model.loads);
+        assertTrue(manager.isLoaded(model));
+        assertEquals(100, manager.getResidentBytes());
+    }
+
+    @Test
+    void sharesModelsRegisteredUnderSamePath() {
+        ModelManager manager = new ModelManager(0L, new SimpleMeterRegistry());
+        FakeModel first = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        FakeModel second = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        assertSame(first, second);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedIdleModelOverBudget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ModelManager manager = new ModelManager(250L, registry);
+        FakeModel a = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        FakeModel b = manager.register("/models/b", () -> new FakeModel("/models/b", 100));
+        FakeModel c = manager.register("/models/c", () -> new FakeModel("/models/c", 100));
+
+        use(manager, a);
+        use(manager, b);
+        use(manager, a);
+        use(manager, c);
+
+        assertTrue(manager.isLoaded(a));
+        assertFalse(manager.isLoaded(b));
+        assertTrue(manager.isLoaded(c));
+        assertEquals(1, b.unloads);
+        assertEquals(200, manager.getResidentBytes());
+        assertEquals(1.0, registry.get("speech.models.evictions").tag("model", "/models/b").counter().count());
+        assertEquals(3L, registry.get("speech.models.load").timers().stream().mapToLong(t -> t.count()).sum());
+    }
+
+    @Test
+    void neverEvictsModelInUse() {
+        ModelManager manager = new ModelManager(150L, new SimpleMeterRegistry());
+        FakeModel a = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        FakeModel b = manager.register("/models/b", () -> new FakeModel("/models/b", 100));
+
+        manager.acquire(a);
+        use(manager, b);
+
+        assertTrue(manager.isLoaded(a));
+        assertTrue(manager.isLoaded(b));
+        assertEquals(200, manager.getResidentBytes());
+
+        manager.release(a);
+        FakeModel c = manager.register("/models/c", () -> new FakeModel("/models/c", 100));
+        use(manager, c);
+        assertEquals(100, manager.getResidentBytes());
+        assertFalse(manager.isLoaded(a));
+        assertFalse(manager.isLoaded(b));
+    }
+
+    @Test
+    void failedLoadReleasesReservation() {
+        ModelManager manager = new ModelManager(0L, new SimpleMeterRegistry());
+        FakeModel model = manager.register("/models/a", () -> new FakeModel("/models/a", 100));
+        model.failLoad = true;
+
+        assertThrows(IllegalStateException.class, () -> manager.acquire(model));
+        assertFalse(manager.isLoaded(model));
+        assertEquals(0, manager.getResidentBytes());
+
+        model.failLoad = false;
+        use(manager, model);
+        assertTrue(manager.isLoaded(model));
+    }
+
+    private static void use(ModelManager manager, NativeModel model) {
+        manager.acquire(model);
+        manager.release(model);
+    }
+
+    private static final class FakeModel implements NativeModel {
+        private final String path;
+        private final long footprint;
+        private int loads;
+        private int unloads;
+        private boolean failLoad;
+
+        private FakeModel(String path, long footprint) {
+            this.path = path;
+            this.footprint = footprint;
+        }
+
+        @Override
+        public String getModelPath() {
+            return path;
+        }
+
+        @Override
+        public String getModelName() {
+            return path;
+        }
+
+        @Override
+        public long estimateFootprintBytes() {
+            return footprint;
+        }
+
+        @Override
+        public void load() {
+            if (failLoad) {
+                throw new IllegalStateException("load failed");
+            }
+            loads++;
+        }
+
+        @Override
+        public void unload() {
+            unloads++;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import cz.oluwagbemiga.speech_metric.entity.WhisperSegmentListConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentCollectorTest {
+
+    @Test
+    void publishesLaterWindowsOnlyAfterEarlierOnesComplete() {
+        List<String> received = new ArrayList<>();
+        SegmentCollector collector = new SegmentCollector(3, segment -> received.add(segment.getSentence()), ms -> ms);
+
+        collector.add(0, 0, 2000, " one ");
+        collector.add(1, 30000, 32000, "three");
+        collector.add(2, 60000, 62000, "four");
+        assertEquals(List.of("one"), received);
+
+        collector.add(0, 2000, 4000, "two");
+        assertEquals(List.of("one", "two"), received);
+
+        collector.complete(1);
+        assertEquals(List.of("one", "two"), received);
+        collector.complete(0);
+        assertEquals(List.of("one", "two", "three", "four"), received);
+        collector.complete(2);
+        assertEquals(4, collector.segments().size());
+    }
+
+    @Test
+    void dropsSegmentsRepeatedByOverlappingWindow() {
+        SegmentCollector collector = new SegmentCollector(2, null, ms -> ms);
+        collector.add(0, 0, 29000, "first");
+        collector.add(0, 29000, 30000, "boundary");
+        collector.add(1, 29000, 30000, "boundary");
+        collector.add(1, 30000, 33000, "second");
+        collector.complete(0);
+        collector.complete(1);
+
+        assertEquals(List.of("first", "boundary", "second"), collector.segments().stream().map(WhisperSegment::getSentence).toList());
+    }
+
+    @Test
+    void mapsTimesToSourceTimeline() {
+        SegmentCollector collector = new SegmentCollector(1, null, ms -> ms + 500);
+        collector.add(0, 0, 1000, "text");
+        collector.add(0, 1000, 1200, "  ");
+        collector.complete(0);
+
+        WhisperSegment segment = collector.segments().get(0);
+        assertEquals(500, segment.getStart());
+        assertEquals(1500, segment.getEnd());
+        assertEquals(1, collector.segments().size());
+    }
+
+    @Test
+    void packsSegmentsIntoOneColumn() {
+        WhisperSegmentListConverter converter = new WhisperSegmentListConverter();
+        String packed = converter.convertToDatabaseColumn(List.of(new WhisperSegment(0, 1500, "Hello\tthere"), new WhisperSegment(1500, 3000, "again")));
+        assertEquals("0\t1500\tHello there\n1500\t3000\tagain\n", packed);
+
+        List<WhisperSegment> segments = converter.convertToEntityAttribute(packed);
+        assertEquals(2, segments.size());
+        assertEquals(1500, segments.get(1).getStart());
+        assertEquals("again", segments.get(1).getSentence());
+        assertTrue(converter.convertToEntityAttribute("").isEmpty());
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+}
@@ -0,0 +1,32 @@
+package cz.oluwagbemiga.speech_metric.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptStitcherTest {
+
+    @Test
+    void dropsWordsRepeatedInOverlap() {
+        String text = TranscriptStitcher.append("", "The quick brown fox jumps", false);
+        text = TranscriptStitcher.append(text, "fox jumps over the lazy dog.", true);
+        assertEquals("The quick brown fox jumps over the lazy dog.", text);
+    }
+
+    @Test
+    void comparesWordsIgnoringCaseAndPunctuation() {
+        assertEquals("We met in Paris, then left.", TranscriptStitcher.append("We met in Paris,", "paris then left.", true));
+    }
+
+    @Test
+    void keepsRepeatedWordsOfWindowsCutAtPauses() {
+        assertEquals("yes yes", TranscriptStitcher.append("yes", "yes", false));
+    }
+
+    @Test
+    void skipsEmptyWindows() {
+        assertEquals("hello world", TranscriptStitcher.append(TranscriptStitcher.append("hello", "  ", true), "world", false));
+        assertEquals("hello", TranscriptStitcher.append("hello", "hello", true));
+        assertEquals("hello", TranscriptStitcher.append("hello", null, false));
+    }
+}
@@ -0,0 +1,114 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EditDistance} against the former full-matrix implementation on transcript-like
+ * strings with roughly 10 % character errors.
+ * <p>
+ * Run from the IDE via {@link #main(String[])} or with
+ * {@code java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main EditDistanceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EditDistanceBenchmark {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz     ";
+
+    @Param({"100", "1000", "8000"})
+    private int length;
+
+    private String expected;
+    private String recognized;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        expected = sb.toString();
+        for (int i = 0; i < length / 10; i++) {
+            int pos = random.nextInt(sb.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> sb.insert(pos, c);
+                case 1 -> sb.deleteCharAt(pos);
+                default -> sb.setCharAt(pos, c);
+            }
+        }
+        recognized = sb.toString();
+    }
+
+    @Benchmark
+    public int fullMatrix() {
+        return fullMatrix(expected, recognized);
+    }
+
+    @Benchmark
+    public int twoRow() {
+        return EditDistance.linear(expected, recognized);
+    }
+
+    @Benchmark
+    public int bitParallel() {
+        return EditDistance.levenshtein(expected, recognized);
+    }
+
+    @Benchmark
+    public int bitParallelWithCutoff() {
+        return EditDistance.levenshtein(expected, recognized, length / 5);
+    }
+
+    /**
+     * Previous {@code SpeechEngine.levenshteinChars} implementation, kept here as the baseline.
+     */
+    private static int fullMatrix(String a, String b) {
+        int n = a.length();
+        int m = b.length();
+        if (n == 0) return m;
+        if (m == 0) return n;
+        int[][] dp = new int[n + 1][m + 1];
+        for (int i = 0; i <= n; i++) dp[i][0] = i;
+        for (int j = 0; j <= m; j++) dp[0][j] = j;
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = (ca == cb) ? 0 : 1;
+                dp[i][j] = Math.min(
+                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
+                        dp[i - 1][j - 1] + cost
+                );
+            }
+        }
+        return dp[n][m];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EditDistanceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
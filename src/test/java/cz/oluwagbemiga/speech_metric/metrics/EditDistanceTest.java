@@ -0,0 +1,93 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EditDistanceTest {
+
+    private static final String[] ALPHABETS = {
+            "ab",
+            "acgt",
+            "abcdefghijklmnopqrstuvwxyz ",
+            "aáäbcčdďeéěfghiíjklmnňoóprřsštťuúůvwxyýzž ",
+    };
+
+    @Test
+    void knownDistances() {
+        assertEquals(0, EditDistance.levenshtein("", ""));
+        assertEquals(3, EditDistance.levenshtein("", "abc"));
+        assertEquals(3, EditDistance.levenshtein("kitten", "sitting"));
+        assertEquals(2, EditDistance.levenshtein("flaw", "lawn"));
+        assertEquals(1, EditDistance.levenshtein("the quick brown fox", "the quick brown fix"));
+    }
+
+    @Test
+    void matchesReferenceOnRandomStrings() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 3000; iteration++) {
+            String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            String a = randomString(random, alphabet, random.nextInt(300));
+            String b = random.nextBoolean()
+                    ? mutate(random, a, alphabet, random.nextInt(40))
+                    : randomString(random, alphabet, random.nextInt(300));
+            int expected = EditDistance.linear(a, b);
+            assertEquals(expected, EditDistance.levenshtein(a, b), () -> "a=" + a + " b=" + b);
+            assertEquals(expected, EditDistance.levenshtein(b, a), () -> "swapped a=" + a + " b=" + b);
+        }
+    }
+
+    @Test
+    void matchesReferenceAroundBlockBoundaries() {
+        Random random = new Random(7);
+        int[] lengths = {63, 64, 65, 127, 128, 129, 191, 192, 193};
+        for (int m : lengths) {
+            for (int iteration = 0; iteration < 50; iteration++) {
+                String a = randomString(random, ALPHABETS[2], m);
+                String b = mutate(random, a, ALPHABETS[2], 1 + random.nextInt(m));
+                assertEquals(EditDistance.linear(a, b), EditDistance.bitParallel(a, b, Integer.MAX_VALUE), "m=" + m);
+            }
+        }
+    }
+
+    @Test
+    void cutoffReturnsExactDistanceOrLimitPlusOne() {
+        Random random = new Random(1234);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            String a = randomString(random, alphabet, random.nextInt(400));
+            String b = mutate(random, a, alphabet, random.nextInt(60));
+            int max = random.nextInt(50);
+            int exact = EditDistance.linear(a, b);
+            int expected = exact <= max ? exact : max + 1;
+            assertEquals(expected, EditDistance.levenshtein(a, b, max), "max=" + max);
+            assertEquals(expected, EditDistance.banded(a, b, max), "banded max=" + max);
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String source, String alphabet, int edits) {
+        StringBuilder sb = new StringBuilder(source);
+        for (int i = 0; i < edits; i++) {
+            int op = random.nextInt(3);
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (op == 0 || sb.isEmpty()) {
+                sb.insert(random.nextInt(sb.length() + 1), c);
+            } else if (op == 1) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            } else {
+                sb.setCharAt(random.nextInt(sb.length()), c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencySketchTest {
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        Random random = new Random(5);
+        long[] values = new long[20_000];
+        LatencySketch sketch = new LatencySketch();
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal around ~400 ms, like inference times
+            values[i] = Math.max(1, Math.round(Math.exp(6 + random.nextGaussian())));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.0, 0.5, 0.9, 0.99, 1.0}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * LatencySketch.RELATIVE_ACCURACY * 1.0001, "q=" + q);
+        }
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        LatencySketch left = new LatencySketch();
+        LatencySketch right = new LatencySketch();
+        LatencySketch union = new LatencySketch();
+        for (long v = 0; v < 500; v++) {
+            (v % 3 == 0 ? left : right).add(v * 7);
+            union.add(v * 7);
+        }
+        right.add(90_000);
+        union.add(90_000);
+
+        left.merge(right);
+
+        assertEquals(union.count(), left.count());
+        assertArrayEquals(union.toBytes(), left.toBytes());
+    }
+
+    @Test
+    void subtractUndoesMerge() {
+        LatencySketch kept = new LatencySketch();
+        LatencySketch removed = new LatencySketch();
+        for (long v = 0; v < 500; v++) {
+            (v % 4 == 0 ? removed : kept).add(v * 11);
+        }
+        removed.add(250_000);
+        LatencySketch all = LatencySketch.fromBytes(kept.toBytes());
+        all.merge(removed);
+
+        all.subtract(removed);
+
+        assertEquals(kept.count(), all.count());
+        assertEquals(kept.quantile(0.5), all.quantile(0.5));
+        assertEquals(kept.quantile(1.0), all.quantile(1.0));
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.add(0);
+        sketch.add(15);
+        sketch.add(1_200);
+
+        LatencySketch copy = LatencySketch.fromBytes(sketch.toBytes());
+
+        assertEquals(3, copy.count());
+        assertEquals(sketch.quantile(0.5), copy.quantile(0.5));
+        assertEquals(0d, copy.quantile(0));
+        assertNull(LatencySketch.fromBytes(null).quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> LatencySketch.fromBytes(new byte[]{9, 0, 0}));
+    }
+}
@@ -0,0 +1,63 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningMomentsTest {
+
+    private static final double EPS = 1e-12;
+
+    @Test
+    void mergedPartitionsMatchSinglePass() {
+        double[] values = {0.91, 0.87, 0.5, 1.0, 0.73, 0.66, 0.98};
+        RunningMoments all = RunningMoments.EMPTY;
+        RunningMoments head = RunningMoments.EMPTY;
+        RunningMoments tail = RunningMoments.EMPTY;
+        for (int i = 0; i < values.length; i++) {
+            all = all.add(values[i]);
+            if (i < 3) head = head.add(values[i]);
+            else tail = tail.add(values[i]);
+        }
+
+        RunningMoments merged = head.merge(tail);
+
+        double mean = 0;
+        for (double v : values) mean += v / values.length;
+        double m2 = 0;
+        for (double v : values) m2 += (v - mean) * (v - mean);
+        assertEquals(values.length, merged.count());
+        assertEquals(mean, merged.mean(), EPS);
+        assertEquals(m2, merged.m2(), EPS);
+        assertEquals(all.mean(), merged.mean(), EPS);
+        assertEquals(m2 / (values.length - 1), merged.variance(), EPS);
+    }
+
+    @Test
+    void varianceNeedsTwoValues() {
+        assertNull(RunningMoments.EMPTY.variance());
+        assertNull(RunningMoments.EMPTY.add(0.4).variance());
+        assertEquals(RunningMoments.EMPTY.add(0.4), RunningMoments.EMPTY.merge(RunningMoments.EMPTY.add(0.4)));
+    }
+
+    @Test
+    void removingPartitionRestoresRemainder() {
+        double[] values = {0.91, 0.87, 0.5, 1.0, 0.73, 0.66, 0.98};
+        RunningMoments all = RunningMoments.EMPTY;
+        RunningMoments head = RunningMoments.EMPTY;
+        RunningMoments tail = RunningMoments.EMPTY;
+        for (int i = 0; i < values.length; i++) {
+            all = all.add(values[i]);
+            if (i < 3) head = head.add(values[i]);
+            else tail = tail.add(values[i]);
+        }
+
+        RunningMoments rest = all.remove(head);
+
+        assertEquals(tail.count(), rest.count());
+        assertEquals(tail.mean(), rest.mean(), EPS);
+        assertEquals(tail.m2(), rest.m2(), EPS);
+        assertSame(all, all.remove(RunningMoments.EMPTY));
+        assertEquals(RunningMoments.EMPTY, all.remove(all));
+    }
+}
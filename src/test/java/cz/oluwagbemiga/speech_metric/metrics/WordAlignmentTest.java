@@ -0,0 +1,59 @@
+package cz.oluwagbemiga.speech_metric.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordAlignmentTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void identicalTextsHaveNoErrors() {
+        WordErrorMetrics metrics = WordAlignment.align("the cat sat", "the cat sat");
+        assertEquals(3, metrics.hits());
+        assertEquals(0d, metrics.wer(), EPS);
+        assertEquals(0d, metrics.mer(), EPS);
+        assertEquals(0d, metrics.wil(), EPS);
+    }
+
+    @Test
+    void countsSubstitutionsDeletionsAndInsertions() {
+        // ref:  we saw a red fox run
+        // hyp:  we see a fox run fast  -> S=1 (saw/see), D=1 (red), I=1 (fast)
+        WordErrorMetrics metrics = WordAlignment.align("we saw a red fox run", "we see a fox run fast");
+        assertEquals(1, metrics.substitutions());
+        assertEquals(1, metrics.deletions());
+        assertEquals(1, metrics.insertions());
+        assertEquals(4, metrics.hits());
+        assertEquals(3d / 6, metrics.wer(), EPS);
+        assertEquals(3d / 7, metrics.mer(), EPS);
+        assertEquals(1d - (4d / 6) * (4d / 6), metrics.wil(), EPS);
+    }
+
+    @Test
+    void prefersSubstitutionsOnEqualCost() {
+        WordErrorMetrics metrics = WordAlignment.align("the cat sat on the mat", "the bat sat on mat today");
+        assertEquals(3, metrics.substitutions());
+        assertEquals(0, metrics.deletions() + metrics.insertions());
+        assertEquals(0.5d, metrics.wer(), EPS);
+    }
+
+    @Test
+    void emptyHypothesisDeletesEverything() {
+        WordErrorMetrics metrics = WordAlignment.align("one two three", "");
+        assertEquals(3, metrics.deletions());
+        assertEquals(1d, metrics.wer(), EPS);
+        assertEquals(1d, metrics.mer(), EPS);
+        assertEquals(1d, metrics.wil(), EPS);
+    }
+
+    @Test
+    void errorCountMatchesTokenEditDistance() {
+        WordErrorMetrics metrics = WordAlignment.align(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3, 7, 5, 6, 6, 8});
+        // 1 deleted, 4 -> 7 substituted, 6 and 8 inserted
+        assertEquals(4, metrics.substitutions() + metrics.deletions() + metrics.insertions());
+        assertEquals(6, metrics.referenceWords());
+        assertEquals(7, metrics.hypothesisWords());
+    }
+}
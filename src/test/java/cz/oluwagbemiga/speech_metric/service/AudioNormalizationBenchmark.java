@@ -0,0 +1,102 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.audio.PcmWavDecoder;
+import cz.oluwagbemiga.speech_metric.audio.WavHeader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the in-process WAV conversion ({@link PcmWavDecoder}) with the ffmpeg process path on
+ * 16-bit stereo WAV of typical upload rates, 10 s long.
+ * <p>
+ * The {@code ffmpeg} benchmark needs ffmpeg on the PATH (or {@code FFMPEG_PATH}). Run from the IDE via
+ * {@link #main(String[])} or with
+ * {@code java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main AudioNormalizationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AudioNormalizationBenchmark {
+
+    private static final int SECONDS = 10;
+
+    @Param({"44100", "48000"})
+    private int sampleRate;
+
+    private FfmpegService ffmpegService;
+    private ThreadPoolTaskScheduler watchdog;
+
+    private byte[] wav;
+    private WavHeader header;
+
+    @Setup
+    public void setUp() {
+        int frames = sampleRate * SECONDS;
+        ByteBuffer bb = ByteBuffer.allocate(44 + frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put("RIFF".getBytes()).putInt(36 + frames * 4).put("WAVE".getBytes());
+        bb.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 2)
+                .putInt(sampleRate).putInt(sampleRate * 4).putShort((short) 4).putShort((short) 16);
+        bb.put("data".getBytes()).putInt(frames * 4);
+        Random random = new Random(3);
+        for (int i = 0; i < frames; i++) {
+            // Speech-band tone plus noise, slightly different per channel
+            double tone = 0.3 * Math.sin(2 * Math.PI * 220 * i / sampleRate);
+            bb.putShort((short) ((tone + 0.05 * random.nextGaussian()) * 32767));
+            bb.putShort((short) ((tone + 0.05 * random.nextGaussian()) * 32767));
+        }
+        wav = bb.array();
+        header = WavHeader.parse(wav).orElseThrow();
+        watchdog = new ThreadPoolTaskScheduler();
+        watchdog.initialize();
+        ffmpegService = new FfmpegService(new SimpleMeterRegistry(), watchdog, System.getenv().getOrDefault("FFMPEG_PATH", "ffmpeg"), 1, 1, Duration.ofMinutes(1), Duration.ofMinutes(1), DataSize.ofMegabytes(64));
+    }
+
+    @TearDown
+    public void tearDown() {
+        watchdog.shutdown();
+    }
+
+    @Benchmark
+    public long inProcess() throws IOException {
+        return PcmWavDecoder.decodeToPcmMono16k(header, new ByteArrayInputStream(wav), OutputStream.nullOutputStream(), wav.length);
+    }
+
+    @Benchmark
+    public long ffmpeg() throws IOException {
+        return ffmpegService.ffmpegTranscodeToWavPcmMono16k(new ByteArrayInputStream(wav), OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AudioNormalizationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
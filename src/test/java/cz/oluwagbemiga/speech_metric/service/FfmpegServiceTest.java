@@ -0,0 +1,129 @@
+package cz.oluwagbemiga.speech_metric.service;
+
+import cz.oluwagbemiga.speech_metric.exception.TranscoderBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the ffmpeg scheduling with shell scripts standing in for ffmpeg.
+ */
+@DisabledOnOs(OS.WINDOWS)
+class FfmpegServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ThreadPoolTaskScheduler watchdog;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        watchdog = new ThreadPoolTaskScheduler();
+        watchdog.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.shutdown();
+    }
+
+    @Test
+    void pumpsLargeInputWithoutBlocking() throws Exception {
+        FfmpegService service = service(script("exec cat"), 1, 0, Duration.ofSeconds(30));
+        byte[] input = new byte[8 << 20];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(input.length, service.ffmpegTranscodeToWavPcmMono16k(new ByteArrayInputStream(input), out));
+        assertEquals(input.length, out.size());
+        assertEquals(1, meterRegistry.get("speech.ffmpeg.jobs").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void killsProcessesExceedingTheWallClockLimit() throws Exception {
+        FfmpegService service = service(script("sleep 30"), 1, 0, Duration.ofMillis(300));
+        long start = System.nanoTime();
+
+        IOException e = assertThrows(IOException.class,
+                () -> service.ffmpegTranscodeToWavPcmMono16k(new ByteArrayInputStream(new byte[16]), OutputStream.nullOutputStream()));
+
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(1, meterRegistry.get("speech.ffmpeg.jobs").tag("outcome", "timeout").counter().count());
+    }
+
+    @Test
+    void rejectsUploadsBeyondTheQueueLimit() throws Exception {
+        Path started = dir.resolve("started");
+        FfmpegService service = service(script("touch " + started + "; cat > /dev/null; printf ok"), 1, 0, Duration.ofSeconds(30));
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the only slot until released: stdin stays open while the latch is closed
+        CompletableFuture<Long> running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.ffmpegTranscodeToWavPcmMono16k(new BlockingInput(release), OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (!Files.exists(started)) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(TranscoderBusyException.class,
+                () -> service.ffmpegTranscodeToWavPcmMono16k(new ByteArrayInputStream(new byte[16]), OutputStream.nullOutputStream()));
+        assertEquals(1, meterRegistry.get("speech.ffmpeg.processes.active").gauge().value());
+
+        release.countDown();
+        assertEquals(2L, running.get(10, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("speech.ffmpeg.jobs").tag("outcome", "rejected").counter().count());
+    }
+
+    private FfmpegService service(String command, int maxProcesses, int maxQueued, Duration processTimeout) {
+        return new FfmpegService(meterRegistry, watchdog, command, maxProcesses, maxQueued, Duration.ofMillis(200), processTimeout, DataSize.ofMegabytes(10));
+    }
+
+    private String script(String body) throws IOException {
+        Path script = dir.resolve("ffmpeg-" + System.nanoTime() + ".sh");
+        Files.writeString(script, "#!/bin/sh\n" + body + "\n");
+        assertTrue(script.toFile().setExecutable(true));
+        return script.toString();
+    }
+
+    private static final class BlockingInput extends java.io.InputStream {
+        private final CountDownLatch release;
+
+        BlockingInput(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return -1;
+        }
+    }
+}
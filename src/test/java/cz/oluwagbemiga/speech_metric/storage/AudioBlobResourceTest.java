@@ -0,0 +1,50 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioBlobResourceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void skipBeforeFirstReadOpensStoreAtOffset() throws Exception {
+        List<Long> openedAt = new ArrayList<>();
+        FileSystemAudioBlobStore store = new FileSystemAudioBlobStore(root) {
+            @Override
+            public InputStream openStream(String contentHash, long offset) {
+                openedAt.add(offset);
+                return super.openStream(contentHash, offset);
+            }
+        };
+        byte[] data = new byte[5_000];
+        new Random(3).nextBytes(data);
+        String hash = ContentHash.sha256Hex(data);
+        store.put(hash, data);
+        AudioBlobResource resource = new AudioBlobResource(store, hash, data.length);
+
+        assertEquals(data.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals(1_000, in.skip(1_000));
+            assertEquals(500, in.skip(500));
+            assertArrayEquals(Arrays.copyOfRange(data, 1_500, data.length), in.readAllBytes());
+        }
+        assertEquals(List.of(1_500L), openedAt);
+
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals(data.length, in.skip(data.length + 1L), "skip stops at the end of the content");
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cz.oluwagbemiga.speech_metric.storage;
+
+import cz.oluwagbemiga.speech_metric.engine.ContentHash;
+import cz.oluwagbemiga.speech_metric.exception.AudioStorageException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemAudioBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesContentAddressedAndReadsBack() throws Exception {
+        FileSystemAudioBlobStore store = new FileSystemAudioBlobStore(root);
+        byte[] data = new byte[3 * (1 << 20) + 17];
+        new Random(7).nextBytes(data);
+        String hash = ContentHash.sha256Hex(data);
+
+        store.put(hash, data);
+        store.put(hash, data);
+
+        assertTrue(store.exists(hash));
+        assertEquals(root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash), store.pathOf(hash));
+        assertArrayEquals(data, store.readAllBytes(hash));
+        try (var files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count(), "no temporary files left behind");
+        }
+    }
+
+    @Test
+    void opensStreamAtOffset() throws Exception {
+        FileSystemAudioBlobStore store = new FileSystemAudioBlobStore(root);
+        byte[] data = new byte[10_000];
+        new Random(11).nextBytes(data);
+        String hash = ContentHash.sha256Hex(data);
+        store.put(hash, data);
+
+        try (var in = store.openStream(hash, 4_000)) {
+            assertArrayEquals(Arrays.copyOfRange(data, 4_000, data.length), in.readAllBytes());
+        }
+        assertThrows(AudioStorageException.class, () -> store.openStream(ContentHash.sha256Hex(new byte[]{9}), 0));
+    }
+
+    @Test
+    void deleteRemovesContent() {
+        FileSystemAudioBlobStore store = new FileSystemAudioBlobStore(root);
+        byte[] data = {1, 2, 3};
+        String hash = ContentHash.sha256Hex(data);
+        store.put(hash, data);
+
+        store.delete(hash);
+        store.delete(hash);
+
+        assertFalse(store.exists(hash));
+        assertThrows(AudioStorageException.class, () -> store.read(hash));
+    }
+
+    @Test
+    void rejectsKeysThatAreNotHashes() {
+        FileSystemAudioBlobStore store = new FileSystemAudioBlobStore(root);
+        assertThrows(IllegalArgumentException.class, () -> store.put("../../etc/passwd", new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> store.exists("ABC"));
+    }
+}